@@ -0,0 +1,97 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import br.ufal.ic.p2.wepayu.Facade;
+import br.ufal.ic.p2.wepayu.managers.FolhaPagamentoManager;
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.utils.GeradorEmpresa;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Teste diferencial do cálculo da folha em ponto fixo: compara, dia a dia, o {@code totalFolha} e o
+ * relatório do {@code rodaFolha} calculados em centavos com os calculados com {@link BigDecimal}
+ * ({@link FolhaPagamentoManager#FolhaPagamentoManager(ForkJoinPool, boolean)}), sobre uma empresa
+ * gerada pelo {@link GeradorEmpresa}.
+ * <p>
+ * A cada dia, alguns cartões, vendas e taxas são lançados pela {@link Facade}, parte deles com mais
+ * casas decimais do que o cálculo em ponto fixo suporta, para exercitar também o retorno ao
+ * cálculo com {@link BigDecimal}. O relatório de referência é gerado primeiro e o estado do
+ * repositório é restaurado antes de gerar o relatório em centavos, que então fica valendo.
+ * </p>
+ * Uso: {@code DiferencialFolhaCentavos [semente] [empregados] [dias]}, a partir de um diretório
+ * vazio. Termina com código 1 na primeira divergência.
+ */
+public class DiferencialFolhaCentavos {
+
+    public static void main(String[] args) throws Exception {
+        long semente = args.length > 0 ? Long.parseLong(args[0]) : 2005;
+        int quantidade = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int dias = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+
+        new Facade().zerarSistema();
+        GeradorEmpresa gerador = new GeradorEmpresa(semente, quantidade, EmpresaState.INICIO, dias / 4);
+        gerador.salvarAgendas("agendas.xml");
+        EmpregadoRepository repositorio = EmpregadoRepository.getInstance();
+        repositorio.importar(gerador);
+        Facade facade = new Facade();
+
+        List<Empregado> horistas = repositorio.getByTipo("horista");
+        List<Empregado> comissionados = repositorio.getByTipo("comissionado");
+        List<Empregado> sindicalizados = repositorio.getAll().values().stream().filter(Empregado::isSindicalizado).toList();
+
+        FolhaPagamentoManager referencia = new FolhaPagamentoManager(ForkJoinPool.commonPool(), false);
+        FolhaPagamentoManager centavos = new FolhaPagamentoManager(ForkJoinPool.commonPool(), true);
+        File saidaReferencia = new File("folha-referencia.txt");
+        File saidaCentavos = new File("folha-centavos.txt");
+        SplittableRandom rnd = new SplittableRandom(semente);
+
+        int relatorios = 0;
+        for (int dia = 0; dia < dias; dia++) {
+            LocalDate data = EmpresaState.INICIO.plusDays(dia);
+            String dataStr = data.format(EmpresaState.FORMATO_DATA);
+
+            for (int i = 0; i < 20; i++) {
+                String casas = rnd.nextInt(10) == 0 ? "," + (1 + rnd.nextInt(999)) : "," + rnd.nextInt(100);
+                if (!horistas.isEmpty()) {
+                    facade.lancaCartao(horistas.get(rnd.nextInt(horistas.size())).getId(), dataStr, (1 + rnd.nextInt(11)) + casas);
+                }
+                if (!comissionados.isEmpty()) {
+                    facade.lancaVenda(comissionados.get(rnd.nextInt(comissionados.size())).getId(), dataStr, (1 + rnd.nextInt(5000)) + casas);
+                }
+                if (!sindicalizados.isEmpty()) {
+                    facade.lancaTaxaServico(sindicalizados.get(rnd.nextInt(sindicalizados.size())).getIdSindicato(), dataStr, (1 + rnd.nextInt(80)) + casas);
+                }
+            }
+
+            BigDecimal totalReferencia = referencia.totalFolha(dataStr);
+            BigDecimal totalCentavos = centavos.totalFolha(dataStr);
+            if (!totalReferencia.equals(totalCentavos)) {
+                System.out.println("totalFolha diverge em " + dataStr + ": " + totalReferencia + " != " + totalCentavos);
+                System.exit(1);
+            }
+
+            EmpregadoRepository.Memento antes = repositorio.createMemento();
+            referencia.rodaFolha(dataStr, saidaReferencia.getPath());
+            repositorio.setMemento(antes);
+            centavos.rodaFolha(dataStr, saidaCentavos.getPath());
+            if (!Arrays.equals(Files.readAllBytes(saidaReferencia.toPath()), Files.readAllBytes(saidaCentavos.toPath()))) {
+                System.out.println("rodaFolha diverge em " + dataStr + " (ver " + saidaReferencia + " e " + saidaCentavos + ")");
+                System.exit(1);
+            }
+            relatorios++;
+        }
+
+        saidaReferencia.delete();
+        saidaCentavos.delete();
+        facade.zerarSistema();
+        System.out.println("OK: " + relatorios + " dias com totalFolha e rodaFolha idênticos");
+    }
+}
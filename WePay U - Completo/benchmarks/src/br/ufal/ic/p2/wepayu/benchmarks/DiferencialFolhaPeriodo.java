@@ -0,0 +1,112 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import br.ufal.ic.p2.wepayu.Facade;
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.utils.GeradorEmpresa;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Teste diferencial da folha em lote: compara o {@code rodaFolhaPeriodo} com uma chamada de
+ * {@code rodaFolha} para cada dia do período, sobre uma empresa gerada pelo {@link GeradorEmpresa}.
+ * <p>
+ * Cartões, vendas e taxas são lançados pela {@link Facade} em datas sorteadas do período (portanto
+ * fora de ordem) antes das duas execuções. Cada relatório gerado em lote deve ser idêntico ao do
+ * mesmo dia na execução dia a dia, e as últimas datas de pagamento devem coincidir no fim. Por
+ * último, um único {@code undo} deve desfazer a execução em lote inteira.
+ * </p>
+ * Uso: {@code DiferencialFolhaPeriodo [semente] [empregados] [dias]}, a partir de um diretório
+ * vazio. Termina com código 1 na primeira divergência.
+ */
+public class DiferencialFolhaPeriodo {
+
+    public static void main(String[] args) throws Exception {
+        long semente = args.length > 0 ? Long.parseLong(args[0]) : 2005;
+        int quantidade = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int dias = args.length > 2 ? Integer.parseInt(args[2]) : 120;
+
+        new Facade().zerarSistema();
+        GeradorEmpresa gerador = new GeradorEmpresa(semente, quantidade, EmpresaState.INICIO, dias / 4);
+        gerador.salvarAgendas("agendas.xml");
+        EmpregadoRepository repositorio = EmpregadoRepository.getInstance();
+        repositorio.importar(gerador);
+        Facade facade = new Facade();
+
+        List<Empregado> horistas = repositorio.getByTipo("horista");
+        List<Empregado> comissionados = repositorio.getByTipo("comissionado");
+        List<Empregado> sindicalizados = repositorio.getAll().values().stream().filter(Empregado::isSindicalizado).toList();
+
+        SplittableRandom rnd = new SplittableRandom(semente);
+        for (int i = 0; i < 20 * dias; i++) {
+            String dataStr = EmpresaState.INICIO.plusDays(rnd.nextInt(dias)).format(EmpresaState.FORMATO_DATA);
+            String casas = "," + rnd.nextInt(100);
+            if (!horistas.isEmpty()) {
+                facade.lancaCartao(horistas.get(rnd.nextInt(horistas.size())).getId(), dataStr, (1 + rnd.nextInt(11)) + casas);
+            }
+            if (!comissionados.isEmpty()) {
+                facade.lancaVenda(comissionados.get(rnd.nextInt(comissionados.size())).getId(), dataStr, (1 + rnd.nextInt(5000)) + casas);
+            }
+            if (!sindicalizados.isEmpty()) {
+                facade.lancaTaxaServico(sindicalizados.get(rnd.nextInt(sindicalizados.size())).getIdSindicato(), dataStr, (1 + rnd.nextInt(80)) + casas);
+            }
+        }
+
+        LocalDate inicio = EmpresaState.INICIO;
+        LocalDate fim = inicio.plusDays(dias - 1);
+        EmpregadoRepository.Memento antes = repositorio.createMemento();
+        Map<String, LocalDate> pagamentosAntes = ultimasDatasPagamento(repositorio);
+
+        Map<LocalDate, byte[]> diaADia = new HashMap<>();
+        File saida = new File("folha-dia.txt");
+        for (LocalDate data = inicio; !data.isAfter(fim); data = data.plusDays(1)) {
+            facade.rodaFolha(data.format(EmpresaState.FORMATO_DATA), saida.getPath());
+            diaADia.put(data, Files.readAllBytes(saida.toPath()));
+        }
+        saida.delete();
+        Map<String, LocalDate> pagamentosDiaADia = ultimasDatasPagamento(repositorio);
+
+        repositorio.setMemento(antes);
+        facade.rodaFolhaPeriodo(inicio.format(EmpresaState.FORMATO_DATA), fim.format(EmpresaState.FORMATO_DATA), "folha-lote-");
+        int relatorios = 0;
+        for (LocalDate data = inicio; !data.isAfter(fim); data = data.plusDays(1)) {
+            File lote = new File("folha-lote-" + data + ".txt");
+            if (lote.exists()) {
+                if (!Arrays.equals(diaADia.get(data), Files.readAllBytes(lote.toPath()))) {
+                    System.out.println("rodaFolhaPeriodo diverge em " + data + " (ver " + lote + ")");
+                    System.exit(1);
+                }
+                lote.delete();
+                relatorios++;
+            }
+        }
+        if (!pagamentosDiaADia.equals(ultimasDatasPagamento(repositorio))) {
+            System.out.println("Últimas datas de pagamento divergem depois do rodaFolhaPeriodo");
+            System.exit(1);
+        }
+
+        facade.undo();
+        if (!pagamentosAntes.equals(ultimasDatasPagamento(repositorio))) {
+            System.out.println("O undo não desfez o rodaFolhaPeriodo inteiro");
+            System.exit(1);
+        }
+
+        facade.zerarSistema();
+        System.out.println("OK: " + relatorios + " relatórios em lote idênticos aos da execução dia a dia");
+    }
+
+    private static Map<String, LocalDate> ultimasDatasPagamento(EmpregadoRepository repositorio) {
+        Map<String, LocalDate> datas = new HashMap<>();
+        for (Empregado empregado : repositorio.getAll().values()) {
+            datas.put(empregado.getId(), empregado.getUltimaDataPagamento());
+        }
+        return datas;
+    }
+}
@@ -0,0 +1,85 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import br.ufal.ic.p2.wepayu.Facade;
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.utils.GeradorEmpresa;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Estado compartilhado pelos benchmarks: uma empresa sintética gerada pelo {@link GeradorEmpresa}
+ * com uma semente fixa, para que todas as execuções meçam a mesma empresa.
+ * <p>
+ * O tamanho da empresa ({@link #empregados}) e a profundidade do histórico ({@link #historico},
+ * o número de dias de cartões de ponto, vendas e taxas de serviço a partir de {@link #INICIO})
+ * são parâmetros do JMH.
+ * </p>
+ * Como o repositório é um Singleton que persiste no diretório de trabalho, cada benchmark deve rodar
+ * no seu próprio fork, a partir de um diretório descartável.
+ */
+@State(Scope.Benchmark)
+public class EmpresaState {
+    private static final long SEMENTE = 2005;
+    /** Primeiro dia do histórico gerado (uma segunda-feira). */
+    public static final LocalDate INICIO = LocalDate.of(2005, 1, 3);
+    public static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("d/M/yyyy");
+
+    @Param({"1000", "10000", "100000"})
+    public int empregados;
+
+    @Param({"0", "30", "365"})
+    public int historico;
+
+    public Facade facade;
+    /** IDs dos empregados, em ordem crescente. */
+    public String[] ids;
+    /** IDs dos horistas e dos comissionados, para os lançamentos. */
+    public String[] horistas;
+    public String[] comissionados;
+    /** Última sexta-feira coberta pelo histórico, no formato da Facade: data de pagamento de horistas e comissionados. */
+    public String dataFolha;
+
+    /**
+     * Zera o sistema e carrega no repositório a empresa gerada com o tamanho e o histórico
+     * parametrizados. As agendas customizadas são gravadas em {@code agendas.xml} antes de criar a
+     * {@link Facade} usada pelos benchmarks, para que ela as encontre.
+     *
+     * @throws Exception se alguma operação da Facade falhar.
+     */
+    @Setup(Level.Trial)
+    public void popular() throws Exception {
+        new Facade().zerarSistema();
+        GeradorEmpresa gerador = new GeradorEmpresa(SEMENTE, empregados, INICIO, historico);
+        gerador.salvarAgendas("agendas.xml");
+        EmpregadoRepository repositorio = EmpregadoRepository.getInstance();
+        repositorio.importar(gerador);
+        facade = new Facade();
+
+        ids = repositorio.getAll().keySet().toArray(new String[0]);
+        horistas = repositorio.getByTipo("horista").stream().map(Empregado::getId).toArray(String[]::new);
+        comissionados = repositorio.getByTipo("comissionado").stream().map(Empregado::getId).toArray(String[]::new);
+
+        LocalDate fim = INICIO.plusDays(Math.max(historico - 1, 0));
+        dataFolha = fim.with(TemporalAdjusters.previousOrSame(DayOfWeek.FRIDAY)).format(FORMATO_DATA);
+    }
+
+    /**
+     * Zera o sistema ao final, para que o diretório de trabalho não fique com a empresa gerada.
+     *
+     * @throws Exception se a operação da Facade falhar.
+     */
+    @TearDown(Level.Trial)
+    public void limpar() throws Exception {
+        facade.zerarSistema();
+    }
+}
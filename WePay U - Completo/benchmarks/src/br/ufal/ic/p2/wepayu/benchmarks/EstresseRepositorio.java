@@ -0,0 +1,226 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import br.ufal.ic.p2.wepayu.Facade;
+import br.ufal.ic.p2.wepayu.managers.FolhaPagamentoManager;
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.utils.GeradorEmpresa;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Teste de estresse do {@link EmpregadoRepository} com escritores e leitores concorrentes: threads
+ * escritoras lançam cartões e alteram empregados, cada uma pela sua {@link Facade}, enquanto várias
+ * threads leitoras consultam atributos, horas trabalhadas e o {@code totalFolha}, sobre uma empresa
+ * gerada pelo {@link GeradorEmpresa}.
+ * <p>
+ * Cada escritor lança um cartão de 8 horas por dia para o seu horista e, a cada passo, muda a
+ * identificação e a taxa sindical de um assalariado compartilhado por todos no mesmo comando
+ * ({@code estresse-<k>} e {@code k}, com {@code k} único entre os escritores). Se os comandos não
+ * tivessem um único escritor por vez, os cartões de um escritor seriam publicados enquanto outro
+ * ainda estivesse alterando o assalariado.
+ * Os leitores verificam que:
+ * </p>
+ * <ul>
+ *     <li>a identificação e a taxa sindical lidas de um mesmo empregado são sempre do mesmo passo
+ *         (nenhum leitor vê um empregado alterado pela metade);</li>
+ *     <li>um empregado lido não muda depois da leitura (um empregado publicado nunca é alterado no
+ *         lugar, nem mesmo o que outro escritor ainda estava alterando);</li>
+ *     <li>as horas normais do horista do primeiro escritor são múltiplas de 8 e nunca diminuem;</li>
+ *     <li>o {@code totalFolha} nunca diminui e só muda em múltiplos do valor de um cartão.</li>
+ * </ul>
+ * No meio da execução, o monitor do repositório (o lock dos escritores) é retido por um tempo, e os
+ * leitores devem continuar respondendo nesse intervalo. No fim, o {@code totalFolha} (que pode vir
+ * do cache) deve ser igual ao calculado do zero e as horas de cada horista devem incluir todos os
+ * cartões do seu escritor.
+ * <p>
+ * Uso: {@code EstresseRepositorio [leitores] [passos] [empregados] [escritores]}, a partir de um
+ * diretório vazio. Termina com código 1 na primeira violação.
+ * </p>
+ */
+public class EstresseRepositorio {
+    private static final int HORAS_POR_CARTAO = 8;
+    private static final BigDecimal VALOR_CARTAO = new BigDecimal("80");
+    private static final long RETENCAO_LOCK_MILLIS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int leitores = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int passos = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int quantidade = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int escritores = args.length > 3 ? Math.max(1, Integer.parseInt(args[3])) : 3;
+
+        Facade facade = new Facade();
+        facade.zerarSistema();
+        GeradorEmpresa gerador = new GeradorEmpresa(2005, quantidade, EmpresaState.INICIO, 30);
+        gerador.salvarAgendas("agendas.xml");
+        EmpregadoRepository repositorio = EmpregadoRepository.getInstance();
+        repositorio.importar(gerador);
+        facade = new Facade();
+
+        List<String> horistas = new ArrayList<>();
+        for (int w = 0; w < escritores; w++) {
+            horistas.add(facade.criarEmpregado("Horista Estresse " + (char) ('A' + w % 26), "Rua A", "horista", "10"));
+        }
+        String horista = horistas.get(0);
+        String sindicalizado = facade.criarEmpregado("Sindicalizado Estresse", "Rua B", "assalariado", "1000");
+        facade.alteraEmpregado(sindicalizado, "sindicalizado", true, "estresse-0", "0");
+
+        LocalDate inicio = EmpresaState.INICIO.plusDays(60);
+        LocalDate fim = inicio.plusDays(passos);
+        LocalDate dataFolha = fim;
+        while (dataFolha.getDayOfWeek() != DayOfWeek.FRIDAY) {
+            dataFolha = dataFolha.plusDays(1);
+        }
+        String inicioStr = inicio.format(EmpresaState.FORMATO_DATA);
+        String fimStr = fim.format(EmpresaState.FORMATO_DATA);
+        String dataFolhaStr = dataFolha.format(EmpresaState.FORMATO_DATA);
+
+        AtomicBoolean ativo = new AtomicBoolean(true);
+        AtomicLong leituras = new AtomicLong();
+        AtomicLong maiorLeituraNanos = new AtomicLong();
+        AtomicReference<String> violacao = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < leitores; t++) {
+            long semente = t;
+            threads.add(new Thread(() -> {
+                Facade leitor = new Facade();
+                SplittableRandom rnd = new SplittableRandom(semente);
+                BigDecimal ultimasHoras = BigDecimal.ZERO;
+                BigDecimal primeiroTotal = null;
+                BigDecimal ultimoTotal = null;
+                try {
+                    while (ativo.get() && violacao.get() == null) {
+                        long antes = System.nanoTime();
+                        // Metade das leituras confere o empregado alterado, cuja janela de alteração é curta
+                        switch (Math.max(rnd.nextInt(4) - 1, 0)) {
+                            case 0 -> {
+                                Empregado empregado = repositorio.getById(sindicalizado);
+                                String id = empregado.getIdSindicato();
+                                String taxa = empregado.getTaxaSindical().toPlainString();
+                                if (!id.equals("estresse-" + taxa)) {
+                                    violacao.compareAndSet(null, "Empregado lido pela metade: " + id + " com taxa " + taxa);
+                                }
+                                // Um empregado publicado nunca é alterado no lugar
+                                Thread.yield();
+                                if (!empregado.getIdSindicato().equals(id)) {
+                                    violacao.compareAndSet(null, "Empregado publicado alterado: " + id + " virou "
+                                            + empregado.getIdSindicato());
+                                }
+                            }
+                            case 1 -> {
+                                BigDecimal horas = numero(leitor.getHorasNormaisTrabalhadas(horista, inicioStr, fimStr));
+                                if (horas.remainder(BigDecimal.valueOf(HORAS_POR_CARTAO)).signum() != 0
+                                        || horas.compareTo(ultimasHoras) < 0) {
+                                    violacao.compareAndSet(null, "Horas normais " + horas + " depois de " + ultimasHoras);
+                                }
+                                ultimasHoras = horas;
+                            }
+                            default -> {
+                                BigDecimal total = numero(leitor.totalFolha(dataFolhaStr));
+                                if (primeiroTotal == null) {
+                                    primeiroTotal = total;
+                                } else if (total.compareTo(ultimoTotal) < 0
+                                        || total.subtract(primeiroTotal).remainder(VALOR_CARTAO).signum() != 0) {
+                                    violacao.compareAndSet(null, "totalFolha " + total + " depois de " + ultimoTotal);
+                                }
+                                ultimoTotal = total;
+                            }
+                        }
+                        maiorLeituraNanos.accumulateAndGet(System.nanoTime() - antes, Math::max);
+                        leituras.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    violacao.compareAndSet(null, "Leitura falhou: " + e);
+                }
+            }, "leitor-" + t));
+        }
+
+        List<Thread> escritas = new ArrayList<>();
+        for (int w = 0; w < escritores; w++) {
+            int indice = w;
+            escritas.add(new Thread(() -> {
+                Facade escritor = new Facade();
+                String meuHorista = horistas.get(indice);
+                try {
+                    for (int i = 1; i <= passos && violacao.get() == null; i++) {
+                        escritor.lancaCartao(meuHorista, inicio.plusDays(i - 1).format(EmpresaState.FORMATO_DATA),
+                                String.valueOf(HORAS_POR_CARTAO));
+                        int passo = i * escritores + indice;
+                        escritor.alteraEmpregado(sindicalizado, "sindicalizado", true, "estresse-" + passo,
+                                String.valueOf(passo));
+                        if (i % 500 == 0) {
+                            repositorio.salvarDados();
+                        }
+                    }
+                } catch (Exception e) {
+                    violacao.compareAndSet(null, "Escrita falhou: " + e);
+                }
+            }, "escritor-" + w));
+        }
+
+        long inicioExecucao = System.nanoTime();
+        threads.forEach(Thread::start);
+        escritas.forEach(Thread::start);
+
+        // Retém o lock dos escritores: as leituras devem continuar nesse intervalo
+        Thread.sleep(50);
+        long leiturasDuranteRetencao;
+        synchronized (repositorio) {
+            long antes = leituras.get();
+            Thread.sleep(RETENCAO_LOCK_MILLIS);
+            leiturasDuranteRetencao = leituras.get() - antes;
+        }
+
+        for (Thread escrita : escritas) {
+            escrita.join();
+        }
+        ativo.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long duracaoMillis = (System.nanoTime() - inicioExecucao) / 1_000_000;
+        if (violacao.get() != null) {
+            System.out.println(violacao.get());
+            System.exit(1);
+        }
+        if (leiturasDuranteRetencao == 0 && leitores > 0) {
+            System.out.println("Nenhuma leitura terminou enquanto o lock dos escritores estava retido");
+            System.exit(1);
+        }
+
+        for (String id : horistas) {
+            BigDecimal horasFinais = numero(facade.getHorasNormaisTrabalhadas(id, inicioStr, fimStr));
+            if (horasFinais.compareTo(BigDecimal.valueOf((long) HORAS_POR_CARTAO * passos)) != 0) {
+                System.out.println("Horas finais do horista " + id + ": " + horasFinais + ", esperadas "
+                        + HORAS_POR_CARTAO * passos);
+                System.exit(1);
+            }
+        }
+        BigDecimal totalEmCache = numero(facade.totalFolha(dataFolhaStr));
+        BigDecimal totalDoZero = new FolhaPagamentoManager().totalFolha(dataFolhaStr);
+        if (totalEmCache.compareTo(totalDoZero) != 0) {
+            System.out.println("totalFolha em cache " + totalEmCache + " diverge do calculado do zero " + totalDoZero);
+            System.exit(1);
+        }
+
+        repositorio.aguardarPersistencia();
+        facade.zerarSistema();
+        System.out.printf("OK: %d passos de escrita em %d escritores e %d leituras em %d ms (%d leitores); %d leituras"
+                        + " com o lock dos escritores retido por %d ms; leitura mais lenta: %.1f ms%n",
+                passos, escritores, leituras.get(), duracaoMillis, leitores, leiturasDuranteRetencao,
+                RETENCAO_LOCK_MILLIS, maiorLeituraNanos.get() / 1e6);
+    }
+
+    private static BigDecimal numero(String texto) {
+        return new BigDecimal(texto.replace(",", "."));
+    }
+}
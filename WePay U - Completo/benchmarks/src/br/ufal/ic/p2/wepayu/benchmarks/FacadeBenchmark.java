@@ -0,0 +1,115 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das operações da {@link br.ufal.ic.p2.wepayu.Facade} que dominam o tempo de execução:
+ * folha de pagamento, lançamentos, alteração de empregados e undo/redo.
+ * <p>
+ * Os lançamentos acrescentam ao histórico a cada chamada (um cartão ou venda por empregado e por dia,
+ * após o histórico inicial), como numa ingestão real. As demais operações deixam a empresa no mesmo
+ * tamanho entre as chamadas.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FacadeBenchmark {
+
+    /**
+     * Estado de cada thread do benchmark: o arquivo de saída da folha e os cursores dos lançamentos.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        File saida;
+        int proximo;
+        boolean alternar;
+
+        @Setup(Level.Trial)
+        public void criarSaida() throws IOException {
+            saida = File.createTempFile("folha-benchmark", ".txt");
+        }
+
+        @TearDown(Level.Trial)
+        public void apagarSaida() {
+            saida.delete();
+        }
+    }
+
+    /**
+     * Estado para o benchmark de undo/redo: garante que há um comando a desfazer.
+     */
+    @State(Scope.Thread)
+    public static class ComComandoDesfeito {
+        @Setup(Level.Trial)
+        public void executarComando(EmpresaState empresa) throws Exception {
+            empresa.facade.alteraEmpregado(empresa.ids[0], "endereco", "Rua do Undo");
+        }
+    }
+
+    @Benchmark
+    public void rodaFolha(EmpresaState empresa, Cursor cursor) throws Exception {
+        empresa.facade.rodaFolha(empresa.dataFolha, cursor.saida.getPath());
+    }
+
+    @Benchmark
+    public String totalFolha(EmpresaState empresa) throws Exception {
+        return empresa.facade.totalFolha(empresa.dataFolha);
+    }
+
+    @Benchmark
+    public void lancaCartao(EmpresaState empresa, Cursor cursor) throws Exception {
+        empresa.facade.lancaCartao(proximo(empresa.horistas, cursor), proximaData(empresa, cursor, empresa.horistas), "8");
+    }
+
+    @Benchmark
+    public void lancaVenda(EmpresaState empresa, Cursor cursor) throws Exception {
+        empresa.facade.lancaVenda(proximo(empresa.comissionados, cursor), proximaData(empresa, cursor, empresa.comissionados), "99,9");
+    }
+
+    @Benchmark
+    public void alteraEmpregado(EmpresaState empresa, Cursor cursor) throws Exception {
+        cursor.alternar = !cursor.alternar;
+        empresa.facade.alteraEmpregado(proximo(empresa.ids, cursor), "nome", cursor.alternar ? "Renomeado" : "Empregado");
+    }
+
+    @Benchmark
+    public void undoRedo(EmpresaState empresa, ComComandoDesfeito comando) throws Exception {
+        empresa.facade.undo();
+        empresa.facade.redo();
+    }
+
+    /**
+     * Percorre os IDs em rodízio.
+     */
+    private static String proximo(String[] ids, Cursor cursor) {
+        String id = ids[cursor.proximo % ids.length];
+        cursor.proximo++;
+        return id;
+    }
+
+    /**
+     * Avança um dia depois do histórico inicial a cada volta completa pelos empregados.
+     */
+    private static String proximaData(EmpresaState empresa, Cursor cursor, String[] ids) {
+        int dia = empresa.historico + (cursor.proximo - 1) / ids.length;
+        return EmpresaState.INICIO.plusDays(dia).format(EmpresaState.FORMATO_DATA);
+    }
+}
@@ -0,0 +1,69 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.utils.SnapshotBinario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks da gravação e da leitura de um segmento do snapshot binário ({@link SnapshotBinario}),
+ * o formato usado pela inicialização e pelos checkpoints do repositório, com todos os empregados
+ * da empresa gerada em {@link EmpresaState}, em um arquivo temporário separado dos segmentos do repositório.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SnapshotBinarioBenchmark {
+
+    /**
+     * O arquivo temporário, já gravado uma vez para que a leitura tenha o que carregar.
+     */
+    @State(Scope.Benchmark)
+    public static class Arquivo {
+        File binario;
+        Collection<Empregado> empregados;
+
+        @Setup(Level.Trial)
+        public void gravar(EmpresaState empresa) throws Exception {
+            binario = File.createTempFile("empregados-benchmark", ".bin");
+            empregados = EmpregadoRepository.getInstance().getAll().values();
+            SnapshotBinario.salvar(binario.getPath(), empregados, 0);
+        }
+
+        @TearDown(Level.Trial)
+        public void apagar() {
+            binario.delete();
+        }
+    }
+
+    @Benchmark
+    public void salvar(Arquivo arquivo) throws Exception {
+        SnapshotBinario.salvar(arquivo.binario.getPath(), arquivo.empregados, 0);
+    }
+
+    /**
+     * Abre o arquivo e decodifica todos os empregados, como na inicialização do repositório.
+     */
+    @Benchmark
+    public void carregar(Arquivo arquivo, Blackhole blackhole) throws Exception {
+        SnapshotBinario.abrir(arquivo.binario.getPath()).paraCada(blackhole::consume);
+    }
+}
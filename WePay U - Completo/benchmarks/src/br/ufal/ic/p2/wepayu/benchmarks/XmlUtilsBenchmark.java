@@ -0,0 +1,65 @@
+package br.ufal.ic.p2.wepayu.benchmarks;
+
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.utils.XmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks da leitura e da escrita do XML de importação e exportação ({@link XmlUtils}) da empresa
+ * gerada em {@link EmpresaState}, em um arquivo temporário separado do {@code empregados.xml} do repositório.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XmlUtilsBenchmark {
+
+    /**
+     * O arquivo temporário, já gravado uma vez para que a leitura tenha o que carregar.
+     */
+    @State(Scope.Benchmark)
+    public static class Arquivo {
+        File xml;
+        Map<String, Empregado> empregados;
+
+        @Setup(Level.Trial)
+        public void gravar(EmpresaState empresa) throws Exception {
+            xml = File.createTempFile("empregados-benchmark", ".xml");
+            empregados = EmpregadoRepository.getInstance().getAll();
+            XmlUtils.salvarDados(xml.getPath(), empregados);
+        }
+
+        @TearDown(Level.Trial)
+        public void apagar() {
+            xml.delete();
+        }
+    }
+
+    @Benchmark
+    public void salvarDados(Arquivo arquivo) throws Exception {
+        XmlUtils.salvarDados(arquivo.xml.getPath(), arquivo.empregados);
+    }
+
+    @Benchmark
+    public Map<String, Empregado> carregarDados(Arquivo arquivo) throws Exception {
+
+        return XmlUtils.carregarDados(arquivo.xml.getPath());
+    }
+}
@@ -28,6 +28,8 @@ public class Main {
         EasyAccept.main(new String[]{facade, "tests/us9_1.txt"});
         EasyAccept.main(new String[]{facade, "tests/us10.txt"});
         EasyAccept.main(new String[]{facade, "tests/us10_1.txt"});
+        EasyAccept.main(new String[]{facade, "tests/us11.txt"});
+        EasyAccept.main(new String[]{facade, "tests/us12.txt"});
     }
 }
 
@@ -5,6 +5,8 @@ import br.ufal.ic.p2.wepayu.managers.FolhaPagamentoManager;
 import br.ufal.ic.p2.wepayu.managers.MainManager;
 import br.ufal.ic.p2.wepayu.utils.AppUtils;
 
+import java.io.IOException;
+
 /**
  * A classe Facade implementa o padrão de projeto Facade para fornecer uma interface simplificada
  * e unificada para um conjunto complexo de subsistemas de gerenciamento do sistema WePayU.
@@ -43,8 +45,9 @@ public class Facade {
     /**
      * Encerra o sistema, salvando os dados persistentes (como agendas de pagamento)
      * e marcando o repositório como encerrado.
+     * @throws IOException se os dados não puderem ser gravados.
      */
-    public void encerrarSistema() {
+    public void encerrarSistema() throws IOException {
         mainManager.getAgendaManager().salvarDados();
         mainManager.empregadoManager.empregadoRepository.encerrarSistema();
     }
@@ -187,6 +190,19 @@ public class Facade {
         commandHistory.execute(() -> folhaPagamentoManager.rodaFolha(data, saida));
     }
 
+    /**
+     * Executa o processamento da folha de pagamento para todas as datas de um período, em uma única
+     * varredura, gerando um relatório para cada data em que algum empregado é pago.
+     * A execução inteira é um único comando: um {@code undo} a desfaz por completo.
+     * @param dataInicial A primeira data do período (formato "d/M/yyyy").
+     * @param dataFinal A última data do período (formato "d/M/yyyy").
+     * @param prefixoSaida O prefixo dos arquivos de saída; cada relatório é salvo em {@code prefixoSaida + "yyyy-MM-dd.txt"}.
+     * @throws Exception se ocorrer um erro durante o processamento.
+     */
+    public void rodaFolhaPeriodo(String dataInicial, String dataFinal, String prefixoSaida) throws Exception {
+        commandHistory.execute(() -> folhaPagamentoManager.rodaFolhaPeriodo(dataInicial, dataFinal, prefixoSaida));
+    }
+
     /**
      * Desfaz a última operação que modificou o estado do sistema.
      * @throws Exception se não houver operações para desfazer.
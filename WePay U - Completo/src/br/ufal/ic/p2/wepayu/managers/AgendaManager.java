@@ -2,10 +2,14 @@ package br.ufal.ic.p2.wepayu.managers;
 
 import br.ufal.ic.p2.wepayu.ExceptionAgenda.AgendaJaExisteException;
 import br.ufal.ic.p2.wepayu.ExceptionAgenda.DescricaoAgendaInvalidaException;
+import br.ufal.ic.p2.wepayu.models.AgendaPagamento;
 import br.ufal.ic.p2.wepayu.utils.XmlUtils;
 import java.io.File;
+import java.io.IOException;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Gerenciador responsável por todas as operações relacionadas às Agendas de Pagamento.
@@ -13,8 +17,12 @@ import java.util.Set;
  * Esta classe controla a criação, validação e persistência de agendas de pagamento,
  * tanto as padrões do sistema quanto as customizadas pelos usuários.
  * </p>
+ * Também mantém o cache global das agendas compiladas ({@link AgendaPagamento}): cada descrição é
+ * interpretada uma única vez, e o mesmo objeto é compartilhado por todos os empregados que a usam.
  */
 public class AgendaManager {
+    private static final Map<String, AgendaPagamento> AGENDAS_COMPILADAS = new ConcurrentHashMap<>();
+
     private final Set<String> agendasDisponiveis = new HashSet<>();
     private final String filename = "agendas.xml";
 
@@ -36,17 +44,24 @@ public class AgendaManager {
     /**
      * Carrega as agendas customizadas do arquivo de persistência (XML)
      * e as adiciona ao conjunto de agendas disponíveis.
+     *
+     * @throws IllegalStateException se o arquivo não puder ser lido (truncado, corrompido ou malformado).
      */
     private void carregarDados() {
-        Set<String> agendasSalvas = XmlUtils.carregarAgendas(filename);
-        agendasDisponiveis.addAll(agendasSalvas);
+        try {
+            agendasDisponiveis.addAll(XmlUtils.carregarAgendas(filename));
+        } catch (Exception e) {
+            throw new IllegalStateException("Não foi possível carregar as agendas de pagamento", e);
+        }
     }
 
     /**
      * Salva as agendas de pagamento customizadas no arquivo de persistência.
      * As agendas padrão não são salvas para evitar redundância.
+     *
+     * @throws IOException se o arquivo não puder ser gravado.
      */
-    public void salvarDados() {
+    public void salvarDados() throws IOException {
         // Filtra apenas as agendas que não são padrão
         Set<String> agendasCustomizadas = new HashSet<>(agendasDisponiveis);
         agendasCustomizadas.remove("semanal 5");
@@ -86,6 +101,18 @@ public class AgendaManager {
         }
     }
 
+    /**
+     * Retorna a agenda compilada de uma descrição, compilando-a na primeira vez em que é pedida.
+     * Pode ser chamado de várias threads ao mesmo tempo.
+     *
+     * @param descricao A descrição da agenda (ex: "semanal 2 5").
+     * @return A agenda compartilhada correspondente à descrição.
+     */
+    public static AgendaPagamento getAgenda(String descricao) {
+        AgendaPagamento agenda = AGENDAS_COMPILADAS.get(descricao);
+        return agenda != null ? agenda : AGENDAS_COMPILADAS.computeIfAbsent(descricao, AgendaPagamento::new);
+    }
+
     /**
      * Verifica se uma determinada agenda de pagamento está disponível no sistema.
      *
@@ -15,6 +15,14 @@ import java.util.concurrent.Callable;
  * esse estado anterior é adicionado à pilha de undo. Se falhar, o estado é restaurado, garantindo
  * a atomicidade da operação (ou ela é concluída com sucesso, ou o sistema volta ao estado anterior).
  * </p>
+ * <p>
+ * Os comandos, o undo e o redo rodam com o monitor do repositório, de modo que há um único escritor
+ * por vez, qualquer que seja a thread ou a {@code Facade} de onde vieram: um comando que altera um
+ * empregado obtido por {@link EmpregadoRepository#getParaAlteracao} não pode ter a cópia publicada
+ * pela metade por outro escritor, e o Memento de antes do comando é de fato o estado que ele alterou.
+ * O monitor também protege as pilhas de undo e redo. As consultas não usam o monitor e não esperam
+ * pelos comandos.
+ * </p>
  */
 public class CommandHistoryManager {
     private final Stack<EmpregadoRepository.Memento> undoStack = new Stack<>();
@@ -37,15 +45,17 @@ public class CommandHistoryManager {
      * @throws Exception se a operação falhar. Neste caso, o estado do sistema é revertido.
      */
     public void execute(Command command) throws Exception {
-        empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
-        EmpregadoRepository.Memento beforeState = empregadoRepository.createMemento();
-        try {
-            command.execute();
-            undoStack.push(beforeState);
-            redoStack.clear(); // Uma nova ação limpa a pilha de redo
-        } catch (Exception e) {
-            empregadoRepository.setMemento(beforeState); // Restaura o estado em caso de erro
-            throw e;
+        synchronized (empregadoRepository) {
+            empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
+            EmpregadoRepository.Memento beforeState = empregadoRepository.createMemento();
+            try {
+                command.execute();
+                undoStack.push(beforeState);
+                redoStack.clear(); // Uma nova ação limpa a pilha de redo
+            } catch (Exception e) {
+                empregadoRepository.setMemento(beforeState); // Restaura o estado em caso de erro
+                throw e;
+            }
         }
     }
 
@@ -58,16 +68,18 @@ public class CommandHistoryManager {
      * @throws Exception se a operação falhar. Neste caso, o estado do sistema é revertido.
      */
     public <T> T execute(Callable<T> command) throws Exception {
-        empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
-        EmpregadoRepository.Memento beforeState = empregadoRepository.createMemento();
-        try {
-            T result = command.call();
-            undoStack.push(beforeState);
-            redoStack.clear(); // Uma nova ação limpa a pilha de redo
-            return result;
-        } catch (Exception e) {
-            empregadoRepository.setMemento(beforeState); // Restaura o estado em caso de erro
-            throw e;
+        synchronized (empregadoRepository) {
+            empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
+            EmpregadoRepository.Memento beforeState = empregadoRepository.createMemento();
+            try {
+                T result = command.call();
+                undoStack.push(beforeState);
+                redoStack.clear(); // Uma nova ação limpa a pilha de redo
+                return result;
+            } catch (Exception e) {
+                empregadoRepository.setMemento(beforeState); // Restaura o estado em caso de erro
+                throw e;
+            }
         }
     }
 
@@ -78,13 +90,15 @@ public class CommandHistoryManager {
      * @throws Exception se não houver operações para desfazer.
      */
     public void undo() throws Exception {
-        empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
-        if (undoStack.isEmpty()) {
-            throw new Exception("Nao ha comando a desfazer.");
+        synchronized (empregadoRepository) {
+            empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
+            if (undoStack.isEmpty()) {
+                throw new Exception("Nao ha comando a desfazer.");
+            }
+            redoStack.push(empregadoRepository.createMemento());
+            EmpregadoRepository.Memento previousState = undoStack.pop();
+            empregadoRepository.setMemento(previousState);
         }
-        redoStack.push(empregadoRepository.createMemento());
-        EmpregadoRepository.Memento previousState = undoStack.pop();
-        empregadoRepository.setMemento(previousState);
     }
 
     /**
@@ -94,12 +108,14 @@ public class CommandHistoryManager {
      * @throws Exception se não houver operações para refazer.
      */
     public void redo() throws Exception {
-        empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
-        if (redoStack.isEmpty()) {
-            throw new Exception("Nao ha comando a refazer.");
+        synchronized (empregadoRepository) {
+            empregadoRepository.verificarSistemaAberto(); // Garante que o sistema não está encerrado
+            if (redoStack.isEmpty()) {
+                throw new Exception("Nao ha comando a refazer.");
+            }
+            undoStack.push(empregadoRepository.createMemento());
+            EmpregadoRepository.Memento nextState = redoStack.pop();
+            empregadoRepository.setMemento(nextState);
         }
-        undoStack.push(empregadoRepository.createMemento());
-        EmpregadoRepository.Memento nextState = redoStack.pop();
-        empregadoRepository.setMemento(nextState);
     }
 }
\ No newline at end of file
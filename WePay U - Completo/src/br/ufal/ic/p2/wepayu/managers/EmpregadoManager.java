@@ -61,16 +61,7 @@ public class EmpregadoManager {
      * @throws Exception se nenhum empregado for encontrado com o nome e índice especificados.
      */
     public String getEmpregadoPorNome(String nome, int indice) throws Exception {
-        Map<String, Empregado> empregados = empregadoRepository.getAll();
-        List<Empregado> empregadosComNome = new ArrayList<>();
-
-        for (Empregado empregado : empregados.values()) {
-            if (empregado.getNome().equals(nome)) {
-                empregadosComNome.add(empregado);
-            }
-        }
-
-        empregadosComNome.sort(Comparator.comparing(Empregado::getId));
+        List<Empregado> empregadosComNome = empregadoRepository.getByNome(nome);
 
         if (empregadosComNome.size() >= indice) {
             return empregadosComNome.get(indice - 1).getId();
@@ -216,7 +207,7 @@ public class EmpregadoManager {
      */
     public void alteraEmpregado(String id, String atributo, String valor, AgendaManager agendaManager) throws Exception {
         if (id == null || id.isEmpty()) throw new IdentificacaoNulaException();
-        Empregado empregado = empregadoRepository.getById(id);
+        Empregado empregado = empregadoRepository.getParaAlteracao(id);
         if (empregado == null) throw new EmpregadoNaoExisteException();
 
         switch (atributo.toLowerCase()) {
@@ -255,13 +246,12 @@ public class EmpregadoManager {
                 }
                 break;
             case "tipo":
-                Empregado novoEmpregado = alterarTipo(empregado, valor, null);
-                empregadoRepository.getAll().put(id, novoEmpregado);
-                break;
+                empregadoRepository.substituir(alterarTipo(empregado, valor, null));
+                return;
             default:
                 throw new AtributoNaoExisteException();
         }
-        empregadoRepository.salvarDados();
+        empregadoRepository.atualizar(empregado);
     }
 
     /**
@@ -275,7 +265,7 @@ public class EmpregadoManager {
      */
     public void alteraEmpregado(String id, String atributo, boolean valor, String idSindicato, String taxaSindical) throws Exception {
         if (id == null || id.isEmpty()) throw new IdentificacaoNulaException();
-        Empregado empregado = empregadoRepository.getById(id);
+        Empregado empregado = empregadoRepository.getParaAlteracao(id);
         if (empregado == null) throw new EmpregadoNaoExisteException();
         if (!"sindicalizado".equalsIgnoreCase(atributo)) throw new AtributoNaoExisteException();
 
@@ -289,10 +279,8 @@ public class EmpregadoManager {
             } catch (NumberFormatException e) {
                 throw new TaxaSindicalDeveSerNumericaException();
             }
-            for (Empregado e : empregadoRepository.getAll().values()) {
-                if (e.getIdSindicato() != null && e.getIdSindicato().equals(idSindicato) && !e.getId().equals(id)) {
-                    throw new IdentificacaoSindicatoJaExisteException();
-                }
+            if (empregadoRepository.isIdSindicatoEmUso(idSindicato, id)) {
+                throw new IdentificacaoSindicatoJaExisteException();
             }
             empregado.setSindicalizado(true);
             empregado.setIdSindicato(idSindicato);
@@ -302,7 +290,7 @@ public class EmpregadoManager {
             empregado.setIdSindicato(null);
             empregado.setTaxaSindical(null);
         }
-        empregadoRepository.salvarDados();
+        empregadoRepository.atualizar(empregado);
     }
 
     /**
@@ -317,12 +305,12 @@ public class EmpregadoManager {
      */
     public void alteraEmpregado(String id, String atributo, String valor1, String banco, String agencia, String contaCorrente) throws Exception {
         if (id == null || id.isEmpty()) throw new IdentificacaoNulaException();
-        Empregado empregado = empregadoRepository.getById(id);
+        Empregado empregado = empregadoRepository.getParaAlteracao(id);
         if (empregado == null) throw new EmpregadoNaoExisteException();
         if (!"metodoPagamento".equalsIgnoreCase(atributo) || !"banco".equalsIgnoreCase(valor1)) throw new MetodoPagamentoInvalidoException();
 
         alterarMetodoPagamento(empregado, valor1, banco, agencia, contaCorrente);
-        empregadoRepository.salvarDados();
+        empregadoRepository.atualizar(empregado);
     }
 
     /**
@@ -339,10 +327,7 @@ public class EmpregadoManager {
         if (empregado == null) throw new EmpregadoNaoExisteException();
         if (!"tipo".equalsIgnoreCase(atributo)) throw new AtributoNaoExisteException();
 
-        Empregado novoEmpregado = alterarTipo(empregado, tipo, comissaoOuSalario);
-        empregadoRepository.getAll().put(id, novoEmpregado);
-
-        empregadoRepository.salvarDados();
+        empregadoRepository.substituir(alterarTipo(empregado, tipo, comissaoOuSalario));
     }
 
     /**
@@ -1,32 +1,125 @@
 package br.ufal.ic.p2.wepayu.managers;
 
+import br.ufal.ic.p2.wepayu.ExceptionPonto.DataInicialAposFinalException;
 import br.ufal.ic.p2.wepayu.models.*;
 import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
 import br.ufal.ic.p2.wepayu.utils.AppUtils;
+import br.ufal.ic.p2.wepayu.utils.CacheLRU;
+import br.ufal.ic.p2.wepayu.utils.PontoFixo;
+import br.ufal.ic.p2.wepayu.utils.RelatorioWriter;
 
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
  * Classe responsável por gerenciar as operações da folha de pagamento,
  * incluindo a simulação e a execução do cálculo e geração de relatórios.
+ * <p>
+ * O cálculo dos pagamentos é feito em uma fase separada da escrita do relatório: todos os
+ * empregados a pagar são calculados de uma vez (em paralelo, quando a folha é grande o suficiente)
+ * e os resultados são depois consumidos na ordem por nome, de modo que a saída é idêntica
+ * à do processamento sequencial.
+ * </p>
+ * <p>
+ * Por padrão, cada pagamento é calculado em aritmética inteira de ponto fixo: horas em centésimos,
+ * valores em centavos e o salário bruto dos horistas na escala exata do produto
+ * (centésimos de hora × centavos × décimos do adicional de 1,5). Os arredondamentos
+ * ({@code DOWN}/{@code FLOOR} nos salários semanais e nas comissões) são reproduzidos com divisões
+ * inteiras, e só os valores finais de cada empregado são convertidos em {@link BigDecimal}, com o
+ * mesmo valor numérico do cálculo com {@link BigDecimal}; o relatório é, portanto, idêntico. Um
+ * empregado com alguma quantia de mais casas decimais, ou com valores que não caibam em um
+ * {@code long}, é calculado com {@link BigDecimal}.
+ * </p>
  */
 public class FolhaPagamentoManager {
+    /**
+     * Quantidade mínima de empregados para que o cálculo seja distribuído entre threads.
+     * Abaixo disso, o custo de coordenação supera o ganho e o cálculo é feito na thread chamadora.
+     */
+    private static final int LIMIAR_PARALELO = 512;
+
+    private static final BigDecimal OITO = new BigDecimal("8");
+    private static final BigDecimal UM_E_MEIO = new BigDecimal("1.5");
+    private static final BigDecimal DOZE = new BigDecimal("12");
+    private static final BigDecimal CINQUENTA_E_DOIS = new BigDecimal("52");
+
+    /** Escala das horas no cálculo em ponto fixo (centésimos de hora). */
+    private static final int ESCALA_HORAS = 2;
+    /** Escala dos valores no cálculo em ponto fixo (centavos). */
+    private static final int ESCALA_VALORES = 2;
+    /** Escala do salário bruto dos horistas: horas × valor × décimos do adicional de hora extra. */
+    private static final int ESCALA_BRUTO_HORISTA = ESCALA_HORAS + ESCALA_VALORES + 1;
+    private static final long OITO_HORAS = 800;
+
+    private static final String SEPARADOR_RELATORIO = "===============================================================================================================================";
+
+    private static final int CAPACIDADE_CACHE_TOTAIS = 64;
+    private static final int CAPACIDADE_CACHE_PAGAMENTOS = 1 << 16;
+
     private final EmpregadoRepository empregadoRepository = EmpregadoRepository.getInstance();
+    private final ForkJoinPool pool;
+    private final boolean calculoEmCentavos;
+    private final CacheLRU<ChaveTotal, BigDecimal> cacheTotais = new CacheLRU<>(CAPACIDADE_CACHE_TOTAIS);
+    private final CacheLRU<ChavePagamento, PagamentoInfo> cachePagamentos = new CacheLRU<>(CAPACIDADE_CACHE_PAGAMENTOS);
+
+    /**
+     * Construtor padrão. Utiliza o {@link ForkJoinPool#commonPool()} para o cálculo paralelo da folha.
+     */
+    public FolhaPagamentoManager() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construtor que permite configurar o pool de threads usado no cálculo paralelo da folha.
+     *
+     * @param pool O {@link ForkJoinPool} onde os cálculos serão executados.
+     */
+    public FolhaPagamentoManager(ForkJoinPool pool) {
+        this(pool, true);
+    }
+
+    /**
+     * Construtor que permite configurar o pool de threads e a aritmética do cálculo.
+     *
+     * @param pool              O {@link ForkJoinPool} onde os cálculos serão executados.
+     * @param calculoEmCentavos {@code true} para calcular em ponto fixo sempre que possível,
+     *                          {@code false} para calcular sempre com {@link BigDecimal}.
+     */
+    public FolhaPagamentoManager(ForkJoinPool pool, boolean calculoEmCentavos) {
+        this.pool = pool;
+        this.calculoEmCentavos = calculoEmCentavos;
+    }
 
     /**
      * Simula o cálculo da folha de pagamento para uma data específica e retorna o valor total.
      * Esta operação não altera o estado dos empregados (ex: última data de pagamento).
+     * <p>
+     * Como os cálculos de pagamento apenas leem os empregados, a simulação trabalha diretamente
+     * sobre os objetos do repositório, sem criar cópias do estado. A versão e os empregados vêm do
+     * mesmo {@link EmpregadoRepository.Instantaneo}, então a simulação pode ser feita em outras threads
+     * enquanto o repositório é alterado, sem esperar por ele e sem guardar no cache o total de um
+     * estado sob a versão de outro.
+     * </p>
+     * <p>
+     * Os resultados ficam em caches limitados (LRU): o total, pela data e pela versão do repositório,
+     * e o pagamento simulado de cada empregado, pela data e pela versão do empregado
+     * ({@link EmpregadoRepository#getVersao()}, {@link Empregado#getVersao()}). Como toda alteração
+     * dá novas versões ao repositório e aos empregados alterados, uma consulta repetida sem alterações
+     * é respondida direto do cache e, depois de uma alteração, só os empregados alterados são
+     * recalculados; um undo volta às versões anteriores e, portanto, aos resultados já calculados.
+     * </p>
      *
      * @param data A data para a qual a folha de pagamento deve ser simulada, no formato "dd/MM/yyyy".
      * @return O valor total da folha de pagamento como um {@link BigDecimal}.
@@ -34,23 +127,21 @@ public class FolhaPagamentoManager {
      */
     public BigDecimal totalFolha(String data) throws Exception {
         LocalDate dataAtual = AppUtils.parseDate(data);
-        BigDecimal total = BigDecimal.ZERO;
-
-        EmpregadoRepository.Memento originalState = empregadoRepository.createMemento();
-        try {
-            List<Empregado> empregadosSimulacao = originalState.getSavedState().values().stream()
-                    .map(Empregado::clone)
-                    .collect(Collectors.toList());
+        EmpregadoRepository.Instantaneo instantaneo = empregadoRepository.getInstantaneo();
+        ChaveTotal chave = new ChaveTotal(dataAtual, instantaneo.getVersao());
+        BigDecimal emCache = cacheTotais.get(chave);
+        if (emCache != null) {
+            return emCache;
+        }
 
-            for (Empregado emp : empregadosSimulacao) {
-                if (deveSerPago(emp, dataAtual)) {
-                    total = total.add(calcularPagamentoCompleto(emp, dataAtual, true).salarioBruto);
-                }
-            }
-        } finally {
-            empregadoRepository.setMemento(originalState);
+        BigDecimal total = BigDecimal.ZERO;
+        List<Empregado> empregadosParaPagar = selecionarEmpregadosParaPagar(instantaneo, dataAtual);
+        for (PagamentoInfo info : calcularPagamentos(empregadosParaPagar, dataAtual, Modo.SIMULACAO)) {
+            total = total.add(info.salarioBruto);
         }
-        return total.setScale(2, RoundingMode.HALF_UP);
+        total = total.setScale(2, RoundingMode.HALF_UP);
+        cacheTotais.put(chave, total);
+        return total;
     }
 
     /**
@@ -63,107 +154,233 @@ public class FolhaPagamentoManager {
      */
     public void rodaFolha(String data, String saida) throws Exception {
         LocalDate dataAtual = AppUtils.parseDate(data);
-        List<Empregado> empregadosParaPagar = empregadoRepository.getAll().values().stream()
-                .filter(emp -> deveSerPago(emp, dataAtual))
-                .sorted(Comparator.comparing(Empregado::getNome))
-                .collect(Collectors.toList());
+        executarFolha(dataAtual, selecionarEmpregadosParaPagar(empregadoRepository.getInstantaneo(), dataAtual),
+                saida, Modo.EXECUCAO);
+    }
+
+    /**
+     * Executa a folha de pagamento para todas as datas de um período, em uma única varredura,
+     * gerando um relatório para cada data em que algum empregado é pago.
+     * <p>
+     * O resultado é o mesmo de chamar {@link #rodaFolha} para cada uma dessas datas, em ordem: o
+     * relatório de cada data é salvo em {@code prefixoSaida + "yyyy-MM-dd.txt"} e a última data de
+     * pagamento dos empregados avança data a data. Em vez de percorrer os históricos a cada data, os
+     * totais de cada período pago são obtidos dos índices por data dos lançamentos
+     * ({@link IndiceLancamentos}), construídos no máximo uma vez por empregado e consultados em O(log n).
+     * </p>
+     *
+     * @param dataInicial  A primeira data do período, no formato "dd/MM/yyyy".
+     * @param dataFinal    A última data do período, no formato "dd/MM/yyyy".
+     * @param prefixoSaida O prefixo dos caminhos dos arquivos de saída (ex: "folha-").
+     * @throws DataInicialAposFinalException se a data inicial for posterior à data final.
+     * @throws Exception se ocorrer um erro ao analisar as datas ou ao escrever algum relatório.
+     */
+    public void rodaFolhaPeriodo(String dataInicial, String dataFinal, String prefixoSaida) throws Exception {
+        LocalDate inicio = AppUtils.parseDate(dataInicial);
+        LocalDate fim = AppUtils.parseDate(dataFinal);
+        if (inicio.isAfter(fim)) {
+            throw new DataInicialAposFinalException();
+        }
+
+        for (LocalDate data = inicio; !data.isAfter(fim); data = data.plusDays(1)) {
+            List<Empregado> empregadosParaPagar = selecionarEmpregadosParaPagar(empregadoRepository.getInstantaneo(), data);
+            if (!empregadosParaPagar.isEmpty()) {
+                executarFolha(data, empregadosParaPagar, prefixoSaida + data + ".txt", Modo.EXECUCAO_EM_LOTE);
+            }
+        }
+    }
+
+    /**
+     * Calcula os pagamentos de uma data, escreve o relatório e registra os pagamentos.
+     *
+     * @param dataAtual           A data do pagamento.
+     * @param empregadosParaPagar Os empregados a serem pagos na data.
+     * @param saida               O caminho do arquivo do relatório.
+     * @param modo                O modo de cálculo.
+     * @throws Exception se algum cálculo falhar ou se o relatório não puder ser escrito.
+     */
+    private void executarFolha(LocalDate dataAtual, List<Empregado> empregadosParaPagar, String saida, Modo modo) throws Exception {
+        empregadosParaPagar.sort(Comparator.comparing(Empregado::getNome));
+        List<PagamentoInfo> pagamentos = calcularPagamentos(empregadosParaPagar, dataAtual, modo);
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(saida))) {
-            writer.println("FOLHA DE PAGAMENTO DO DIA " + dataAtual);
-            writer.println("====================================");
-            writer.println();
+        try (RelatorioWriter writer = new RelatorioWriter(saida)) {
+            writer.linha("FOLHA DE PAGAMENTO DO DIA " + dataAtual);
+            writer.linha("====================================");
+            writer.linha("");
 
+            Map<LayoutSecao, SecaoRelatorio> secoes = separarPorTipo(empregadosParaPagar, pagamentos);
             BigDecimal totalGeral = BigDecimal.ZERO;
-            totalGeral = totalGeral.add(gerarRelatorio(writer, empregadosParaPagar, "horista", dataAtual));
-            totalGeral = totalGeral.add(gerarRelatorio(writer, empregadosParaPagar, "assalariado", dataAtual));
-            totalGeral = totalGeral.add(gerarRelatorio(writer, empregadosParaPagar, "comissionado", dataAtual));
+            for (LayoutSecao layout : LayoutSecao.values()) {
+                SecaoRelatorio secao = secoes.getOrDefault(layout, new SecaoRelatorio());
+                totalGeral = totalGeral.add(gerarRelatorio(writer, secao, layout));
+            }
 
-            writer.printf(Locale.FRANCE, "TOTAL FOLHA: %.2f\n", totalGeral);
+            writer.texto("TOTAL FOLHA: ").decimal(totalGeral, 0, 2).novaLinha();
         }
 
-        for (Empregado emp : empregadosParaPagar) {
-            emp.setUltimaDataPagamento(dataAtual);
+        empregadoRepository.registrarPagamento(dataAtual, empregadosParaPagar);
+    }
+
+    /**
+     * Calcula as informações de pagamento de todos os empregados fornecidos.
+     * Quando a lista é grande, os cálculos são distribuídos no pool configurado; o resultado
+     * mantém sempre a mesma ordem da lista de entrada.
+     *
+     * @param empregados  Os empregados a serem calculados, já na ordem desejada.
+     * @param data        A data do pagamento.
+     * @param modo        O modo de cálculo.
+     * @return A lista de {@link PagamentoInfo}, na mesma posição do empregado correspondente.
+     * @throws Exception se algum cálculo falhar.
+     */
+    private List<PagamentoInfo> calcularPagamentos(List<Empregado> empregados, LocalDate data, Modo modo) throws Exception {
+        if (!usarParalelismo(empregados.size())) {
+            return empregados.stream()
+                    .map(emp -> calcularPagamento(emp, data, modo))
+                    .collect(Collectors.toList());
         }
+        return executarNoPool(() -> empregados.parallelStream()
+                .map(emp -> calcularPagamento(emp, data, modo))
+                .collect(Collectors.toList()));
     }
 
     /**
-     * Gera uma seção do relatório da folha de pagamento para um tipo específico de empregado.
+     * Calcula o pagamento de um empregado. Os pagamentos simulados são guardados no cache, pela
+     * data e pela versão do empregado; os das execuções, que em seguida alteram o empregado, não.
      *
-     * @param writer      O {@link PrintWriter} para escrever o relatório.
-     * @param empregados  A lista de todos os empregados a serem pagos.
-     * @param tipo        O tipo de empregado a ser processado ("horista", "assalariado", "comissionado").
-     * @param dataAtual   A data atual do pagamento.
-     * @return O total bruto pago para o tipo de empregado especificado.
-     */
-    private BigDecimal gerarRelatorio(PrintWriter writer, List<Empregado> empregados, String tipo, LocalDate dataAtual) {
-        BigDecimal totalBruto = BigDecimal.ZERO, totalDescontos = BigDecimal.ZERO, totalLiquido = BigDecimal.ZERO;
-        BigDecimal totalHorasNormais = BigDecimal.ZERO, totalHorasExtras = BigDecimal.ZERO;
-        BigDecimal totalFixo = BigDecimal.ZERO, totalVendas = BigDecimal.ZERO, totalComissao = BigDecimal.ZERO;
-
-        List<Empregado> filtrados = empregados.stream().filter(e -> e.getTipo().equals(tipo)).collect(Collectors.toList());
-
-        if (tipo.equals("horista")) {
-            writer.println("===============================================================================================================================");
-            writer.println("===================== HORISTAS ================================================================================================");
-            writer.println("===============================================================================================================================");
-            writer.printf("%-36s %5s %5s %13s %9s %15s %s\n", "Nome", "Horas", "Extra", "Salario Bruto", "Descontos", "Salario Liquido", "Metodo");
-            writer.println("==================================== ===== ===== ============= ========= =============== ======================================");
-        } else if (tipo.equals("assalariado")) {
-            writer.println("===============================================================================================================================");
-            writer.println("===================== ASSALARIADOS ============================================================================================");
-            writer.println("===============================================================================================================================");
-            writer.printf("%-48s %13s %9s %15s %s\n", "Nome", "Salario Bruto", "Descontos", "Salario Liquido", "Metodo");
-            writer.println("================================================ ============= ========= =============== ======================================");
-        } else {
-            writer.println("===============================================================================================================================");
-            writer.println("===================== COMISSIONADOS ===========================================================================================");
-            writer.println("===============================================================================================================================");
-            writer.printf("%-17s %8s %10s %10s %13s %9s %15s %s\n", "Nome", "Fixo", "Vendas", "Comissao", "Salario Bruto", "Descontos", "Salario Liquido", "Metodo");
-            writer.println("===================== ======== ======== ======== ============= ========= =============== ======================================");
-        }
-
-        for (Empregado emp : filtrados) {
-            PagamentoInfo info = calcularPagamentoCompleto(emp, dataAtual, false);
-            writer.print(formatarLinhaRelatorio(emp, info));
-
-            totalBruto = totalBruto.add(info.salarioBruto);
-            totalDescontos = totalDescontos.add(info.descontos);
-            totalLiquido = totalLiquido.add(info.salarioLiquido);
-
-            if (emp instanceof EmpregadoHorista) {
-                totalHorasNormais = totalHorasNormais.add(info.horasNormais);
-                totalHorasExtras = totalHorasExtras.add(info.horasExtras);
-            } else if (emp instanceof EmpregadoComissionado) {
-                totalFixo = totalFixo.add(info.salarioFixo);
-                totalVendas = totalVendas.add(info.vendas);
-                totalComissao = totalComissao.add(info.comissao);
-            }
+     * @param emp  O empregado.
+     * @param data A data do pagamento.
+     * @param modo O modo de cálculo.
+     * @return O {@link PagamentoInfo} do empregado, que não deve ser alterado.
+     */
+    private PagamentoInfo calcularPagamento(Empregado emp, LocalDate data, Modo modo) {
+        if (modo != Modo.SIMULACAO) {
+            return calcularPagamentoCompleto(emp, data, modo);
         }
-        writer.println();
+        return cachePagamentos.obter(new ChavePagamento(data, emp.getVersao()),
+                chave -> calcularPagamentoCompleto(emp, data, modo));
+    }
 
-        if (tipo.equals("horista")) {
-            writer.printf(Locale.FRANCE, "TOTAL HORISTAS %27.0f %5.0f %13.2f %9.2f %15.2f\n", totalHorasNormais, totalHorasExtras, totalBruto, totalDescontos, totalLiquido);
-        } else if (tipo.equals("assalariado")) {
-            writer.printf(Locale.FRANCE, "TOTAL ASSALARIADOS %43.2f %9.2f %15.2f\n", totalBruto, totalDescontos, totalLiquido);
-        } else {
-            writer.printf(Locale.FRANCE, "TOTAL COMISSIONADOS %10.2f %8.2f %8.2f %13.2f %9.2f %15.2f\n", totalFixo, totalVendas, totalComissao, totalBruto, totalDescontos, totalLiquido);
+    /**
+     * Seleciona os empregados que devem ser pagos na data.
+     * Pelo calendário do repositório, só são visitados os empregados das agendas que pagam na data;
+     * destes, são descartados os ainda não contratados. A ordem relativa do repositório é
+     * preservada, inclusive quando a seleção é feita em paralelo.
+     *
+     * @param instantaneo O estado do repositório de onde selecionar.
+     * @param data        A data do pagamento.
+     * @return Uma lista mutável com os empregados a serem pagos.
+     * @throws Exception se a seleção falhar.
+     */
+    private List<Empregado> selecionarEmpregadosParaPagar(EmpregadoRepository.Instantaneo instantaneo, LocalDate data)
+            throws Exception {
+        List<Empregado> candidatos = instantaneo.getByAgendas(
+                agenda -> AgendaManager.getAgenda(agenda).devePagar(data));
+        if (!usarParalelismo(candidatos.size())) {
+            return candidatos.stream()
+                    .filter(emp -> deveSerPago(emp, data))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        return executarNoPool(() -> candidatos.parallelStream()
+                .filter(emp -> deveSerPago(emp, data))
+                .collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    /**
+     * Indica se vale a pena distribuir o cálculo de uma quantidade de empregados entre threads.
+     *
+     * @param quantidade A quantidade de empregados a processar.
+     * @return {@code true} se o cálculo deve ser feito no pool, {@code false} se deve ser sequencial.
+     */
+    private boolean usarParalelismo(int quantidade) {
+        return quantidade >= LIMIAR_PARALELO && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Executa uma tarefa dentro do pool configurado, de modo que os streams paralelos criados
+     * nela usem as threads desse pool, e aguarda o seu resultado.
+     *
+     * @param tarefa A tarefa a ser executada.
+     * @param <T>    O tipo do resultado.
+     * @return O resultado da tarefa.
+     * @throws Exception se a tarefa falhar.
+     */
+    private <T> T executarNoPool(Callable<T> tarefa) throws Exception {
+        try {
+            return pool.submit(tarefa).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) throw causa;
+            throw e;
+        }
+    }
+
+    /**
+     * Separa os empregados pagos, e os seus pagamentos, por tipo, em uma única passada.
+     * Cada seção mantém a ordem relativa da lista de entrada (por nome).
+     *
+     * @param empregados Os empregados a serem pagos, ordenados por nome.
+     * @param pagamentos Os pagamentos já calculados, na mesma ordem de {@code empregados}.
+     * @return As seções do relatório, indexadas pelo seu layout.
+     * @throws IllegalStateException se algum empregado for de um tipo sem seção no relatório.
+     */
+    private Map<LayoutSecao, SecaoRelatorio> separarPorTipo(List<Empregado> empregados, List<PagamentoInfo> pagamentos) {
+        Map<LayoutSecao, SecaoRelatorio> secoes = new EnumMap<>(LayoutSecao.class);
+        for (int i = 0; i < empregados.size(); i++) {
+            Empregado emp = empregados.get(i);
+            SecaoRelatorio secao = secoes.computeIfAbsent(LayoutSecao.doTipo(emp.getTipo()), layout -> new SecaoRelatorio());
+            secao.empregados.add(emp);
+            secao.pagamentos.add(pagamentos.get(i));
         }
-        writer.println();
-        return totalBruto;
+        return secoes;
     }
 
     /**
-     * Retorna uma representação em string do método de pagamento de um empregado.
+     * Gera uma seção do relatório da folha de pagamento, no layout do seu tipo de empregado.
      *
-     * @param emp O empregado.
-     * @return Uma string descrevendo o método de pagamento.
+     * @param writer O {@link RelatorioWriter} para escrever o relatório.
+     * @param secao  Os empregados do tipo a serem pagos, ordenados por nome, e os seus pagamentos.
+     * @param layout O layout da seção.
+     * @return O total bruto pago para o tipo de empregado da seção.
+     * @throws IOException se a gravação do relatório falhar.
      */
-    private String getMetodoPagamentoString(Empregado emp) {
+    private BigDecimal gerarRelatorio(RelatorioWriter writer, SecaoRelatorio secao, LayoutSecao layout) throws IOException {
+        writer.linha(SEPARADOR_RELATORIO);
+        writer.linha(layout.titulo);
+        writer.linha(SEPARADOR_RELATORIO);
+        writer.texto(layout.cabecalho);
+        writer.linha(layout.sublinhado);
+
+        PagamentoInfo total = new PagamentoInfo();
+        for (int i = 0; i < secao.empregados.size(); i++) {
+            Empregado emp = secao.empregados.get(i);
+            PagamentoInfo info = secao.pagamentos.get(i);
+            escreverLinhaRelatorio(writer, layout, emp, info);
+            total.somar(info);
+        }
+        writer.linha("");
+
+        layout.escreverTotais(writer, total);
+        writer.caractere(' ').decimal(total.descontos, 9, 2).caractere(' ').decimal(total.salarioLiquido, 15, 2).novaLinha();
+        writer.linha("");
+        return total.salarioBruto;
+    }
+
+    /**
+     * Escreve a descrição do método de pagamento de um empregado.
+     *
+     * @param writer O escritor do relatório.
+     * @param emp    O empregado.
+     * @throws IOException se a gravação do relatório falhar.
+     */
+    private void escreverMetodoPagamento(RelatorioWriter writer, Empregado emp) throws IOException {
         MetodoPagamento metodo = emp.getMetodoPagamento();
-        if (metodo instanceof EmMaos) return "Em maos";
-        if (metodo instanceof Correios) return "Correios, " + emp.getEndereco();
-        if (metodo instanceof Banco banco) return banco.getBanco() + ", Ag. " + banco.getAgencia() + " CC " + banco.getContaCorrente();
-        return "";
+        if (metodo instanceof EmMaos) {
+            writer.texto("Em maos");
+        } else if (metodo instanceof Correios) {
+            writer.texto("Correios, ").texto(String.valueOf(emp.getEndereco()));
+        } else if (metodo instanceof Banco banco) {
+            writer.texto(String.valueOf(banco.getBanco())).texto(", Ag. ").texto(String.valueOf(banco.getAgencia()))
+                    .texto(" CC ").texto(String.valueOf(banco.getContaCorrente()));
+        }
     }
 
     /**
@@ -175,55 +392,18 @@ public class FolhaPagamentoManager {
      */
     private boolean deveSerPago(Empregado emp, LocalDate data) {
         LocalDate dataContratacao = emp.getDataContratacao();
-        if (emp instanceof EmpregadoHorista && dataContratacao == null && !emp.getCartoesPonto().isEmpty()){
-            dataContratacao = emp.getCartoesPonto().stream().min(Comparator.comparing(CartaoDePonto::getData)).get().getData();
+        if (emp instanceof EmpregadoHorista && dataContratacao == null) {
+            int primeiroCartao = emp.getPrimeiroDiaCartao();
+            if (primeiroCartao != Lancamento.SEM_DATA) {
+                dataContratacao = LocalDate.ofEpochDay(primeiroCartao);
+            }
         }
 
         if (dataContratacao != null && data.isBefore(dataContratacao)) {
             return false;
         }
 
-        String agenda = emp.getAgendaPagamento();
-        String[] parts = agenda.split(" ");
-        String tipoAgenda = parts[0];
-
-        if (tipoAgenda.equals("mensal")) {
-            String dia = parts[1];
-            if (dia.equals("$")) {
-                LocalDate ultimoDiaUtil = data.with(TemporalAdjusters.lastDayOfMonth());
-                while (ultimoDiaUtil.getDayOfWeek() == DayOfWeek.SATURDAY || ultimoDiaUtil.getDayOfWeek() == DayOfWeek.SUNDAY) {
-                    ultimoDiaUtil = ultimoDiaUtil.minusDays(1);
-                }
-                return data.equals(ultimoDiaUtil);
-            } else {
-                int diaMes = Integer.parseInt(dia);
-                if (data.getDayOfMonth() == diaMes) {
-                    return true;
-                }
-                LocalDate ultimoDiaDoMes = data.with(TemporalAdjusters.lastDayOfMonth());
-                return diaMes > ultimoDiaDoMes.getDayOfMonth() && data.equals(ultimoDiaDoMes);
-            }
-        } else if (tipoAgenda.equals("semanal")) {
-            int frequencia, diaDaSemana;
-
-            if (parts.length == 3) {
-                frequencia = Integer.parseInt(parts[1]);
-                diaDaSemana = Integer.parseInt(parts[2]);
-            } else {
-                frequencia = 1;
-                diaDaSemana = Integer.parseInt(parts[1]);
-            }
-
-            if (data.getDayOfWeek().getValue() != diaDaSemana) {
-                return false;
-            }
-
-            LocalDate anchorDate = LocalDate.of(2004, 12, 27);
-            long weeksSinceAnchor = ChronoUnit.WEEKS.between(anchorDate, data);
-
-            return weeksSinceAnchor >= 0 && weeksSinceAnchor % frequencia == 0;
-        }
-        return false;
+        return AgendaManager.getAgenda(emp.getAgendaPagamento()).devePagar(data);
     }
 
     /**
@@ -232,14 +412,24 @@ public class FolhaPagamentoManager {
      *
      * @param emp         O empregado para o qual o pagamento será calculado.
      * @param data        A data do pagamento.
-     * @param isSimulacao {@code true} se for uma simulação, {@code false} caso contrário.
+     * @param modo        O modo de cálculo.
      * @return Um objeto {@link PagamentoInfo} com todos os detalhes do pagamento.
      */
-    private PagamentoInfo calcularPagamentoCompleto(Empregado emp, LocalDate data, boolean isSimulacao) {
+    private PagamentoInfo calcularPagamentoCompleto(Empregado emp, LocalDate data, Modo modo) {
+        if (calculoEmCentavos) {
+            try {
+                PagamentoInfo info = calcularPagamentoEmCentavos(emp, data, modo);
+                if (info != null) {
+                    return info;
+                }
+            } catch (ArithmeticException e) {
+                // Quantia com casas decimais demais ou fora do limite de um long: calcula com BigDecimal
+            }
+        }
         return switch (emp.getTipo()) {
-            case "horista" -> calcularPagamentoHoristaCompleto((EmpregadoHorista) emp, data, isSimulacao);
-            case "assalariado" -> calcularPagamentoAssalariadoCompleto((EmpregadoAssalariado) emp, data, isSimulacao);
-            case "comissionado" -> calcularPagamentoComissionadoCompleto((EmpregadoComissionado) emp, data, isSimulacao);
+            case "horista" -> calcularPagamentoHoristaCompleto((EmpregadoHorista) emp, data, modo);
+            case "assalariado" -> calcularPagamentoAssalariadoCompleto((EmpregadoAssalariado) emp, data, modo);
+            case "comissionado" -> calcularPagamentoComissionadoCompleto((EmpregadoComissionado) emp, data, modo);
             default -> new PagamentoInfo();
         };
     }
@@ -249,31 +439,22 @@ public class FolhaPagamentoManager {
      *
      * @param emp           O empregado.
      * @param dataPagamento A data do pagamento.
-     * @param isSimulacao   Indica se o cálculo é uma simulação.
+     * @param modo          O modo de cálculo.
      * @return A data de início do período de pagamento.
      */
-    private LocalDate obterInicioPeriodo(Empregado emp, LocalDate dataPagamento, boolean isSimulacao) {
-        if (!isSimulacao && emp.getUltimaDataPagamento() != null) {
+    private LocalDate obterInicioPeriodo(Empregado emp, LocalDate dataPagamento, Modo modo) {
+        if (modo != Modo.SIMULACAO && emp.getUltimaDataPagamento() != null) {
             return emp.getUltimaDataPagamento().plusDays(1);
         }
 
-        if (isSimulacao && emp instanceof EmpregadoHorista && !emp.getCartoesPonto().isEmpty()) {
-            LocalDate primeiroCartao = emp.getCartoesPonto().stream()
-                    .min(Comparator.comparing(CartaoDePonto::getData))
-                    .get().getData();
+        if (modo == Modo.SIMULACAO && emp instanceof EmpregadoHorista && emp.getPrimeiroDiaCartao() != Lancamento.SEM_DATA) {
+            LocalDate primeiroCartao = LocalDate.ofEpochDay(emp.getPrimeiroDiaCartao());
             if (primeiroCartao.isAfter(dataPagamento.minusDays(7))) {
                 return primeiroCartao;
             }
         }
 
-        String agenda = emp.getAgendaPagamento();
-        String[] parts = agenda.split(" ");
-        if (parts[0].equals("semanal")) {
-            int frequencia = (parts.length == 3) ? Integer.parseInt(parts[1]) : 1;
-            return dataPagamento.minusWeeks(frequencia).plusDays(1);
-        } else {
-            return dataPagamento.withDayOfMonth(1);
-        }
+        return AgendaManager.getAgenda(emp.getAgendaPagamento()).inicioPeriodo(dataPagamento);
     }
 
     /**
@@ -281,32 +462,48 @@ public class FolhaPagamentoManager {
      *
      * @param horista     O empregado horista.
      * @param data        A data do pagamento.
-     * @param isSimulacao Indica se é uma simulação.
+     * @param modo        O modo de cálculo.
      * @return Um objeto {@link PagamentoInfo} preenchido.
      */
-    private PagamentoInfo calcularPagamentoHoristaCompleto(EmpregadoHorista horista, LocalDate data, boolean isSimulacao) {
+    private PagamentoInfo calcularPagamentoHoristaCompleto(EmpregadoHorista horista, LocalDate data, Modo modo) {
         PagamentoInfo info = new PagamentoInfo();
-        LocalDate inicioPeriodo = obterInicioPeriodo(horista, data, isSimulacao);
-
-        for (CartaoDePonto cartao : horista.getCartoesPonto()) {
-            LocalDate dataCartao = cartao.getData();
-            if (inicioPeriodo != null && !dataCartao.isBefore(inicioPeriodo) && !dataCartao.isAfter(data)) {
-                BigDecimal horas = cartao.getHoras();
-                if (horas.compareTo(new BigDecimal("8")) > 0) {
-                    info.horasNormais = info.horasNormais.add(new BigDecimal("8"));
-                    info.horasExtras = info.horasExtras.add(horas.subtract(new BigDecimal("8")));
-                } else {
-                    info.horasNormais = info.horasNormais.add(horas);
+        LocalDate inicioPeriodo = obterInicioPeriodo(horista, data, modo);
+
+        PeriodoAberto periodo = usarPeriodoAberto(horista, data, modo);
+        if (periodo != null) {
+            info.horasNormais = periodo.getHorasNormais();
+            info.horasExtras = periodo.getHorasExtras();
+        } else if (modo == Modo.EXECUCAO_EM_LOTE) {
+            if (inicioPeriodo != null) {
+                long inicio = inicioPeriodo.toEpochDay();
+                IndiceLancamentos cartoes = horista.getIndiceCartoes(inicio);
+                long fimExclusivo = data.toEpochDay() + 1;
+                info.horasNormais = cartoes.horasNormaisPorCartao(inicio, fimExclusivo);
+                info.horasExtras = cartoes.horasExtrasPorCartao(inicio, fimExclusivo);
+            }
+        } else {
+            long inicio = inicioPeriodo == null ? 0 : inicioPeriodo.toEpochDay();
+            long fim = data.toEpochDay();
+            for (CartaoDePonto cartao : horista.getCartoesPontoDesde(inicio)) {
+                int diaCartao = cartao.getDataEpochDay();
+                if (inicioPeriodo != null && diaCartao >= inicio && diaCartao <= fim) {
+                    BigDecimal horas = cartao.getHoras();
+                    if (horas.compareTo(OITO) > 0) {
+                        info.horasNormais = info.horasNormais.add(OITO);
+                        info.horasExtras = info.horasExtras.add(horas.subtract(OITO));
+                    } else {
+                        info.horasNormais = info.horasNormais.add(horas);
+                    }
                 }
             }
         }
 
         BigDecimal salarioHora = horista.getSalario();
         info.salarioBruto = info.horasNormais.multiply(salarioHora)
-                .add(info.horasExtras.multiply(salarioHora.multiply(new BigDecimal("1.5"))));
+                .add(info.horasExtras.multiply(salarioHora.multiply(UM_E_MEIO)));
 
         if (info.salarioBruto.compareTo(BigDecimal.ZERO) > 0) {
-            info.descontos = calcularDescontosSindicais(horista, inicioPeriodo, data);
+            info.descontos = calcularDescontosSindicais(horista, inicioPeriodo, data, modo);
         } else {
             info.descontos = BigDecimal.ZERO;
         }
@@ -322,26 +519,24 @@ public class FolhaPagamentoManager {
      *
      * @param assalariado O empregado assalariado.
      * @param data        A data do pagamento.
-     * @param isSimulacao Indica se é uma simulação.
+     * @param modo        O modo de cálculo.
      * @return Um objeto {@link PagamentoInfo} preenchido.
      */
-    private PagamentoInfo calcularPagamentoAssalariadoCompleto(EmpregadoAssalariado assalariado, LocalDate data, boolean isSimulacao) {
+    private PagamentoInfo calcularPagamentoAssalariadoCompleto(EmpregadoAssalariado assalariado, LocalDate data, Modo modo) {
         PagamentoInfo info = new PagamentoInfo();
-        String agenda = assalariado.getAgendaPagamento();
+        AgendaPagamento agenda = AgendaManager.getAgenda(assalariado.getAgendaPagamento());
         BigDecimal salarioMensal = assalariado.getSalario();
 
-        if (agenda.startsWith("semanal")) {
-            String[] parts = agenda.split(" ");
-            int frequencia = (parts.length == 3) ? Integer.parseInt(parts[1]) : 1;
-            info.salarioBruto = salarioMensal.multiply(new BigDecimal("12"))
-                    .multiply(new BigDecimal(frequencia))
-                    .divide(new BigDecimal("52"), 2, RoundingMode.DOWN);
+        if (agenda.isSemanal()) {
+            info.salarioBruto = salarioMensal.multiply(DOZE)
+                    .multiply(new BigDecimal(agenda.getFrequencia()))
+                    .divide(CINQUENTA_E_DOIS, 2, RoundingMode.DOWN);
         } else {
             info.salarioBruto = salarioMensal;
         }
 
-        LocalDate inicioPeriodo = obterInicioPeriodo(assalariado, data, isSimulacao);
-        info.descontos = calcularDescontosSindicais(assalariado, inicioPeriodo, data);
+        LocalDate inicioPeriodo = obterInicioPeriodo(assalariado, data, modo);
+        info.descontos = calcularDescontosSindicais(assalariado, inicioPeriodo, data, modo);
         info.salarioLiquido = info.salarioBruto.subtract(info.descontos);
         if (info.salarioLiquido.compareTo(BigDecimal.ZERO) < 0) info.salarioLiquido = BigDecimal.ZERO;
         return info;
@@ -352,35 +547,44 @@ public class FolhaPagamentoManager {
      *
      * @param comissionado O empregado comissionado.
      * @param data         A data do pagamento.
-     * @param isSimulacao  Indica se é uma simulação.
+     * @param modo         O modo de cálculo.
      * @return Um objeto {@link PagamentoInfo} preenchido.
      */
-    private PagamentoInfo calcularPagamentoComissionadoCompleto(EmpregadoComissionado comissionado, LocalDate data, boolean isSimulacao) {
+    private PagamentoInfo calcularPagamentoComissionadoCompleto(EmpregadoComissionado comissionado, LocalDate data, Modo modo) {
         PagamentoInfo info = new PagamentoInfo();
-        LocalDate inicioPeriodo = obterInicioPeriodo(comissionado, data, isSimulacao);
-        String agenda = comissionado.getAgendaPagamento();
+        LocalDate inicioPeriodo = obterInicioPeriodo(comissionado, data, modo);
+        AgendaPagamento agenda = AgendaManager.getAgenda(comissionado.getAgendaPagamento());
         BigDecimal salarioMensal = comissionado.getSalario();
 
-        if (agenda.startsWith("semanal")) {
-            String[] parts = agenda.split(" ");
-            int frequencia = (parts.length == 3) ? Integer.parseInt(parts[1]) : 1;
-            info.salarioFixo = salarioMensal.multiply(new BigDecimal("12"))
-                    .multiply(new BigDecimal(frequencia))
-                    .divide(new BigDecimal("52"), 2, RoundingMode.FLOOR);
+        if (agenda.isSemanal()) {
+            info.salarioFixo = salarioMensal.multiply(DOZE)
+                    .multiply(new BigDecimal(agenda.getFrequencia()))
+                    .divide(CINQUENTA_E_DOIS, 2, RoundingMode.FLOOR);
         } else {
             info.salarioFixo = salarioMensal;
         }
 
-        for (ResultadoVenda venda : comissionado.getResultadosVendas()) {
-            LocalDate dataVenda = venda.getData();
-            if (inicioPeriodo != null && !dataVenda.isBefore(inicioPeriodo) && !dataVenda.isAfter(data)) {
-                info.vendas = info.vendas.add(venda.getValor());
+        PeriodoAberto periodo = usarPeriodoAberto(comissionado, data, modo);
+        if (periodo != null) {
+            info.vendas = periodo.getVendas();
+        } else if (modo == Modo.EXECUCAO_EM_LOTE) {
+            if (inicioPeriodo != null) {
+                info.vendas = comissionado.getIndiceVendas(inicioPeriodo.toEpochDay()).soma(inicioPeriodo.toEpochDay(), data.toEpochDay() + 1);
+            }
+        } else {
+            long inicio = inicioPeriodo == null ? 0 : inicioPeriodo.toEpochDay();
+            long fim = data.toEpochDay();
+            for (ResultadoVenda venda : comissionado.getResultadosVendasDesde(inicio)) {
+                int diaVenda = venda.getDataEpochDay();
+                if (inicioPeriodo != null && diaVenda >= inicio && diaVenda <= fim) {
+                    info.vendas = info.vendas.add(venda.getValor());
+                }
             }
         }
 
         info.comissao = info.vendas.multiply(comissionado.getComissao()).setScale(2, RoundingMode.FLOOR);
         info.salarioBruto = info.salarioFixo.add(info.comissao);
-        info.descontos = calcularDescontosSindicais(comissionado, inicioPeriodo, data);
+        info.descontos = calcularDescontosSindicais(comissionado, inicioPeriodo, data, modo);
         info.salarioLiquido = info.salarioBruto.subtract(info.descontos);
         if (info.salarioLiquido.compareTo(BigDecimal.ZERO) < 0) info.salarioLiquido = BigDecimal.ZERO;
 
@@ -393,21 +597,75 @@ public class FolhaPagamentoManager {
      * @param emp   O empregado.
      * @param inicio A data de início do período.
      * @param fim    A data de fim do período.
+     * @param modo   O modo de cálculo.
      * @return O valor total dos descontos sindicais.
      */
-    private BigDecimal calcularDescontosSindicais(Empregado emp, LocalDate inicio, LocalDate fim) {
+    private BigDecimal calcularDescontosSindicais(Empregado emp, LocalDate inicio, LocalDate fim, Modo modo) {
         BigDecimal descontos = BigDecimal.ZERO;
 
         if (!emp.isSindicalizado() || inicio == null) {
             return BigDecimal.ZERO;
         }
 
-        LocalDate inicioEfetivo = inicio;
-        
+        LocalDate inicioEfetivo = obterInicioDescontos(emp, inicio);
+        long dias = contarDiasSindicais(emp, inicioEfetivo, fim);
+
+        if (emp.getTaxaSindical() != null) {
+            if (emp instanceof EmpregadoAssalariado) {
+                descontos = descontos.add(emp.getTaxaSindical().multiply(new BigDecimal(fim.lengthOfMonth())));
+            } else {
+                descontos = descontos.add(emp.getTaxaSindical().multiply(new BigDecimal(dias)));
+            }
+        }
+
+        if (modo == Modo.EXECUCAO_EM_LOTE) {
+            return descontos.add(emp.getIndiceTaxas(inicioEfetivo.toEpochDay()).soma(inicioEfetivo.toEpochDay(), fim.toEpochDay() + 1));
+        }
+
+        // Com a última data de pagamento definida, o período das taxas é o mesmo dos acumuladores
+        PeriodoAberto periodo = emp.getUltimaDataPagamento() != null ? emp.getPeriodoAberto() : null;
+        if (periodo != null && periodo.cobre(fim)) {
+            return descontos.add(periodo.getTaxas());
+        }
+
+        long primeiroDia = inicioEfetivo.toEpochDay();
+        long ultimoDia = fim.toEpochDay();
+        for (TaxaDeServico taxa : emp.getTaxasDeServicoDesde(primeiroDia)) {
+            int diaTaxa = taxa.getDataEpochDay();
+            if (diaTaxa >= primeiroDia && diaTaxa <= ultimoDia) {
+                descontos = descontos.add(taxa.getValor());
+            }
+        }
+
+        return descontos;
+    }
+
+    /**
+     * Retorna o primeiro dia do período dos descontos sindicais: o dia seguinte à última data de
+     * pagamento, se houver, ou o início do período pago.
+     *
+     * @param emp    O empregado.
+     * @param inicio A data de início do período pago.
+     * @return A data de início dos descontos.
+     */
+    private LocalDate obterInicioDescontos(Empregado emp, LocalDate inicio) {
         if (emp.getUltimaDataPagamento() != null) {
-            inicioEfetivo = emp.getUltimaDataPagamento().plusDays(1);
+            return emp.getUltimaDataPagamento().plusDays(1);
         }
+        return inicio;
+    }
 
+    /**
+     * Conta os dias de taxa sindical cobrados de um empregado no período dos descontos.
+     * Horistas nunca pagos pagam no máximo 7 dias; horistas já pagos, no mínimo 28 quando o
+     * período tem menos de 14 dias.
+     *
+     * @param emp           O empregado.
+     * @param inicioEfetivo O primeiro dia do período dos descontos.
+     * @param fim           A data de fim do período.
+     * @return O número de dias cobrados.
+     */
+    private long contarDiasSindicais(Empregado emp, LocalDate inicioEfetivo, LocalDate fim) {
         long dias = ChronoUnit.DAYS.between(inicioEfetivo, fim) + 1;
 
         if (emp instanceof EmpregadoHorista) {
@@ -419,51 +677,385 @@ public class FolhaPagamentoManager {
                 }
             }
         }
+        return dias;
+    }
 
-        if (emp.getTaxaSindical() != null) {
-            if (emp instanceof EmpregadoAssalariado) {
-                descontos = descontos.add(emp.getTaxaSindical().multiply(new BigDecimal(fim.lengthOfMonth())));
-            } else {
-                descontos = descontos.add(emp.getTaxaSindical().multiply(new BigDecimal(dias)));
-            }
+    /**
+     * Retorna os acumuladores do período em aberto do empregado, se eles corresponderem exatamente
+     * ao período pago: fora de simulação o período começa no dia seguinte à última data de pagamento
+     * (ver {@link #obterInicioPeriodo}) e, se nenhum lançamento acumulado for posterior à data do
+     * pagamento, os totais coincidem com os obtidos percorrendo o histórico.
+     *
+     * @param emp         O empregado.
+     * @param data        A data do pagamento.
+     * @param modo        O modo de cálculo.
+     * @return Os acumuladores, ou {@code null} se o histórico tiver de ser percorrido.
+     */
+    private PeriodoAberto usarPeriodoAberto(Empregado emp, LocalDate data, Modo modo) {
+        if (modo != Modo.EXECUCAO || emp.getUltimaDataPagamento() == null) {
+            return null;
         }
+        PeriodoAberto periodo = emp.getPeriodoAberto();
+        return periodo.cobre(data) ? periodo : null;
+    }
 
-        for (TaxaDeServico taxa : emp.getTaxasDeServico()) {
-            if (!taxa.getData().isBefore(inicioEfetivo) && !taxa.getData().isAfter(fim)) {
-                descontos = descontos.add(taxa.getValor());
+    /**
+     * Calcula o pagamento de um empregado em aritmética inteira de ponto fixo, com o mesmo
+     * resultado numérico dos cálculos com {@link BigDecimal}.
+     *
+     * @param emp         O empregado.
+     * @param data        A data do pagamento.
+     * @param modo        O modo de cálculo.
+     * @return O {@link PagamentoInfo} calculado, ou {@code null} para um tipo desconhecido.
+     * @throws ArithmeticException se alguma quantia não for representável em ponto fixo.
+     */
+    private PagamentoInfo calcularPagamentoEmCentavos(Empregado emp, LocalDate data, Modo modo) {
+        return switch (emp.getTipo()) {
+            case "horista" -> calcularHoristaEmCentavos((EmpregadoHorista) emp, data, modo);
+            case "assalariado" -> calcularAssalariadoEmCentavos((EmpregadoAssalariado) emp, data, modo);
+            case "comissionado" -> calcularComissionadoEmCentavos((EmpregadoComissionado) emp, data, modo);
+            default -> null;
+        };
+    }
+
+    /**
+     * Versão em ponto fixo de {@link #calcularPagamentoHoristaCompleto}.
+     */
+    private PagamentoInfo calcularHoristaEmCentavos(EmpregadoHorista horista, LocalDate data, Modo modo) {
+        LocalDate inicioPeriodo = obterInicioPeriodo(horista, data, modo);
+
+        long horasNormais = 0, horasExtras = 0;
+        PeriodoAberto periodo = usarPeriodoAberto(horista, data, modo);
+        if (periodo != null) {
+            horasNormais = PontoFixo.escalar(periodo.getHorasNormais(), ESCALA_HORAS);
+            horasExtras = PontoFixo.escalar(periodo.getHorasExtras(), ESCALA_HORAS);
+        } else if (inicioPeriodo != null && modo == Modo.EXECUCAO_EM_LOTE) {
+            long inicio = inicioPeriodo.toEpochDay();
+            IndiceLancamentos cartoes = horista.getIndiceCartoes(inicio);
+            long fimExclusivo = data.toEpochDay() + 1;
+            horasNormais = PontoFixo.escalar(cartoes.horasNormaisPorCartao(inicio, fimExclusivo), ESCALA_HORAS);
+            horasExtras = PontoFixo.escalar(cartoes.horasExtrasPorCartao(inicio, fimExclusivo), ESCALA_HORAS);
+        } else if (inicioPeriodo != null) {
+            long inicio = inicioPeriodo.toEpochDay();
+            long fim = data.toEpochDay();
+            for (CartaoDePonto cartao : horista.getCartoesPontoDesde(inicio)) {
+                int diaCartao = cartao.getDataEpochDay();
+                if (diaCartao >= inicio && diaCartao <= fim) {
+                    long horas = PontoFixo.escalar(cartao, ESCALA_HORAS);
+                    if (horas > OITO_HORAS) {
+                        horasNormais = Math.addExact(horasNormais, OITO_HORAS);
+                        horasExtras = Math.addExact(horasExtras, horas - OITO_HORAS);
+                    } else {
+                        horasNormais = Math.addExact(horasNormais, horas);
+                    }
+                }
             }
         }
 
-        return descontos;
+        // Centésimos de hora × centavos dão a escala 4; o adicional de 1,5 vira 15 décimos
+        long salarioHora = PontoFixo.escalar(horista.getSalario(), ESCALA_VALORES);
+        long bruto = Math.addExact(
+                Math.multiplyExact(Math.multiplyExact(horasNormais, salarioHora), 10),
+                Math.multiplyExact(Math.multiplyExact(horasExtras, salarioHora), 15));
+        long descontos = 0;
+        if (bruto > 0) {
+            descontos = PontoFixo.escalar(calcularDescontosEmCentavos(horista, inicioPeriodo, data, modo),
+                    ESCALA_VALORES, ESCALA_BRUTO_HORISTA);
+        }
+
+        PagamentoInfo info = new PagamentoInfo();
+        info.horasNormais = PontoFixo.paraBigDecimal(horasNormais, ESCALA_HORAS);
+        info.horasExtras = PontoFixo.paraBigDecimal(horasExtras, ESCALA_HORAS);
+        info.salarioBruto = PontoFixo.paraBigDecimal(bruto, ESCALA_BRUTO_HORISTA);
+        info.descontos = PontoFixo.paraBigDecimal(descontos, ESCALA_BRUTO_HORISTA);
+        info.salarioLiquido = PontoFixo.paraBigDecimal(Math.max(Math.subtractExact(bruto, descontos), 0), ESCALA_BRUTO_HORISTA);
+        return info;
+    }
+
+    /**
+     * Versão em ponto fixo de {@link #calcularPagamentoAssalariadoCompleto}.
+     */
+    private PagamentoInfo calcularAssalariadoEmCentavos(EmpregadoAssalariado assalariado, LocalDate data, Modo modo) {
+        AgendaPagamento agenda = AgendaManager.getAgenda(assalariado.getAgendaPagamento());
+        long salarioMensal = PontoFixo.escalar(assalariado.getSalario(), ESCALA_VALORES);
+
+        long bruto = salarioMensal;
+        if (agenda.isSemanal()) {
+            // RoundingMode.DOWN: a divisão inteira trunca em direção a zero
+            bruto = Math.multiplyExact(Math.multiplyExact(salarioMensal, 12), agenda.getFrequencia()) / 52;
+        }
+
+        LocalDate inicioPeriodo = obterInicioPeriodo(assalariado, data, modo);
+        long descontos = calcularDescontosEmCentavos(assalariado, inicioPeriodo, data, modo);
+
+        PagamentoInfo info = new PagamentoInfo();
+        info.salarioBruto = PontoFixo.paraBigDecimal(bruto, ESCALA_VALORES);
+        info.descontos = PontoFixo.paraBigDecimal(descontos, ESCALA_VALORES);
+        info.salarioLiquido = PontoFixo.paraBigDecimal(Math.max(Math.subtractExact(bruto, descontos), 0), ESCALA_VALORES);
+        return info;
     }
 
+    /**
+     * Versão em ponto fixo de {@link #calcularPagamentoComissionadoCompleto}.
+     */
+    private PagamentoInfo calcularComissionadoEmCentavos(EmpregadoComissionado comissionado, LocalDate data, Modo modo) {
+        LocalDate inicioPeriodo = obterInicioPeriodo(comissionado, data, modo);
+        AgendaPagamento agenda = AgendaManager.getAgenda(comissionado.getAgendaPagamento());
+        long salarioMensal = PontoFixo.escalar(comissionado.getSalario(), ESCALA_VALORES);
+
+        long fixo = salarioMensal;
+        if (agenda.isSemanal()) {
+            // RoundingMode.FLOOR
+            fixo = Math.floorDiv(Math.multiplyExact(Math.multiplyExact(salarioMensal, 12), agenda.getFrequencia()), 52);
+        }
+
+        long vendas = 0;
+        PeriodoAberto periodo = usarPeriodoAberto(comissionado, data, modo);
+        if (periodo != null) {
+            vendas = PontoFixo.escalar(periodo.getVendas(), ESCALA_VALORES);
+        } else if (inicioPeriodo != null && modo == Modo.EXECUCAO_EM_LOTE) {
+            vendas = PontoFixo.escalar(comissionado.getIndiceVendas(inicioPeriodo.toEpochDay()).soma(inicioPeriodo.toEpochDay(), data.toEpochDay() + 1), ESCALA_VALORES);
+        } else if (inicioPeriodo != null) {
+            long inicio = inicioPeriodo.toEpochDay();
+            long fim = data.toEpochDay();
+            for (ResultadoVenda venda : comissionado.getResultadosVendasDesde(inicio)) {
+                int diaVenda = venda.getDataEpochDay();
+                if (diaVenda >= inicio && diaVenda <= fim) {
+                    vendas = Math.addExact(vendas, PontoFixo.escalar(venda, ESCALA_VALORES));
+                }
+            }
+        }
+
+        // Centavos × taxa em centésimos dão a escala 4; RoundingMode.FLOOR de volta para centavos
+        long taxaComissao = PontoFixo.escalar(comissionado.getComissao(), 2);
+        long comissao = Math.floorDiv(Math.multiplyExact(vendas, taxaComissao), 100);
+        long bruto = Math.addExact(fixo, comissao);
+        long descontos = calcularDescontosEmCentavos(comissionado, inicioPeriodo, data, modo);
+
+        PagamentoInfo info = new PagamentoInfo();
+        info.salarioFixo = PontoFixo.paraBigDecimal(fixo, ESCALA_VALORES);
+        info.vendas = PontoFixo.paraBigDecimal(vendas, ESCALA_VALORES);
+        info.comissao = PontoFixo.paraBigDecimal(comissao, ESCALA_VALORES);
+        info.salarioBruto = PontoFixo.paraBigDecimal(bruto, ESCALA_VALORES);
+        info.descontos = PontoFixo.paraBigDecimal(descontos, ESCALA_VALORES);
+        info.salarioLiquido = PontoFixo.paraBigDecimal(Math.max(Math.subtractExact(bruto, descontos), 0), ESCALA_VALORES);
+        return info;
+    }
 
     /**
-     * Formata uma linha do relatório de pagamento para um empregado específico.
+     * Versão em ponto fixo de {@link #calcularDescontosSindicais}.
      *
-     * @param emp  O empregado.
-     * @param info As informações de pagamento calculadas.
-     * @return Uma string formatada para ser impressa no relatório.
+     * @return O valor total dos descontos sindicais, em centavos.
      */
-    private String formatarLinhaRelatorio(Empregado emp, PagamentoInfo info) {
-        String metodo = getMetodoPagamentoString(emp);
-        if (emp instanceof EmpregadoHorista) {
-            return String.format(Locale.FRANCE, "%-36s %5.0f %5.0f %13.2f %9.2f %15.2f %s\n", emp.getNome(), info.horasNormais, info.horasExtras, info.salarioBruto, info.descontos, info.salarioLiquido, metodo);
-        } else if (emp instanceof EmpregadoComissionado) {
-            return String.format(Locale.FRANCE, "%-21s %8.2f %8.2f %8.2f %13.2f %9.2f %15.2f %s\n", emp.getNome(), info.salarioFixo, info.vendas, info.comissao, info.salarioBruto, info.descontos, info.salarioLiquido, metodo);
-        } else {
-            return String.format(Locale.FRANCE, "%-48s %13.2f %9.2f %15.2f %s\n", emp.getNome(), info.salarioBruto, info.descontos, info.salarioLiquido, metodo);
+    private long calcularDescontosEmCentavos(Empregado emp, LocalDate inicio, LocalDate fim, Modo modo) {
+        if (!emp.isSindicalizado() || inicio == null) {
+            return 0;
+        }
+
+        LocalDate inicioEfetivo = obterInicioDescontos(emp, inicio);
+        long dias = contarDiasSindicais(emp, inicioEfetivo, fim);
+
+        long descontos = 0;
+        if (emp.getTaxaSindical() != null) {
+            long taxaSindical = PontoFixo.escalar(emp.getTaxaSindical(), ESCALA_VALORES);
+            descontos = Math.multiplyExact(taxaSindical, emp instanceof EmpregadoAssalariado ? fim.lengthOfMonth() : dias);
+        }
+
+        if (modo == Modo.EXECUCAO_EM_LOTE) {
+            BigDecimal taxas = emp.getIndiceTaxas(inicioEfetivo.toEpochDay()).soma(inicioEfetivo.toEpochDay(), fim.toEpochDay() + 1);
+            return Math.addExact(descontos, PontoFixo.escalar(taxas, ESCALA_VALORES));
+        }
+
+        PeriodoAberto periodo = emp.getUltimaDataPagamento() != null ? emp.getPeriodoAberto() : null;
+        if (periodo != null && periodo.cobre(fim)) {
+            return Math.addExact(descontos, PontoFixo.escalar(periodo.getTaxas(), ESCALA_VALORES));
         }
+
+        long primeiroDia = inicioEfetivo.toEpochDay();
+        long ultimoDia = fim.toEpochDay();
+        for (TaxaDeServico taxa : emp.getTaxasDeServicoDesde(primeiroDia)) {
+            int diaTaxa = taxa.getDataEpochDay();
+            if (diaTaxa >= primeiroDia && diaTaxa <= ultimoDia) {
+                descontos = Math.addExact(descontos, PontoFixo.escalar(taxa, ESCALA_VALORES));
+            }
+        }
+        return descontos;
+    }
+
+    /**
+     * Escreve a linha do relatório de pagamento de um empregado específico, nas colunas da sua seção.
+     *
+     * @param writer O escritor do relatório.
+     * @param layout O layout da seção do empregado.
+     * @param emp    O empregado.
+     * @param info   As informações de pagamento calculadas.
+     * @throws IOException se a gravação do relatório falhar.
+     */
+    private void escreverLinhaRelatorio(RelatorioWriter writer, LayoutSecao layout, Empregado emp, PagamentoInfo info)
+            throws IOException {
+        layout.escreverColunas(writer, String.valueOf(emp.getNome()), info);
+        writer.caractere(' ').decimal(info.salarioBruto, 13, 2).caractere(' ').decimal(info.descontos, 9, 2)
+                .caractere(' ').decimal(info.salarioLiquido, 15, 2).caractere(' ');
+        escreverMetodoPagamento(writer, emp);
+        writer.novaLinha();
+    }
+
+    /**
+     * Modo de cálculo dos pagamentos, que define o início do período pago e de onde vêm os totais
+     * dos lançamentos do período.
+     */
+    private enum Modo {
+        /** {@link #totalFolha}: nada é alterado e o período de um horista pode começar no seu primeiro cartão. */
+        SIMULACAO,
+        /** {@link #rodaFolha}: os totais vêm dos acumuladores do período em aberto, quando cobrem o período pago. */
+        EXECUCAO,
+        /** {@link #rodaFolhaPeriodo}: os totais vêm dos índices por data dos lançamentos, consultados a cada data. */
+        EXECUCAO_EM_LOTE
     }
 
+    /**
+     * Chave do cache de totais da folha: a data e a versão do repositório.
+     */
+    private record ChaveTotal(LocalDate data, long versaoRepositorio) {}
+
+    /**
+     * Chave do cache de pagamentos simulados: a data e a versão do empregado, que nunca se
+     * repete entre empregados nem entre alterações do mesmo empregado.
+     */
+    private record ChavePagamento(LocalDate data, long versaoEmpregado) {}
+
     /**
      * Classe interna para armazenar os dados calculados de um pagamento.
      * Serve como um contêiner de dados para facilitar a passagem de informações
      * entre os métodos de cálculo e de geração de relatório.
      */
-    private class PagamentoInfo {
+    private static class PagamentoInfo {
         BigDecimal salarioBruto = BigDecimal.ZERO, descontos = BigDecimal.ZERO, salarioLiquido = BigDecimal.ZERO;
         BigDecimal horasNormais = BigDecimal.ZERO, horasExtras = BigDecimal.ZERO;
         BigDecimal salarioFixo = BigDecimal.ZERO, vendas = BigDecimal.ZERO, comissao = BigDecimal.ZERO;
+
+        /**
+         * Soma a este pagamento os valores de outro (usado nos totais de uma seção).
+         *
+         * @param outro O pagamento a somar.
+         */
+        void somar(PagamentoInfo outro) {
+            salarioBruto = salarioBruto.add(outro.salarioBruto);
+            descontos = descontos.add(outro.descontos);
+            salarioLiquido = salarioLiquido.add(outro.salarioLiquido);
+            horasNormais = horasNormais.add(outro.horasNormais);
+            horasExtras = horasExtras.add(outro.horasExtras);
+            salarioFixo = salarioFixo.add(outro.salarioFixo);
+            vendas = vendas.add(outro.vendas);
+            comissao = comissao.add(outro.comissao);
+        }
+    }
+
+    /**
+     * O layout da seção do relatório de cada tipo de empregado, na ordem em que as seções são
+     * escritas: o título, o cabeçalho das colunas, as colunas próprias do tipo em cada linha e o
+     * início da linha de totais. Um novo tipo de empregado precisa apenas de uma constante aqui.
+     */
+    private enum LayoutSecao {
+        HORISTAS("horista", "===================== HORISTAS ================================================================================================",
+                String.format("%-36s %5s %5s %13s %9s %15s %s\n", "Nome", "Horas", "Extra", "Salario Bruto", "Descontos", "Salario Liquido", "Metodo"),
+                "==================================== ===== ===== ============= ========= =============== ======================================") {
+            @Override
+            void escreverColunas(RelatorioWriter writer, String nome, PagamentoInfo info) throws IOException {
+                writer.textoEsquerda(nome, 36).caractere(' ').decimal(info.horasNormais, 5, 0)
+                        .caractere(' ').decimal(info.horasExtras, 5, 0);
+            }
+
+            @Override
+            void escreverTotais(RelatorioWriter writer, PagamentoInfo total) throws IOException {
+                writer.texto("TOTAL HORISTAS ").decimal(total.horasNormais, 27, 0).caractere(' ').decimal(total.horasExtras, 5, 0)
+                        .caractere(' ').decimal(total.salarioBruto, 13, 2);
+            }
+        },
+        ASSALARIADOS("assalariado", "===================== ASSALARIADOS ============================================================================================",
+                String.format("%-48s %13s %9s %15s %s\n", "Nome", "Salario Bruto", "Descontos", "Salario Liquido", "Metodo"),
+                "================================================ ============= ========= =============== ======================================") {
+            @Override
+            void escreverColunas(RelatorioWriter writer, String nome, PagamentoInfo info) throws IOException {
+                writer.textoEsquerda(nome, 48);
+            }
+
+            @Override
+            void escreverTotais(RelatorioWriter writer, PagamentoInfo total) throws IOException {
+                writer.texto("TOTAL ASSALARIADOS ").decimal(total.salarioBruto, 43, 2);
+            }
+        },
+        COMISSIONADOS("comissionado", "===================== COMISSIONADOS ===========================================================================================",
+                String.format("%-17s %8s %10s %10s %13s %9s %15s %s\n", "Nome", "Fixo", "Vendas", "Comissao", "Salario Bruto", "Descontos", "Salario Liquido", "Metodo"),
+                "===================== ======== ======== ======== ============= ========= =============== ======================================") {
+            @Override
+            void escreverColunas(RelatorioWriter writer, String nome, PagamentoInfo info) throws IOException {
+                writer.textoEsquerda(nome, 21).caractere(' ').decimal(info.salarioFixo, 8, 2)
+                        .caractere(' ').decimal(info.vendas, 8, 2).caractere(' ').decimal(info.comissao, 8, 2);
+            }
+
+            @Override
+            void escreverTotais(RelatorioWriter writer, PagamentoInfo total) throws IOException {
+                writer.texto("TOTAL COMISSIONADOS ").decimal(total.salarioFixo, 10, 2).caractere(' ').decimal(total.vendas, 8, 2)
+                        .caractere(' ').decimal(total.comissao, 8, 2).caractere(' ').decimal(total.salarioBruto, 13, 2);
+            }
+        };
+
+        final String tipo;
+        final String titulo;
+        final String cabecalho;
+        final String sublinhado;
+
+        LayoutSecao(String tipo, String titulo, String cabecalho, String sublinhado) {
+            this.tipo = tipo;
+            this.titulo = titulo;
+            this.cabecalho = cabecalho;
+            this.sublinhado = sublinhado;
+        }
+
+        /**
+         * Escreve o nome e as colunas próprias do tipo no início da linha de um empregado; as colunas
+         * comuns (bruto, descontos, líquido e método) vêm em seguida.
+         *
+         * @param writer O escritor do relatório.
+         * @param nome   O nome do empregado.
+         * @param info   O pagamento do empregado.
+         * @throws IOException se a gravação do relatório falhar.
+         */
+        abstract void escreverColunas(RelatorioWriter writer, String nome, PagamentoInfo info) throws IOException;
+
+        /**
+         * Escreve a linha de totais da seção até o salário bruto; os descontos e o líquido vêm em seguida.
+         *
+         * @param writer O escritor do relatório.
+         * @param total  A soma dos pagamentos da seção.
+         * @throws IOException se a gravação do relatório falhar.
+         */
+        abstract void escreverTotais(RelatorioWriter writer, PagamentoInfo total) throws IOException;
+
+        /**
+         * Retorna o layout da seção de um tipo de empregado.
+         *
+         * @param tipo O tipo do empregado (ver {@link Empregado#getTipo()}).
+         * @return O layout da seção.
+         * @throws IllegalStateException se nenhuma seção for do tipo informado.
+         */
+        static LayoutSecao doTipo(String tipo) {
+            for (LayoutSecao layout : values()) {
+                if (layout.tipo.equals(tipo)) {
+                    return layout;
+                }
+            }
+            throw new IllegalStateException("Tipo de empregado sem seção no relatório: " + tipo);
+        }
+    }
+
+    /**
+     * Os empregados de um mesmo tipo a serem pagos, em ordem de nome, e os seus pagamentos,
+     * na mesma posição.
+     */
+    private static class SecaoRelatorio {
+        final List<Empregado> empregados = new ArrayList<>();
+        final List<PagamentoInfo> pagamentos = new ArrayList<>();
     }
 }
@@ -15,12 +15,11 @@ import br.ufal.ic.p2.wepayu.utils.AppUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Gerenciador responsável pelas operações relacionadas a cartões de ponto de empregados horistas,
  * incluindo o lançamento de novas horas e o cálculo de horas normais e extras.
+ * As consultas por período usam o índice por data dos cartões ({@link Empregado#getIndiceCartoes()}).
  */
 public class LancaCartaoPontoManager {
     private final EmpregadoRepository empregadoRepository = EmpregadoRepository.getInstance();
@@ -73,8 +72,7 @@ public class LancaCartaoPontoManager {
             throw new HorasNaoPositivasException();
         }
 
-        empregado.getCartoesPonto().add(new CartaoDePonto(dataFormatada, horasBigDecimal));
-        empregadoRepository.salvarDados();
+        empregadoRepository.adicionarCartao(empregado, new CartaoDePonto(dataFormatada, horasBigDecimal));
     }
 
     /**
@@ -114,22 +112,8 @@ public class LancaCartaoPontoManager {
             throw new DataInicialAposFinalException();
         }
 
-        Map<LocalDate, BigDecimal> horasPorDia = new HashMap<>();
-        for (CartaoDePonto cartao : empregado.getCartoesPonto()) {
-            LocalDate dataCartao = cartao.getData();
-            if (!dataCartao.isBefore(dataInicio) && dataCartao.isBefore(dataFim)) {
-                horasPorDia.put(dataCartao, horasPorDia.getOrDefault(dataCartao, BigDecimal.ZERO).add(cartao.getHoras()));
-            }
-        }
-
-        BigDecimal totalHorasNormais = BigDecimal.ZERO;
-        for (BigDecimal horasDoDia : horasPorDia.values()) {
-            if (horasDoDia.compareTo(new BigDecimal("8")) > 0) {
-                totalHorasNormais = totalHorasNormais.add(new BigDecimal("8"));
-            } else {
-                totalHorasNormais = totalHorasNormais.add(horasDoDia);
-            }
-        }
+        BigDecimal totalHorasNormais = empregado.getIndiceCartoes(dataInicio.toEpochDay())
+                .horasNormais(dataInicio.toEpochDay(), dataFim.toEpochDay());
         return formatarHoras(totalHorasNormais);
     }
 
@@ -170,20 +154,8 @@ public class LancaCartaoPontoManager {
             throw new DataInicialAposFinalException();
         }
 
-        Map<LocalDate, BigDecimal> horasPorDia = new HashMap<>();
-        for (CartaoDePonto cartao : empregado.getCartoesPonto()) {
-            LocalDate dataCartao = cartao.getData();
-            if (!dataCartao.isBefore(dataInicio) && dataCartao.isBefore(dataFim)) {
-                horasPorDia.put(dataCartao, horasPorDia.getOrDefault(dataCartao, BigDecimal.ZERO).add(cartao.getHoras()));
-            }
-        }
-
-        BigDecimal totalHorasExtras = BigDecimal.ZERO;
-        for (BigDecimal horasDoDia : horasPorDia.values()) {
-            if (horasDoDia.compareTo(new BigDecimal("8")) > 0) {
-                totalHorasExtras = totalHorasExtras.add(horasDoDia.subtract(new BigDecimal("8")));
-            }
-        }
+        BigDecimal totalHorasExtras = empregado.getIndiceCartoes(dataInicio.toEpochDay())
+                .horasExtras(dataInicio.toEpochDay(), dataFim.toEpochDay());
         return formatarHoras(totalHorasExtras);
     }
 
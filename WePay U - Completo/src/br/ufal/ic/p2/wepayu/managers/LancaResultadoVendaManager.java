@@ -76,8 +76,7 @@ public class LancaResultadoVendaManager {
             throw new ValorNaoPositivoException();
         }
 
-        ((EmpregadoComissionado) empregado).getResultadosVendas().add(new ResultadoVenda(dataFormatada, valorBigDecimal));
-        empregadoRepository.salvarDados();
+        empregadoRepository.adicionarVenda((EmpregadoComissionado) empregado, new ResultadoVenda(dataFormatada, valorBigDecimal));
     }
 
     /**
@@ -113,12 +112,8 @@ public class LancaResultadoVendaManager {
             throw new Exception("Data inicial nao pode ser posterior aa data final.");
         }
 
-        BigDecimal totalVendas = BigDecimal.ZERO;
-        for (ResultadoVenda venda : ((EmpregadoComissionado) empregado).getResultadosVendas()) {
-            if (!venda.getData().isBefore(dataInicio) && venda.getData().isBefore(dataFim)) {
-                totalVendas = totalVendas.add(venda.getValor());
-            }
-        }
+        BigDecimal totalVendas = ((EmpregadoComissionado) empregado).getIndiceVendas(dataInicio.toEpochDay())
+                .soma(dataInicio.toEpochDay(), dataFim.toEpochDay());
 
         return formatarValor(totalVendas);
     }
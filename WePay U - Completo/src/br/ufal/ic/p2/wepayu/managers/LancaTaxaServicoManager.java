@@ -9,7 +9,6 @@ import br.ufal.ic.p2.wepayu.utils.AppUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
-import java.util.Objects;
 
 /**
  * Gerenciador responsável pelas operações relacionadas ao lançamento e consulta de taxas de serviço
@@ -19,18 +18,14 @@ public class LancaTaxaServicoManager {
     private final EmpregadoRepository empregadoRepository = EmpregadoRepository.getInstance();
 
     /**
-     * Método auxiliar para encontrar um empregado com base em sua identificação no sindicato.
+     * Método auxiliar para encontrar um empregado com base em sua identificação no sindicato,
+     * usando o índice secundário do repositório.
      *
      * @param idSindicato O ID do membro do sindicato.
      * @return O objeto {@link Empregado} correspondente, ou {@code null} se nenhum for encontrado.
      */
     private Empregado encontrarPorIdSindicato(String idSindicato) {
-        for (Empregado empregado : empregadoRepository.getAll().values()) {
-            if (Objects.equals(empregado.getIdSindicato(), idSindicato)) {
-                return empregado;
-            }
-        }
-        return null;
+        return empregadoRepository.getByIdSindicato(idSindicato);
     }
 
     /**
@@ -81,8 +76,7 @@ public class LancaTaxaServicoManager {
             throw new ValorNaoPositivoException();
         }
 
-        empregado.getTaxasDeServico().add(new TaxaDeServico(dataFormatada, valorBigDecimal));
-        empregadoRepository.salvarDados();
+        empregadoRepository.adicionarTaxa(empregado, new TaxaDeServico(dataFormatada, valorBigDecimal));
     }
 
     /**
@@ -122,12 +116,7 @@ public class LancaTaxaServicoManager {
             throw new Exception("Data inicial nao pode ser posterior aa data final.");
         }
 
-        BigDecimal totalTaxas = BigDecimal.ZERO;
-        for (TaxaDeServico taxa : empregado.getTaxasDeServico()) {
-            if (!taxa.getData().isBefore(dataInicio) && taxa.getData().isBefore(dataFim)) {
-                totalTaxas = totalTaxas.add(taxa.getValor());
-            }
-        }
+        BigDecimal totalTaxas = empregado.getIndiceTaxas(dataInicio.toEpochDay()).soma(dataInicio.toEpochDay(), dataFim.toEpochDay());
 
         return AppUtils.formatBigDecimal(totalTaxas);
     }
@@ -1,6 +1,8 @@
 package br.ufal.ic.p2.wepayu.models;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 /**
  * Representa uma agenda de pagamento que define as regras para os dias de pagamento.
@@ -8,32 +10,152 @@ import java.time.LocalDate;
  * Cada instância desta classe é baseada em uma descrição textual que determina
  * a frequência e o dia do pagamento (ex: "semanal 5", "mensal $").
  * </p>
+ * A descrição é interpretada uma única vez, no construtor; a instância é imutável e pode ser
+ * compartilhada por todos os empregados com a mesma agenda (ver
+ * {@link br.ufal.ic.p2.wepayu.managers.AgendaManager#getAgenda(String)}). As consultas
+ * ({@link #devePagar(LocalDate)}, {@link #inicioPeriodo(LocalDate)} e {@link #proximaData(LocalDate)})
+ * são feitas em tempo constante, apenas com aritmética de datas.
  */
-public class AgendaPagamento {
-    private String descricao;
+public final class AgendaPagamento {
+    /**
+     * Segunda-feira a partir da qual as semanas das agendas semanais são contadas.
+     */
+    private static final long ANCORA = LocalDate.of(2004, 12, 27).toEpochDay();
+    /**
+     * Marca o dia do mês da agenda "mensal $" (último dia útil).
+     */
+    private static final int ULTIMO_DIA_UTIL = -1;
+
+    private enum Tipo { SEMANAL, MENSAL, DESCONHECIDO }
+
+    private final String descricao;
+    private final Tipo tipo;
+    private final int frequencia;
+    private final int diaDaSemana;
+    private final int diaDoMes;
 
     /**
      * Construtor que cria uma nova agenda de pagamento com base em uma descrição.
      *
      * @param descricao A regra que define a agenda (ex: "semanal 5").
+     * @throws NumberFormatException se a frequência ou o dia não forem numéricos.
      */
     public AgendaPagamento(String descricao) {
         this.descricao = descricao;
+        String[] parts = descricao.split(" ");
+        switch (parts[0]) {
+            case "mensal" -> {
+                this.tipo = Tipo.MENSAL;
+                this.frequencia = 1;
+                this.diaDaSemana = 0;
+                this.diaDoMes = parts[1].equals("$") ? ULTIMO_DIA_UTIL : Integer.parseInt(parts[1]);
+            }
+            case "semanal" -> {
+                this.tipo = Tipo.SEMANAL;
+                this.frequencia = parts.length == 3 ? Integer.parseInt(parts[1]) : 1;
+                this.diaDaSemana = Integer.parseInt(parts[parts.length == 3 ? 2 : 1]);
+                this.diaDoMes = 0;
+            }
+            default -> {
+                this.tipo = Tipo.DESCONHECIDO;
+                this.frequencia = 1;
+                this.diaDaSemana = 0;
+                this.diaDoMes = 0;
+            }
+        }
     }
 
     /**
      * Verifica se um pagamento é devido em uma data específica, com base na regra da agenda.
      * <p>
-     * Nota: A implementação atual é um stub e precisa ser desenvolvida.
+     * Agendas semanais pagam no dia da semana indicado, a cada {@code frequencia} semanas contadas
+     * a partir da semana de 27/12/2004. Agendas mensais pagam no dia do mês indicado (ou no último
+     * dia do mês, se este for mais curto) ou, com "$", no último dia útil do mês.
      * </p>
      *
      * @param data A data a ser verificada.
      * @return {@code true} se for um dia de pagamento, {@code false} caso contrário.
      */
     public boolean devePagar(LocalDate data) {
+        switch (tipo) {
+            case SEMANAL:
+                if (data.getDayOfWeek().getValue() != diaDaSemana) {
+                    return false;
+                }
+                // Divisão truncada, como em ChronoUnit.WEEKS.between
+                long semanas = (data.toEpochDay() - ANCORA) / 7;
+                return semanas >= 0 && semanas % frequencia == 0;
+            case MENSAL:
+                return data.equals(dataNoMes(YearMonth.from(data)));
+            default:
+                return false;
+        }
+    }
 
-        // Lógica de verificação da data de pagamento deve ser implementada aqui.
-        return false;
+    /**
+     * Retorna o primeiro dia do período pago em uma data de pagamento: as últimas {@code frequencia}
+     * semanas, nas agendas semanais, ou o mês corrente, nas demais.
+     *
+     * @param dataPagamento A data do pagamento.
+     * @return A data de início do período.
+     */
+    public LocalDate inicioPeriodo(LocalDate dataPagamento) {
+        if (tipo == Tipo.SEMANAL) {
+            return dataPagamento.minusWeeks(frequencia).plusDays(1);
+        }
+        return dataPagamento.withDayOfMonth(1);
+    }
+
+    /**
+     * Retorna a próxima data de pagamento estritamente posterior à data informada.
+     *
+     * @param data A data de referência.
+     * @return A próxima data em que {@link #devePagar(LocalDate)} é verdadeiro,
+     *         ou {@code null} se a agenda nunca paga.
+     */
+    public LocalDate proximaData(LocalDate data) {
+        switch (tipo) {
+            case SEMANAL: {
+                long dia = data.toEpochDay() + 1;
+                if (dia < ANCORA) {
+                    // Na semana anterior à âncora a divisão truncada ainda dá zero semanas
+                    for (dia = Math.max(dia, ANCORA - 6); dia < ANCORA; dia++) {
+                        if (devePagar(LocalDate.ofEpochDay(dia))) {
+                            return LocalDate.ofEpochDay(dia);
+                        }
+                    }
+                }
+                long primeiro = ANCORA + diaDaSemana - 1;
+                long passo = 7L * frequencia;
+                long periodos = Math.max(0, -Math.floorDiv(primeiro - dia, passo));
+                return LocalDate.ofEpochDay(primeiro + periodos * passo);
+            }
+            case MENSAL: {
+                YearMonth mes = YearMonth.from(data);
+                LocalDate candidata = dataNoMes(mes);
+                return candidata.isAfter(data) ? candidata : dataNoMes(mes.plusMonths(1));
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Indica se a agenda é semanal (com qualquer frequência).
+     *
+     * @return {@code true} para agendas "semanal".
+     */
+    public boolean isSemanal() {
+        return tipo == Tipo.SEMANAL;
+    }
+
+    /**
+     * Retorna de quantas em quantas semanas a agenda paga.
+     *
+     * @return A frequência em semanas (1 para agendas não semanais).
+     */
+    public int getFrequencia() {
+        return frequencia;
     }
 
     /**
@@ -44,4 +166,21 @@ public class AgendaPagamento {
     public String getDescricao() {
         return descricao;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calcula a data de pagamento de uma agenda mensal em um mês.
+     */
+    private LocalDate dataNoMes(YearMonth mes) {
+        if (diaDoMes == ULTIMO_DIA_UTIL) {
+            LocalDate ultimoDiaUtil = mes.atEndOfMonth();
+            if (ultimoDiaUtil.getDayOfWeek() == DayOfWeek.SATURDAY) {
+                return ultimoDiaUtil.minusDays(1);
+            }
+            if (ultimoDiaUtil.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                return ultimoDiaUtil.minusDays(2);
+            }
+            return ultimoDiaUtil;
+        }
+        return mes.atDay(Math.min(diaDoMes, mes.lengthOfMonth()));
+    }
+}
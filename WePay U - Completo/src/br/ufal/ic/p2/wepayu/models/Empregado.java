@@ -1,11 +1,15 @@
 package br.ufal.ic.p2.wepayu.models;
 
+import br.ufal.ic.p2.wepayu.utils.PersistentVector;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.UnaryOperator;
 
 /**
  * Classe abstrata que representa um Empregado.
@@ -17,6 +21,35 @@ import java.util.stream.Collectors;
  * <p>
  * Subclasses são obrigadas a implementar os métodos abstratos {@link #clone()}, {@link #getTipo()} e {@link #getSalario()}.
  * </p>
+ * <p>
+ * Os históricos (cartões de ponto, taxas de serviço e vendas) são listas persistentes e imutáveis:
+ * um lançamento cria uma nova versão da lista com {@link #adicionarCartaoPonto} ou
+ * {@link #adicionarTaxaDeServico}, e as versões anteriores continuam válidas. Por isso um clone pode
+ * compartilhar os históricos com o original.
+ * </p>
+ * <p>
+ * Cada empregado também mantém os acumuladores do seu período de pagamento em aberto
+ * ({@link PeriodoAberto}), somados a cada lançamento e zerados quando a última data de pagamento
+ * avança, para que a folha não precise percorrer todo o histórico. Quando uma lista inteira é
+ * substituída, os acumuladores são descartados e recalculados na próxima consulta.
+ * </p>
+ * <p>
+ * Da mesma forma, os cartões de ponto e as taxas de serviço têm índices por data
+ * ({@link IndiceLancamentos}), construídos na primeira consulta por período e estendidos a cada
+ * lançamento em ordem de data.
+ * </p>
+ * <p>
+ * Um empregado lido do snapshot pode ter o histórico ainda não carregado ({@link FonteHistorico}):
+ * ele é lido na primeira consulta ou alteração de qualquer um dos históricos, uma única vez mesmo
+ * que várias threads o consultem ao mesmo tempo. Atributos como nome e salário não dependem dele.
+ * </p>
+ * <p>
+ * Os lançamentos já quitados (até a última data de pagamento) podem ser arquivados fora da memória
+ * ({@link #arquivarHistorico}, {@link HistoricoArquivado}). As listas retornadas por
+ * {@link #getCartoesPonto()}, {@link #getTaxasDeServico()} e pelos índices continuam completas, lendo
+ * o arquivo quando preciso; já as variantes por período ({@link #getCartoesPontoDesde(long)},
+ * {@link #getIndiceCartoes(long)}...) só o leem se o período começar antes do último dia arquivado.
+ * </p>
  */
 public abstract class Empregado implements Serializable {
     private String id;
@@ -24,13 +57,20 @@ public abstract class Empregado implements Serializable {
     private String endereco;
     private boolean sindicalizado;
     private MetodoPagamento metodoPagamento;
-    private List<CartaoDePonto> cartoesPonto = new ArrayList<>();
+    private PersistentVector<CartaoDePonto> cartoesPonto = PersistentVector.empty();
     private String idSindicato;
     private BigDecimal taxaSindical;
-    private List<TaxaDeServico> taxasDeServico = new ArrayList<>();
+    private PersistentVector<TaxaDeServico> taxasDeServico = PersistentVector.empty();
     private LocalDate ultimaDataPagamento;
     private LocalDate dataContratacao;
     private String agendaPagamento;
+    // Caches montados sob demanda, inclusive por threads que só consultam empregados já publicados
+    private volatile PeriodoAberto periodoAberto;
+    private volatile IndiceLancamentos indiceCartoes;
+    private volatile IndiceLancamentos indiceTaxas;
+    private long versao;
+    private transient volatile FonteHistorico fonteHistorico;
+    private HistoricoArquivado historicoArquivado;
 
     /**
      * Construtor padrão.
@@ -73,8 +113,9 @@ public abstract class Empregado implements Serializable {
     }
 
     /**
-     * Método abstrato para criar uma cópia profunda (clone) do empregado.
+     * Método abstrato para criar uma cópia (clone) do empregado.
      * As subclasses devem implementar esta lógica para criar uma nova instância de seu próprio tipo.
+     * Os históricos, por serem imutáveis, são compartilhados com o original.
      *
      * @return Uma nova instância de {@link Empregado} que é uma cópia exata do original.
      */
@@ -82,8 +123,8 @@ public abstract class Empregado implements Serializable {
 
     /**
      * Método auxiliar protegido para ser usado pelas implementações de {@link #clone()} nas subclasses.
-     * Realiza a cópia profunda de todos os atributos comuns definidos nesta classe base
-     * para o objeto clone fornecido.
+     * Copia todos os atributos comuns definidos nesta classe base para o objeto clone fornecido.
+     * As listas de cartões e taxas são compartilhadas, pois nunca são modificadas no lugar.
      *
      * @param clone O objeto clone (da subclasse) que receberá os atributos copiados.
      */
@@ -102,12 +143,14 @@ public abstract class Empregado implements Serializable {
             clone.setMetodoPagamento(this.getMetodoPagamento().clone());
         }
 
-        if (this.getCartoesPonto() != null) {
-            clone.setCartoesPonto(this.getCartoesPonto().stream().map(CartaoDePonto::clone).collect(Collectors.toList()));
-        }
-        if (this.getTaxasDeServico() != null) {
-            clone.setTaxasDeServico(this.getTaxasDeServico().stream().map(TaxaDeServico::clone).collect(Collectors.toList()));
-        }
+        // Lida antes das listas: se o histórico ainda não foi carregado, o clone o carrega da mesma fonte
+        clone.fonteHistorico = this.fonteHistorico;
+        clone.historicoArquivado = this.historicoArquivado;
+        clone.cartoesPonto = this.cartoesPonto;
+        clone.taxasDeServico = this.taxasDeServico;
+        clone.periodoAberto = this.periodoAberto;
+        clone.indiceCartoes = this.indiceCartoes;
+        clone.indiceTaxas = this.indiceTaxas;
     }
 
     // Getters and Setters...
@@ -185,16 +228,61 @@ public abstract class Empregado implements Serializable {
     public void setMetodoPagamento(MetodoPagamento metodoPagamento) { this.metodoPagamento = metodoPagamento; }
 
     /**
-     * Retorna a lista de cartões de ponto do empregado.
+     * Retorna a lista (imutável) de cartões de ponto do empregado, incluindo os arquivados.
+     * @return Uma lista de {@link CartaoDePonto}.
+     */
+    public List<CartaoDePonto> getCartoesPonto() {
+        carregarHistorico();
+        HistoricoArquivado arquivado = historicoArquivado;
+        return arquivado == null ? cartoesPonto : juntar(arquivado.lerCartoes(), cartoesPonto);
+    }
+
+    /**
+     * Retorna uma lista de cartões de ponto que contém, pelo menos, todos os cartões a partir de um dia;
+     * o arquivo só é lido se o dia não for posterior ao último dia arquivado.
+     * @param dia O primeiro dia de interesse (dias desde 1970-01-01).
+     * @return Uma lista de {@link CartaoDePonto}, que deve ser filtrada por data.
+     */
+    public List<CartaoDePonto> getCartoesPontoDesde(long dia) {
+        carregarHistorico();
+        return precisaDoArquivo(dia) ? getCartoesPonto() : cartoesPonto;
+    }
+
+    /**
+     * Retorna os cartões de ponto que estão em memória, sem os arquivados.
      * @return Uma lista de {@link CartaoDePonto}.
      */
-    public List<CartaoDePonto> getCartoesPonto() { return cartoesPonto; }
+    public List<CartaoDePonto> getCartoesPontoNaoArquivados() {
+        carregarHistorico();
+        return cartoesPonto;
+    }
 
     /**
-     * Define a lista de cartões de ponto do empregado.
+     * Define a lista de cartões de ponto do empregado. Os lançamentos arquivados voltam para a memória.
      * @param cartoesPonto A nova lista de cartões de ponto.
      */
-    public void setCartoesPonto(List<CartaoDePonto> cartoesPonto) { this.cartoesPonto = cartoesPonto; }
+    public void setCartoesPonto(List<CartaoDePonto> cartoesPonto) {
+        carregarHistorico();
+        desarquivar();
+        this.cartoesPonto = PersistentVector.of(cartoesPonto);
+        this.periodoAberto = null;
+        this.indiceCartoes = null;
+    }
+
+    /**
+     * Acrescenta um cartão de ponto ao final do histórico do empregado.
+     * @param cartao O cartão de ponto lançado.
+     */
+    public void adicionarCartaoPonto(CartaoDePonto cartao) {
+        carregarHistorico();
+        this.cartoesPonto = this.cartoesPonto.plus(cartao);
+        if (periodoAberto != null) {
+            periodoAberto = periodoAberto.comCartao(cartao);
+        }
+        if (indiceCartoes != null) {
+            indiceCartoes = indiceCartoes.mais(cartao);
+        }
+    }
 
     /**
      * Retorna o ID do empregado no sindicato.
@@ -221,16 +309,345 @@ public abstract class Empregado implements Serializable {
     public BigDecimal getTaxaSindical() { return taxaSindical; }
 
     /**
-     * Retorna a lista de taxas de serviço avulsas do empregado.
+     * Retorna a lista (imutável) de taxas de serviço avulsas do empregado, incluindo as arquivadas.
+     * @return Uma lista de {@link TaxaDeServico}.
+     */
+    public List<TaxaDeServico> getTaxasDeServico() {
+        carregarHistorico();
+        HistoricoArquivado arquivado = historicoArquivado;
+        return arquivado == null ? taxasDeServico : juntar(arquivado.lerTaxas(), taxasDeServico);
+    }
+
+    /**
+     * Retorna uma lista de taxas de serviço que contém, pelo menos, todas as taxas a partir de um dia;
+     * o arquivo só é lido se o dia não for posterior ao último dia arquivado.
+     * @param dia O primeiro dia de interesse (dias desde 1970-01-01).
+     * @return Uma lista de {@link TaxaDeServico}, que deve ser filtrada por data.
+     */
+    public List<TaxaDeServico> getTaxasDeServicoDesde(long dia) {
+        carregarHistorico();
+        return precisaDoArquivo(dia) ? getTaxasDeServico() : taxasDeServico;
+    }
+
+    /**
+     * Retorna as taxas de serviço que estão em memória, sem as arquivadas.
      * @return Uma lista de {@link TaxaDeServico}.
      */
-    public List<TaxaDeServico> getTaxasDeServico() { return taxasDeServico; }
+    public List<TaxaDeServico> getTaxasDeServicoNaoArquivadas() {
+        carregarHistorico();
+        return taxasDeServico;
+    }
 
     /**
-     * Define a lista de taxas de serviço avulsas do empregado.
+     * Define a lista de taxas de serviço avulsas do empregado. Os lançamentos arquivados voltam para a memória.
      * @param taxasDeServico A nova lista de taxas de serviço.
      */
-    public void setTaxasDeServico(List<TaxaDeServico> taxasDeServico) { this.taxasDeServico = taxasDeServico; }
+    public void setTaxasDeServico(List<TaxaDeServico> taxasDeServico) {
+        carregarHistorico();
+        desarquivar();
+        this.taxasDeServico = PersistentVector.of(taxasDeServico);
+        this.periodoAberto = null;
+        this.indiceTaxas = null;
+    }
+
+    /**
+     * Acrescenta uma taxa de serviço ao final do histórico do empregado.
+     * @param taxa A taxa de serviço lançada.
+     */
+    public void adicionarTaxaDeServico(TaxaDeServico taxa) {
+        carregarHistorico();
+        this.taxasDeServico = this.taxasDeServico.plus(taxa);
+        if (periodoAberto != null) {
+            periodoAberto = periodoAberto.comTaxa(taxa);
+        }
+        if (indiceTaxas != null) {
+            indiceTaxas = indiceTaxas.mais(taxa);
+        }
+    }
+
+    /**
+     * Retorna o índice por data de todos os cartões de ponto, com as horas normais e extras divididas por dia.
+     * @return O {@link IndiceLancamentos} dos cartões.
+     */
+    public IndiceLancamentos getIndiceCartoes() {
+        return getIndiceCartoes(Long.MIN_VALUE);
+    }
+
+    /**
+     * Retorna um índice por data dos cartões de ponto que responde corretamente às consultas por
+     * períodos que começam no dia informado ou depois. O índice dos cartões em memória é mantido
+     * entre as chamadas; se o período alcançar os cartões arquivados, um índice completo é montado.
+     * @param dia O primeiro dia (dias desde 1970-01-01) dos períodos que serão consultados.
+     * @return O {@link IndiceLancamentos} dos cartões.
+     */
+    public IndiceLancamentos getIndiceCartoes(long dia) {
+        carregarHistorico();
+        if (precisaDoArquivo(dia)) {
+            return IndiceLancamentos.de(getCartoesPonto(), true);
+        }
+        IndiceLancamentos indice = indiceCartoes;
+        if (indice == null) {
+            indice = IndiceLancamentos.de(cartoesPonto, true);
+            indiceCartoes = indice;
+        }
+        return indice;
+    }
+
+    /**
+     * Retorna o índice por data de todas as taxas de serviço.
+     * @return O {@link IndiceLancamentos} das taxas.
+     */
+    public IndiceLancamentos getIndiceTaxas() {
+        return getIndiceTaxas(Long.MIN_VALUE);
+    }
+
+    /**
+     * Retorna um índice por data das taxas de serviço válido para períodos que começam no dia
+     * informado ou depois (ver {@link #getIndiceCartoes(long)}).
+     * @param dia O primeiro dia (dias desde 1970-01-01) dos períodos que serão consultados.
+     * @return O {@link IndiceLancamentos} das taxas.
+     */
+    public IndiceLancamentos getIndiceTaxas(long dia) {
+        carregarHistorico();
+        if (precisaDoArquivo(dia)) {
+            return IndiceLancamentos.de(getTaxasDeServico(), false);
+        }
+        IndiceLancamentos indice = indiceTaxas;
+        if (indice == null) {
+            indice = IndiceLancamentos.de(taxasDeServico, false);
+            indiceTaxas = indice;
+        }
+        return indice;
+    }
+
+    /**
+     * Retorna o dia do primeiro cartão de ponto (o de menor data), considerando também os arquivados,
+     * sem ler o arquivo.
+     * @return O dia (dias desde 1970-01-01), ou {@link Lancamento#SEM_DATA} se não houver cartões.
+     */
+    public int getPrimeiroDiaCartao() {
+        int primeiro = getIndiceCartoes(Long.MAX_VALUE).primeiroDia();
+        HistoricoArquivado arquivado = historicoArquivado;
+        if (arquivado != null && arquivado.getPrimeiroDiaCartao() != Lancamento.SEM_DATA
+                && (primeiro == Lancamento.SEM_DATA || arquivado.getPrimeiroDiaCartao() < primeiro)) {
+            primeiro = arquivado.getPrimeiroDiaCartao();
+        }
+        return primeiro;
+    }
+
+    /**
+     * Retorna a versão do empregado, dada pelo {@link br.ufal.ic.p2.wepayu.repository.EmpregadoRepository}
+     * a cada alteração. Versões nunca se repetem, então identificam o conteúdo do empregado.
+     * @return A versão.
+     */
+    public long getVersao() { return versao; }
+
+    /**
+     * Define a versão do empregado. Usado apenas pelo repositório.
+     * @param versao A nova versão.
+     */
+    public void setVersao(long versao) { this.versao = versao; }
+
+    /**
+     * Adia a leitura do histórico: as listas de cartões, taxas e vendas ficam vazias até a primeira
+     * consulta ou alteração de qualquer uma delas, quando são lidas da fonte. Usado na leitura do snapshot.
+     * @param fonteHistorico De onde ler o histórico.
+     */
+    public void setFonteHistorico(FonteHistorico fonteHistorico) {
+        synchronized (this) {
+            this.cartoesPonto = PersistentVector.empty();
+            this.taxasDeServico = PersistentVector.empty();
+            descartarHistorico();
+            this.fonteHistorico = fonteHistorico;
+        }
+    }
+
+    /**
+     * Verifica se o histórico já está em memória.
+     * @return {@code false} se o histórico ainda estiver pendente na sua {@link FonteHistorico}.
+     */
+    public boolean isHistoricoCarregado() { return fonteHistorico == null; }
+
+    /**
+     * Lê o histórico da {@link FonteHistorico}, se ainda estiver pendente. Toda consulta ou alteração
+     * dos históricos deve chamar este método antes de acessar as listas.
+     */
+    protected final void carregarHistorico() {
+        if (fonteHistorico == null) {
+            return;
+        }
+        synchronized (this) {
+            FonteHistorico fonte = fonteHistorico;
+            if (fonte != null) {
+                instalarHistorico(fonte);
+                // Escrita volátil por último: quem a vê nula vê também as listas lidas
+                this.fonteHistorico = null;
+            }
+        }
+    }
+
+    /**
+     * Substitui os históricos em memória pelos da fonte e descarta o que era derivado deles.
+     */
+    private void instalarHistorico(FonteHistorico fonte) {
+        this.cartoesPonto = PersistentVector.of(fonte.lerCartoes());
+        this.taxasDeServico = PersistentVector.of(fonte.lerTaxas());
+        receberHistorico(fonte);
+        descartarHistorico();
+    }
+
+    /**
+     * Recebe da fonte os históricos próprios da subclasse (ex: vendas), durante {@link #carregarHistorico()}.
+     * @param fonte De onde ler o histórico.
+     */
+    protected void receberHistorico(FonteHistorico fonte) {}
+
+    /**
+     * Retorna os históricos próprios da subclasse (ex: vendas) que estão em memória.
+     * @return Os resultados de vendas não arquivados; vazio para quem não tem vendas.
+     */
+    protected List<ResultadoVenda> getVendasNaoArquivadas() {
+        return List.of();
+    }
+
+    /**
+     * Retorna o que foi arquivado do histórico do empregado.
+     * @return O {@link HistoricoArquivado}, ou {@code null} se nada foi arquivado.
+     */
+    public HistoricoArquivado getHistoricoArquivado() { return historicoArquivado; }
+
+    /**
+     * Define o que foi arquivado do histórico. Usado na leitura do snapshot, em que as listas em
+     * memória contêm só os lançamentos não arquivados.
+     * @param historicoArquivado O {@link HistoricoArquivado}, ou {@code null}.
+     */
+    public void setHistoricoArquivado(HistoricoArquivado historicoArquivado) {
+        this.historicoArquivado = historicoArquivado;
+        descartarHistorico();
+    }
+
+    /**
+     * Move para o arquivo os lançamentos quitados (com data até a última data de pagamento) que
+     * estão em memória, se forem pelo menos {@code minimo}. Os lançamentos do período em aberto
+     * continuam em memória, então os acumuladores da folha não mudam. O conteúdo do histórico
+     * também não muda, só onde ele está; por isso o empregado deve ser exclusivo de quem o arquiva,
+     * mas a sua versão continua a mesma.
+     *
+     * @param minimo       O número mínimo de lançamentos para valer a pena arquivar.
+     * @param arquivamento Quem grava os lançamentos no arquivo.
+     * @return {@code true} se algo foi arquivado.
+     * @throws IOException se os lançamentos não puderem ser gravados; o empregado fica como estava.
+     */
+    public boolean arquivarHistorico(int minimo, HistoricoArquivado.Arquivamento arquivamento) throws IOException {
+        if (ultimaDataPagamento == null) {
+            return false;
+        }
+        carregarHistorico();
+        long limite = ultimaDataPagamento.toEpochDay();
+        Lancamentos quitados = new Lancamentos(filtrar(cartoesPonto, limite, true), filtrar(taxasDeServico, limite, true),
+                filtrar(getVendasNaoArquivadas(), limite, true));
+        int quantidade = quitados.cartoes().size() + quitados.taxas().size() + quitados.vendas().size();
+        if (quantidade == 0 || quantidade < minimo) {
+            return false;
+        }
+        HistoricoArquivado novo = arquivamento.acrescentar(id, historicoArquivado, quitados);
+        PeriodoAberto periodo = periodoAberto;
+        instalarHistorico(new Lancamentos(filtrar(cartoesPonto, limite, false), filtrar(taxasDeServico, limite, false),
+                filtrar(getVendasNaoArquivadas(), limite, false)));
+        this.periodoAberto = periodo;
+        this.historicoArquivado = novo;
+        return true;
+    }
+
+    /**
+     * Traz de volta para a memória os lançamentos arquivados, antes de uma lista ser substituída.
+     */
+    protected final void desarquivar() {
+        HistoricoArquivado arquivado = historicoArquivado;
+        if (arquivado == null) {
+            return;
+        }
+        instalarHistorico(new Lancamentos(juntar(arquivado.lerCartoes(), cartoesPonto),
+                juntar(arquivado.lerTaxas(), taxasDeServico), juntar(arquivado.lerVendas(), getVendasNaoArquivadas())));
+        this.historicoArquivado = null;
+    }
+
+    /**
+     * Verifica se uma consulta a partir de um dia precisa dos lançamentos arquivados.
+     * @param dia O primeiro dia da consulta.
+     * @return {@code true} se houver lançamentos arquivados nesse dia ou depois.
+     */
+    protected boolean precisaDoArquivo(long dia) {
+        HistoricoArquivado arquivado = historicoArquivado;
+        return arquivado != null && dia <= arquivado.getUltimoDia();
+    }
+
+    /**
+     * Retorna o primeiro dia do período em aberto, isto é, o seguinte à última data de pagamento.
+     * @return O dia (dias desde 1970-01-01), ou {@link Long#MIN_VALUE} se o empregado nunca foi pago.
+     */
+    protected long primeiroDiaEmAberto() {
+        return ultimaDataPagamento == null ? Long.MIN_VALUE : ultimaDataPagamento.toEpochDay() + 1;
+    }
+
+    /**
+     * Concatena os lançamentos arquivados e os em memória.
+     */
+    protected static <T> List<T> juntar(List<T> arquivados, List<T> emMemoria) {
+        if (arquivados.isEmpty()) {
+            return emMemoria;
+        }
+        List<T> todos = new ArrayList<>(arquivados.size() + emMemoria.size());
+        todos.addAll(arquivados);
+        todos.addAll(emMemoria);
+        return PersistentVector.of(todos);
+    }
+
+    /**
+     * Separa os lançamentos quitados (até o limite) ou os em aberto (depois dele), mantendo a ordem.
+     */
+    private static <T extends Lancamento> List<T> filtrar(List<T> lancamentos, long limite, boolean quitados) {
+        List<T> filtrados = new ArrayList<>();
+        for (T lancamento : lancamentos) {
+            if ((lancamento.getDataEpochDay() <= limite) == quitados) {
+                filtrados.add(lancamento);
+            }
+        }
+        return filtrados;
+    }
+
+    /**
+     * Históricos em memória, entregues como {@link FonteHistorico}.
+     */
+    private record Lancamentos(List<CartaoDePonto> cartoes, List<TaxaDeServico> taxas,
+                               List<ResultadoVenda> vendas) implements FonteHistorico {
+        @Override
+        public List<CartaoDePonto> lerCartoes() { return cartoes; }
+
+        @Override
+        public List<TaxaDeServico> lerTaxas() { return taxas; }
+
+        @Override
+        public List<ResultadoVenda> lerVendas() { return vendas; }
+    }
+
+    /**
+     * Descarta os acumuladores e os índices derivados do histórico. As subclasses com outros
+     * históricos devem estender este método.
+     */
+    protected void descartarHistorico() {
+        this.periodoAberto = null;
+        this.indiceCartoes = null;
+        this.indiceTaxas = null;
+    }
+
+    /**
+     * Carrega o histórico pendente antes da serialização, já que a fonte não é serializada.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        carregarHistorico();
+        out.defaultWriteObject();
+    }
 
     /**
      * Retorna a data de contratação do empregado.
@@ -252,9 +669,67 @@ public abstract class Empregado implements Serializable {
 
     /**
      * Define a data do último pagamento recebido pelo empregado.
+     * Se a data avança além de todos os lançamentos do período em aberto, os acumuladores são
+     * simplesmente zerados; caso contrário, são recalculados na próxima consulta.
      * @param ultimaDataPagamento A nova data do último pagamento.
      */
-    public void setUltimaDataPagamento(LocalDate ultimaDataPagamento) { this.ultimaDataPagamento = ultimaDataPagamento; }
+    public void setUltimaDataPagamento(LocalDate ultimaDataPagamento) {
+        if (periodoAberto != null && ultimaDataPagamento != null && periodoAberto.comecaDepoisDe(ultimaDataPagamento)
+                && !periodoAberto.temLancamentoApos(ultimaDataPagamento)) {
+            periodoAberto = PeriodoAberto.apos(ultimaDataPagamento);
+        } else {
+            periodoAberto = null;
+        }
+        this.ultimaDataPagamento = ultimaDataPagamento;
+    }
+
+    /**
+     * Retorna os acumuladores dos lançamentos posteriores à última data de pagamento.
+     * Se tiverem sido descartados, são recalculados percorrendo os históricos.
+     * @return O {@link PeriodoAberto} do empregado.
+     */
+    public PeriodoAberto getPeriodoAberto() {
+        PeriodoAberto periodo = periodoAberto;
+        if (periodo == null) {
+            periodo = acumularLancamentos(PeriodoAberto.apos(ultimaDataPagamento));
+            periodoAberto = periodo;
+        }
+        return periodo;
+    }
+
+    /**
+     * Soma aos acumuladores os lançamentos do empregado. As subclasses com outros históricos
+     * (ex: vendas) devem estender este método.
+     * @param periodo Os acumuladores iniciais.
+     * @return Os acumuladores com os cartões de ponto e as taxas de serviço somados.
+     */
+    protected PeriodoAberto acumularLancamentos(PeriodoAberto periodo) {
+        long inicio = primeiroDiaEmAberto();
+        for (CartaoDePonto cartao : getCartoesPontoDesde(inicio)) {
+            periodo = periodo.comCartao(cartao);
+        }
+        for (TaxaDeServico taxa : getTaxasDeServicoDesde(inicio)) {
+            periodo = periodo.comTaxa(taxa);
+        }
+        return periodo;
+    }
+
+    /**
+     * Atualiza os acumuladores do período em aberto com um novo lançamento, se eles estiverem calculados.
+     * @param atualizacao A atualização a aplicar.
+     */
+    protected void acumular(UnaryOperator<PeriodoAberto> atualizacao) {
+        if (periodoAberto != null) {
+            periodoAberto = atualizacao.apply(periodoAberto);
+        }
+    }
+
+    /**
+     * Descarta os acumuladores do período em aberto, para que sejam recalculados na próxima consulta.
+     */
+    protected void descartarPeriodoAberto() {
+        periodoAberto = null;
+    }
 
     /**
      * Retorna a descrição da agenda de pagamento do empregado.
@@ -64,7 +64,7 @@ public class EmpregadoAssalariado extends Empregado {
     }
 
     /**
-     * Cria e retorna uma cópia profunda (clone) deste objeto EmpregadoAssalariado.
+     * Cria e retorna uma cópia (clone) deste objeto EmpregadoAssalariado.
      * <p>
      * A clonagem inclui todos os atributos da superclasse {@link Empregado}.
      * </p>
@@ -76,6 +76,8 @@ public class EmpregadoAssalariado extends Empregado {
         EmpregadoAssalariado clone = new EmpregadoAssalariado(
                 this.getId(), this.getNome(), this.getEndereco(), this.getSalario()
         );
+        // O construtor arredonda o salário; o clone mantém o valor exato
+        clone.salarioMensal = this.salarioMensal;
         // Chama o método da superclasse para copiar os atributos comuns (sindicato, pagamento, etc.)
         super.copiaAtributos(clone);
         return clone;
@@ -1,10 +1,10 @@
 package br.ufal.ic.p2.wepayu.models;
 
+import br.ufal.ic.p2.wepayu.utils.PersistentVector;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Classe que representa um Empregado do tipo Comissionado.
@@ -16,7 +16,8 @@ import java.util.stream.Collectors;
 public class EmpregadoComissionado extends Empregado {
     private BigDecimal salarioMensal;
     private BigDecimal comissao;
-    private List<ResultadoVenda> resultadosVendas = new ArrayList<>();
+    private PersistentVector<ResultadoVenda> resultadosVendas = PersistentVector.empty();
+    private volatile IndiceLancamentos indiceVendas;
 
     /**
      * Construtor padrão (sem argumentos).
@@ -41,10 +42,10 @@ public class EmpregadoComissionado extends Empregado {
     }
 
     /**
-     * Cria e retorna uma cópia profunda (clone) deste objeto EmpregadoComissionado.
+     * Cria e retorna uma cópia (clone) deste objeto EmpregadoComissionado.
      * <p>
-     * A clonagem inclui todos os atributos da superclasse e realiza uma cópia profunda
-     * da lista de {@link ResultadoVenda} para garantir que o clone seja totalmente independente.
+     * A clonagem inclui todos os atributos da superclasse. A lista de {@link ResultadoVenda},
+     * por ser imutável, é compartilhada com o original.
      * </p>
      *
      * @return Uma nova instância de {@link EmpregadoComissionado} que é uma cópia exata do original.
@@ -54,17 +55,13 @@ public class EmpregadoComissionado extends Empregado {
         EmpregadoComissionado clone = new EmpregadoComissionado(
                 this.getId(), this.getNome(), this.getEndereco(), this.getSalario(), this.getComissao()
         );
+        // O construtor arredonda o salário; o clone mantém o valor exato
+        clone.salarioMensal = this.salarioMensal;
         // Copia atributos da superclasse (sindicato, pagamento, etc.)
         super.copiaAtributos(clone);
 
-        // Realiza a cópia profunda da lista de resultados de vendas
-        if (this.getResultadosVendas() != null) {
-            clone.setResultadosVendas(
-                    this.getResultadosVendas().stream()
-                            .map(ResultadoVenda::clone)
-                            .collect(Collectors.toList())
-            );
-        }
+        clone.resultadosVendas = this.resultadosVendas;
+        clone.indiceVendas = this.indiceVendas;
         return clone;
     }
 
@@ -117,20 +114,149 @@ public class EmpregadoComissionado extends Empregado {
     }
 
     /**
-     * Retorna a lista de resultados de vendas associados a este empregado.
+     * Retorna a lista (imutável) de resultados de vendas associados a este empregado, incluindo os arquivados.
      *
      * @return Uma {@link List} de {@link ResultadoVenda}.
      */
     public List<ResultadoVenda> getResultadosVendas() {
+        carregarHistorico();
+        HistoricoArquivado arquivado = getHistoricoArquivado();
+        return arquivado == null ? resultadosVendas : juntar(arquivado.lerVendas(), resultadosVendas);
+    }
+
+    /**
+     * Retorna uma lista de resultados de vendas que contém, pelo menos, todas as vendas a partir de
+     * um dia; o arquivo só é lido se o dia não for posterior ao último dia arquivado.
+     *
+     * @param dia O primeiro dia de interesse (dias desde 1970-01-01).
+     * @return Uma {@link List} de {@link ResultadoVenda}, que deve ser filtrada por data.
+     */
+    public List<ResultadoVenda> getResultadosVendasDesde(long dia) {
+        carregarHistorico();
+        return precisaDoArquivo(dia) ? getResultadosVendas() : resultadosVendas;
+    }
+
+    /**
+     * Retorna os resultados de vendas que estão em memória, sem os arquivados.
+     *
+     * @return Uma {@link List} de {@link ResultadoVenda}.
+     */
+    public List<ResultadoVenda> getResultadosVendasNaoArquivados() {
+        carregarHistorico();
         return resultadosVendas;
     }
 
     /**
-     * Define a lista de resultados de vendas para este empregado.
+     * Define a lista de resultados de vendas para este empregado. Os lançamentos arquivados voltam para a memória.
      *
      * @param resultadosVendas A nova lista de {@link ResultadoVenda}.
      */
     public void setResultadosVendas(List<ResultadoVenda> resultadosVendas) {
-        this.resultadosVendas = resultadosVendas;
+        carregarHistorico();
+        desarquivar();
+        this.resultadosVendas = PersistentVector.of(resultadosVendas);
+        this.indiceVendas = null;
+        descartarPeriodoAberto();
+    }
+
+    /**
+     * Acrescenta um resultado de venda ao final do histórico deste empregado.
+     *
+     * @param venda O resultado de venda lançado.
+     */
+    public void adicionarResultadoVenda(ResultadoVenda venda) {
+        carregarHistorico();
+        this.resultadosVendas = this.resultadosVendas.plus(venda);
+        acumular(periodo -> periodo.comVenda(venda));
+        if (indiceVendas != null) {
+            indiceVendas = indiceVendas.mais(venda);
+        }
+    }
+
+    /**
+     * Retorna o índice por data de todos os resultados de vendas.
+     *
+     * @return O {@link IndiceLancamentos} das vendas.
+     */
+    public IndiceLancamentos getIndiceVendas() {
+        return getIndiceVendas(Long.MIN_VALUE);
+    }
+
+    /**
+     * Retorna um índice por data dos resultados de vendas válido para períodos que começam no dia
+     * informado ou depois. O índice das vendas em memória é construído na primeira consulta e mantido;
+     * se o período alcançar as vendas arquivadas, um índice completo é montado.
+     *
+     * @param dia O primeiro dia (dias desde 1970-01-01) dos períodos que serão consultados.
+     * @return O {@link IndiceLancamentos} das vendas.
+     */
+    public IndiceLancamentos getIndiceVendas(long dia) {
+        carregarHistorico();
+        if (precisaDoArquivo(dia)) {
+            return IndiceLancamentos.de(getResultadosVendas(), false);
+        }
+        IndiceLancamentos indice = indiceVendas;
+        if (indice == null) {
+            indice = IndiceLancamentos.de(resultadosVendas, false);
+            indiceVendas = indice;
+        }
+        return indice;
+    }
+
+    /**
+     * Soma aos acumuladores também os resultados de vendas.
+     *
+     * @param periodo Os acumuladores iniciais.
+     * @return Os acumuladores com cartões, taxas e vendas somados.
+     */
+    @Override
+    protected PeriodoAberto acumularLancamentos(PeriodoAberto periodo) {
+        periodo = super.acumularLancamentos(periodo);
+        for (ResultadoVenda venda : getResultadosVendasDesde(primeiroDiaEmAberto())) {
+            periodo = periodo.comVenda(venda);
+        }
+        return periodo;
+    }
+
+    /**
+     * Adia a leitura do histórico, incluindo os resultados de vendas.
+     *
+     * @param fonteHistorico De onde ler o histórico.
+     */
+    @Override
+    public void setFonteHistorico(FonteHistorico fonteHistorico) {
+        synchronized (this) {
+            this.resultadosVendas = PersistentVector.empty();
+            super.setFonteHistorico(fonteHistorico);
+        }
+    }
+
+    /**
+     * Lê também os resultados de vendas da fonte.
+     *
+     * @param fonte De onde ler o histórico.
+     */
+    @Override
+    protected void receberHistorico(FonteHistorico fonte) {
+        this.resultadosVendas = PersistentVector.of(fonte.lerVendas());
+    }
+
+    /**
+     * Retorna os resultados de vendas em memória.
+     *
+     * @return Os resultados de vendas não arquivados.
+     */
+    @Override
+    protected List<ResultadoVenda> getVendasNaoArquivadas() {
+        return resultadosVendas;
+    }
+
+    /**
+     * Descarta também o índice das vendas.
+     */
+    @Override
+    protected void descartarHistorico() {
+        super.descartarHistorico();
+        this.indiceVendas = null;
     }
 }
\ No newline at end of file
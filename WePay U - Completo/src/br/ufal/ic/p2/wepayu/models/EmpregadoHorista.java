@@ -66,7 +66,7 @@ public class EmpregadoHorista extends Empregado {
 
 
     /**
-     * Cria e retorna uma cópia profunda (clone) deste objeto EmpregadoHorista.
+     * Cria e retorna uma cópia (clone) deste objeto EmpregadoHorista.
      * <p>
      * A clonagem inclui todos os atributos da superclasse {@link Empregado}.
      * </p>
@@ -78,7 +78,10 @@ public class EmpregadoHorista extends Empregado {
         EmpregadoHorista clone = new EmpregadoHorista(
                 this.getId(), this.getNome(), this.getEndereco(), this.getSalario()
         );
+        // O construtor arredonda o salário; o clone mantém o valor exato
+        clone.salarioHora = this.salarioHora;
         super.copiaAtributos(clone);
+
         return clone;
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.List;
+
+/**
+ * Origem do histórico (cartões de ponto, taxas de serviço e vendas) de um empregado que ainda não
+ * foi lido, como um segmento do snapshot persistido.
+ * <p>
+ * Um empregado carregado com uma fonte ({@link Empregado#setFonteHistorico}) só lê o histórico na
+ * primeira vez que ele for consultado ou alterado. Os métodos podem ser chamados mais de uma vez
+ * (inclusive por clones do mesmo empregado) e de várias threads, e devem retornar sempre o mesmo conteúdo.
+ * </p>
+ */
+public interface FonteHistorico {
+
+    /**
+     * Lê os cartões de ponto.
+     *
+     * @return Os cartões de ponto, na ordem em que foram lançados.
+     */
+    List<CartaoDePonto> lerCartoes();
+
+    /**
+     * Lê as taxas de serviço.
+     *
+     * @return As taxas de serviço, na ordem em que foram lançadas.
+     */
+    List<TaxaDeServico> lerTaxas();
+
+    /**
+     * Lê os resultados de vendas (só há vendas para empregados comissionados).
+     *
+     * @return Os resultados de vendas, na ordem em que foram lançados.
+     */
+    List<ResultadoVenda> lerVendas();
+}
@@ -0,0 +1,45 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.IOException;
+
+/**
+ * Parte quitada do histórico de um empregado, guardada fora da memória (ver {@link Empregado#arquivarHistorico}).
+ * <p>
+ * Os lançamentos arquivados não mudam mais; além de lê-los ({@link FonteHistorico}), o arquivo
+ * informa o maior dia entre eles, para que consultas por períodos posteriores não precisem lê-los,
+ * e o primeiro dia de cartão de ponto, usado como data de contratação dos horistas.
+ * </p>
+ */
+public interface HistoricoArquivado extends FonteHistorico {
+
+    /**
+     * Guarda lançamentos quitados, acrescentando-os ao arquivo do empregado.
+     */
+    @FunctionalInterface
+    interface Arquivamento {
+        /**
+         * Acrescenta lançamentos ao arquivo de um empregado.
+         *
+         * @param id        O ID do empregado.
+         * @param anterior  O que já estava arquivado, ou {@code null} se nada estava.
+         * @param quitados  Os lançamentos a arquivar.
+         * @return O novo arquivo, com os lançamentos anteriores seguidos dos novos.
+         * @throws IOException se os lançamentos não puderem ser gravados.
+         */
+        HistoricoArquivado acrescentar(String id, HistoricoArquivado anterior, FonteHistorico quitados) throws IOException;
+    }
+
+    /**
+     * Retorna o maior dia entre os lançamentos arquivados.
+     *
+     * @return O dia, como número de dias desde 1970-01-01.
+     */
+    int getUltimoDia();
+
+    /**
+     * Retorna o menor dia entre os cartões de ponto arquivados.
+     *
+     * @return O dia, ou {@link Lancamento#SEM_DATA} se não houver cartões arquivados.
+     */
+    int getPrimeiroDiaCartao();
+}
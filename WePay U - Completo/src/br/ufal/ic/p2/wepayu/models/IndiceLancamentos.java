@@ -0,0 +1,259 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice de um histórico de lançamentos ({@link CartaoDePonto}, {@link ResultadoVenda} ou
+ * {@link TaxaDeServico}) ordenado por data, com somas acumuladas, para responder a consultas
+ * por intervalo de datas em O(log n).
+ * <p>
+ * Para cada lançamento, na ordem das datas, o índice guarda a soma acumulada das quantias até ele.
+ * Com a opção de divisão diária (usada para os cartões de ponto), guarda também o total do dia até
+ * o lançamento e as somas acumuladas das horas normais (até 8 por dia) e extras (o que passar de 8
+ * no dia), contando o dia do lançamento como se terminasse nele, além das somas acumuladas das horas
+ * divididas por cartão (até 8 em cada cartão), como na folha de pagamento. Como um intervalo de datas sempre
+ * começa e termina em uma troca de dia, a soma do intervalo é a diferença entre dois acumulados,
+ * encontrados por busca binária.
+ * </p>
+ * <p>
+ * O índice é imutável para quem o consulta. Lançamentos acrescentados em ordem de data (o caso
+ * comum) são anexados em O(1) amortizado, reaproveitando os vetores da versão anterior enquanto
+ * ninguém mais os tiver estendido; um lançamento fora de ordem exige reconstruir o índice
+ * ({@link #mais(Lancamento)} retorna {@code null}).
+ * </p>
+ */
+public final class IndiceLancamentos implements Serializable {
+    private static final BigDecimal LIMITE_HORAS_NORMAIS = new BigDecimal("8");
+
+    /**
+     * Vetores compartilhados pelas versões do índice. Cada versão enxerga apenas as suas
+     * {@code tamanho} primeiras posições; {@code usado} indica até onde os vetores já foram
+     * preenchidos por alguma versão.
+     */
+    private static final class Vetores implements Serializable {
+        int[] dias;
+        BigDecimal[] acumulado;
+        BigDecimal[] totalDoDia;
+        BigDecimal[] normais;
+        BigDecimal[] extras;
+        BigDecimal[] normaisPorCartao;
+        BigDecimal[] extrasPorCartao;
+        int usado;
+
+        Vetores(int capacidade, boolean dividirDias) {
+            dias = new int[capacidade];
+            acumulado = new BigDecimal[capacidade];
+            if (dividirDias) {
+                totalDoDia = new BigDecimal[capacidade];
+                normais = new BigDecimal[capacidade];
+                extras = new BigDecimal[capacidade];
+                normaisPorCartao = new BigDecimal[capacidade];
+                extrasPorCartao = new BigDecimal[capacidade];
+            }
+        }
+
+        Vetores copia(int tamanho, int capacidade) {
+            Vetores copia = new Vetores(0, false);
+            copia.dias = Arrays.copyOf(dias, capacidade);
+            copia.acumulado = Arrays.copyOf(acumulado, capacidade);
+            if (totalDoDia != null) {
+                copia.totalDoDia = Arrays.copyOf(totalDoDia, capacidade);
+                copia.normais = Arrays.copyOf(normais, capacidade);
+                copia.extras = Arrays.copyOf(extras, capacidade);
+                copia.normaisPorCartao = Arrays.copyOf(normaisPorCartao, capacidade);
+                copia.extrasPorCartao = Arrays.copyOf(extrasPorCartao, capacidade);
+            }
+            copia.usado = tamanho;
+            return copia;
+        }
+    }
+
+    private final Vetores vetores;
+    private final int tamanho;
+
+    private IndiceLancamentos(Vetores vetores, int tamanho) {
+        this.vetores = vetores;
+        this.tamanho = tamanho;
+    }
+
+    /**
+     * Constrói o índice de um histórico.
+     *
+     * @param lancamentos O histórico, em qualquer ordem.
+     * @param dividirDias {@code true} para manter também as horas normais e extras por dia (cartões de ponto).
+     * @return O índice.
+     */
+    public static IndiceLancamentos de(List<? extends Lancamento> lancamentos, boolean dividirDias) {
+        List<Lancamento> ordenados = new ArrayList<>(lancamentos);
+        // Ordenação estável: lançamentos do mesmo dia mantêm a ordem do histórico
+        ordenados.sort(Comparator.comparingInt(Lancamento::getDataEpochDay));
+        Vetores vetores = new Vetores(Math.max(ordenados.size(), 4), dividirDias);
+        IndiceLancamentos indice = new IndiceLancamentos(vetores, 0);
+        for (Lancamento lancamento : ordenados) {
+            indice = indice.mais(lancamento);
+        }
+        return indice;
+    }
+
+    /**
+     * Retorna um índice com mais um lançamento, se ele não for anterior ao último lançamento indexado.
+     *
+     * @param lancamento O lançamento acrescentado ao histórico.
+     * @return O novo índice, ou {@code null} se o lançamento estiver fora de ordem e o índice tiver de ser reconstruído.
+     */
+    public IndiceLancamentos mais(Lancamento lancamento) {
+        int dia = lancamento.getDataEpochDay();
+        if (tamanho > 0 && dia < vetores.dias[tamanho - 1]) {
+            return null;
+        }
+        synchronized (vetores) {
+            Vetores destino = vetores;
+            if (destino.usado != tamanho || tamanho == destino.dias.length) {
+                destino = vetores.copia(tamanho, Math.max(4, tamanho + (tamanho >> 1) + 1));
+            }
+            preencher(destino, dia, lancamento.getQuantia());
+            return new IndiceLancamentos(destino, tamanho + 1);
+        }
+    }
+
+    /**
+     * Soma as quantias dos lançamentos com data no intervalo {@code [inicio, fim)}.
+     *
+     * @param inicio O primeiro dia do intervalo (dias desde 1970-01-01).
+     * @param fim    O dia seguinte ao último dia do intervalo.
+     * @return A soma das quantias.
+     */
+    public BigDecimal soma(long inicio, long fim) {
+        return diferenca(vetores.acumulado, inicio, fim);
+    }
+
+    /**
+     * Soma as horas normais (até 8 por dia) dos lançamentos com data no intervalo {@code [inicio, fim)}.
+     * Disponível apenas nos índices com divisão diária.
+     *
+     * @param inicio O primeiro dia do intervalo (dias desde 1970-01-01).
+     * @param fim    O dia seguinte ao último dia do intervalo.
+     * @return O total de horas normais.
+     */
+    public BigDecimal horasNormais(long inicio, long fim) {
+        return diferenca(vetores.normais, inicio, fim);
+    }
+
+    /**
+     * Soma as horas extras (o que passar de 8 em cada dia) dos lançamentos com data no intervalo
+     * {@code [inicio, fim)}. Disponível apenas nos índices com divisão diária.
+     *
+     * @param inicio O primeiro dia do intervalo (dias desde 1970-01-01).
+     * @param fim    O dia seguinte ao último dia do intervalo.
+     * @return O total de horas extras.
+     */
+    public BigDecimal horasExtras(long inicio, long fim) {
+        return diferenca(vetores.extras, inicio, fim);
+    }
+
+    /**
+     * Soma as horas normais dos lançamentos com data no intervalo {@code [inicio, fim)}, limitando
+     * cada cartão (e não cada dia) a 8 horas, como no cálculo da folha de pagamento.
+     * Disponível apenas nos índices com divisão diária.
+     *
+     * @param inicio O primeiro dia do intervalo (dias desde 1970-01-01).
+     * @param fim    O dia seguinte ao último dia do intervalo.
+     * @return O total de horas normais.
+     */
+    public BigDecimal horasNormaisPorCartao(long inicio, long fim) {
+        return diferenca(vetores.normaisPorCartao, inicio, fim);
+    }
+
+    /**
+     * Soma as horas extras (o que passar de 8 em cada cartão) dos lançamentos com data no intervalo
+     * {@code [inicio, fim)}. Disponível apenas nos índices com divisão diária.
+     *
+     * @param inicio O primeiro dia do intervalo (dias desde 1970-01-01).
+     * @param fim    O dia seguinte ao último dia do intervalo.
+     * @return O total de horas extras.
+     */
+    public BigDecimal horasExtrasPorCartao(long inicio, long fim) {
+        return diferenca(vetores.extrasPorCartao, inicio, fim);
+    }
+
+    /**
+     * Retorna o dia do lançamento mais antigo.
+     *
+     * @return O dia (dias desde 1970-01-01), ou {@link Lancamento#SEM_DATA} se o índice estiver vazio.
+     */
+    public int primeiroDia() {
+        return tamanho == 0 ? Lancamento.SEM_DATA : vetores.dias[0];
+    }
+
+    /**
+     * Escreve a posição {@code tamanho} dos vetores a partir da posição anterior.
+     */
+    private void preencher(Vetores destino, int dia, BigDecimal quantia) {
+        int i = tamanho;
+        boolean mesmoDia = i > 0 && destino.dias[i - 1] == dia;
+        destino.dias[i] = dia;
+        destino.acumulado[i] = i == 0 ? quantia : destino.acumulado[i - 1].add(quantia);
+        if (destino.totalDoDia != null) {
+            BigDecimal normaisAntes = i == 0 ? BigDecimal.ZERO : destino.normais[i - 1];
+            BigDecimal extrasAntes = i == 0 ? BigDecimal.ZERO : destino.extras[i - 1];
+            BigDecimal totalDoDia = quantia;
+            if (mesmoDia) {
+                // Troca a contribuição parcial do dia pela contribuição com este lançamento
+                BigDecimal anterior = destino.totalDoDia[i - 1];
+                normaisAntes = normaisAntes.subtract(normais(anterior));
+                extrasAntes = extrasAntes.subtract(extras(anterior));
+                totalDoDia = anterior.add(quantia);
+            }
+            destino.totalDoDia[i] = totalDoDia;
+            destino.normais[i] = normaisAntes.add(normais(totalDoDia));
+            destino.extras[i] = extrasAntes.add(extras(totalDoDia));
+            destino.normaisPorCartao[i] = i == 0 ? normais(quantia) : destino.normaisPorCartao[i - 1].add(normais(quantia));
+            destino.extrasPorCartao[i] = i == 0 ? extras(quantia) : destino.extrasPorCartao[i - 1].add(extras(quantia));
+        }
+
+        destino.usado = i + 1;
+    }
+
+    private static BigDecimal normais(BigDecimal totalDoDia) {
+        return totalDoDia.compareTo(LIMITE_HORAS_NORMAIS) > 0 ? LIMITE_HORAS_NORMAIS : totalDoDia;
+    }
+
+    private static BigDecimal extras(BigDecimal totalDoDia) {
+        return totalDoDia.compareTo(LIMITE_HORAS_NORMAIS) > 0 ? totalDoDia.subtract(LIMITE_HORAS_NORMAIS) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Diferença entre os acumulados no fim do intervalo e antes do seu início.
+     */
+    private BigDecimal diferenca(BigDecimal[] acumulados, long inicio, long fim) {
+        int primeiro = primeiraPosicaoAPartirDe(inicio);
+        int limite = primeiraPosicaoAPartirDe(fim);
+        if (limite <= primeiro) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal total = acumulados[limite - 1];
+        return primeiro == 0 ? total : total.subtract(acumulados[primeiro - 1]);
+    }
+
+    /**
+     * Busca binária da primeira posição com data maior ou igual ao dia informado.
+     */
+    private int primeiraPosicaoAPartirDe(long dia) {
+        int[] dias = vetores.dias;
+        int baixo = 0, alto = tamanho;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (dias[meio] < dia) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+}
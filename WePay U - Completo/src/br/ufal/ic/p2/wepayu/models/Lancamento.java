@@ -0,0 +1,178 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Classe base dos lançamentos datados de um empregado ({@link CartaoDePonto}, {@link TaxaDeServico}
+ * e {@link ResultadoVenda}): uma data e uma quantia (horas ou valor).
+ * <p>
+ * Nota de implementação: para que os cálculos da folha, que percorrem todos os lançamentos a cada
+ * execução, não precisem converter texto, a data é armazenada como o número de dias desde
+ * 1970-01-01 ({@link LocalDate#toEpochDay()}) e a quantia como um {@code long} sem escala mais a
+ * sua escala decimal (ex: {@code 2.50} é guardado como {@code 250} e escala {@code 2}). Os acessores
+ * primitivos ({@link #getDataEpochDay()}, {@link #getQuantiaUnscaled()}, {@link #getQuantiaEscala()})
+ * não alocam objetos. Uma quantia que não cabe em um {@code long} é guardada como {@link BigDecimal}.
+ * </p>
+ * A classe é {@link Serializable} para permitir a sua persistência.
+ */
+public abstract class Lancamento implements Serializable {
+    /** Marca a ausência de data. */
+    public static final int SEM_DATA = Integer.MIN_VALUE;
+    private static final int SEM_QUANTIA = -1;
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("d/M/uuuu");
+
+    private int dataEpochDay = SEM_DATA;
+    private long quantiaUnscaled;
+    private int quantiaEscala = SEM_QUANTIA;
+    private BigDecimal quantiaExcedente;
+
+    /**
+     * Construtor padrão (sem argumentos), com data e quantia indefinidas.
+     */
+    protected Lancamento() {}
+
+    /**
+     * Construtor que inicializa o lançamento com data e quantia específicas.
+     *
+     * @param data    A data do lançamento.
+     * @param quantia A quantia (horas ou valor) do lançamento.
+     */
+    protected Lancamento(LocalDate data, BigDecimal quantia) {
+        setData(data);
+        setQuantia(quantia);
+    }
+
+    /**
+     * Retorna a data do lançamento.
+     *
+     * @return A data, ou {@code null} se não estiver definida.
+     */
+    public LocalDate getData() { return dataEpochDay == SEM_DATA ? null : LocalDate.ofEpochDay(dataEpochDay); }
+
+    /**
+     * Define a data do lançamento.
+     *
+     * @param data A data a ser definida.
+     */
+    public void setData(LocalDate data) { this.dataEpochDay = data == null ? SEM_DATA : Math.toIntExact(data.toEpochDay()); }
+
+    /**
+     * Retorna a data do lançamento como número de dias desde 1970-01-01, sem alocar objetos.
+     *
+     * @return O dia, ou {@link #SEM_DATA} se a data não estiver definida.
+     */
+    public int getDataEpochDay() { return dataEpochDay; }
+
+    /**
+     * Retorna a representação em String da data, no formato "d/M/uuuu".
+     *
+     * @return A data como String, ou {@code null} se não estiver definida.
+     */
+    public String getDataStr() { return dataEpochDay == SEM_DATA ? null : getData().format(FORMATO_DATA); }
+
+    /**
+     * Define a data a partir de uma String no formato "d/M/uuuu".
+     *
+     * @param dataStr A data como String a ser definida.
+     */
+    public void setDataStr(String dataStr) { setData(dataStr == null ? null : LocalDate.parse(dataStr, FORMATO_DATA)); }
+
+    /**
+     * Retorna os dígitos da quantia sem a vírgula decimal (ex: {@code 250} para {@code 2.50}).
+     * Só é significativo quando {@link #isQuantiaCompacta()} for verdadeiro.
+     *
+     * @return O valor sem escala.
+     */
+    public long getQuantiaUnscaled() { return quantiaUnscaled; }
+
+    /**
+     * Retorna a escala (número de casas decimais) da quantia.
+     *
+     * @return A escala, ou {@code -1} se a quantia não estiver definida.
+     */
+    public int getQuantiaEscala() { return quantiaEscala; }
+
+    /**
+     * Verifica se a quantia está definida e representada pelo par {@code long}/escala.
+     *
+     * @return {@code true} se os acessores primitivos da quantia puderem ser usados.
+     */
+    public boolean isQuantiaCompacta() { return quantiaEscala != SEM_QUANTIA && quantiaExcedente == null; }
+
+    /**
+     * Retorna a quantia do lançamento, com a mesma escala com que foi definida.
+     *
+     * @return A quantia, ou {@code null} se não estiver definida.
+     */
+    protected BigDecimal getQuantia() {
+        if (quantiaExcedente != null) return quantiaExcedente;
+        if (quantiaEscala == SEM_QUANTIA) return null;
+        return BigDecimal.valueOf(quantiaUnscaled, quantiaEscala);
+    }
+
+    /**
+     * Define a quantia do lançamento. Escalas negativas são normalizadas para zero,
+     * como na representação textual usada anteriormente.
+     *
+     * @param quantia A quantia a ser definida.
+     */
+    protected void setQuantia(BigDecimal quantia) {
+        this.quantiaExcedente = null;
+        this.quantiaUnscaled = 0;
+        if (quantia == null) {
+            this.quantiaEscala = SEM_QUANTIA;
+            return;
+        }
+        if (quantia.scale() < 0) {
+            quantia = quantia.setScale(0);
+        }
+        BigInteger unscaled = quantia.unscaledValue();
+        this.quantiaEscala = quantia.scale();
+        if (unscaled.bitLength() < Long.SIZE) {
+            this.quantiaUnscaled = unscaled.longValue();
+        } else {
+            this.quantiaExcedente = quantia;
+        }
+    }
+
+    /**
+     * Define a data e a quantia a partir das suas representações compactas, sem alocar objetos
+     * (usado na leitura do snapshot binário).
+     *
+     * @param dataEpochDay    O dia desde 1970-01-01, ou {@link #SEM_DATA}.
+     * @param quantiaUnscaled Os dígitos da quantia sem a vírgula decimal.
+     * @param quantiaEscala   A escala da quantia (não negativa), ou {@code -1} para quantia indefinida.
+     */
+    public void setCompacto(int dataEpochDay, long quantiaUnscaled, int quantiaEscala) {
+        if (quantiaEscala < SEM_QUANTIA) {
+            throw new IllegalArgumentException("Escala inválida: " + quantiaEscala);
+        }
+        this.dataEpochDay = dataEpochDay;
+        this.quantiaExcedente = null;
+        this.quantiaUnscaled = quantiaEscala == SEM_QUANTIA ? 0 : quantiaUnscaled;
+        this.quantiaEscala = quantiaEscala;
+    }
+
+    /**
+     * Retorna a representação em String da quantia, sem notação científica.
+     *
+     * @return A quantia como String, ou {@code null} se não estiver definida.
+     */
+    protected String getQuantiaStr() {
+        BigDecimal quantia = getQuantia();
+        return quantia == null ? null : quantia.toPlainString();
+    }
+
+    /**
+     * Define a quantia a partir de uma String, aceitando vírgula ou ponto como separador decimal.
+     *
+     * @param quantiaStr A quantia como String a ser definida.
+     */
+    protected void setQuantiaStr(String quantiaStr) {
+        setQuantia(quantiaStr == null ? null : new BigDecimal(quantiaStr.replace(",", ".")));
+    }
+}
@@ -0,0 +1,144 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Acumuladores do período de pagamento em aberto de um empregado: os totais dos lançamentos
+ * datados depois da sua última data de pagamento.
+ * <p>
+ * Mantém as horas normais e extras (cada cartão contribui com até 8 horas normais e o restante
+ * como extras), o total de vendas e o total de taxas de serviço, além do dia mais recente entre os
+ * lançamentos acumulados. Com isso, a folha obtém os totais do período sem percorrer o histórico,
+ * desde que o período pago termine depois desse dia (ver {@link #cobre(LocalDate)}).
+ * </p>
+ * A classe é imutável: cada lançamento produz um novo objeto, que pode ser compartilhado entre as
+ * cópias de um empregado guardadas para undo/redo.
+ */
+public final class PeriodoAberto implements Serializable {
+    private static final BigDecimal LIMITE_HORAS_NORMAIS = new BigDecimal("8");
+
+    private final int desde;
+    private final int ultimoDia;
+    private final BigDecimal horasNormais;
+    private final BigDecimal horasExtras;
+    private final BigDecimal vendas;
+    private final BigDecimal taxas;
+
+    private PeriodoAberto(int desde, int ultimoDia, BigDecimal horasNormais, BigDecimal horasExtras,
+                          BigDecimal vendas, BigDecimal taxas) {
+        this.desde = desde;
+        this.ultimoDia = ultimoDia;
+        this.horasNormais = horasNormais;
+        this.horasExtras = horasExtras;
+        this.vendas = vendas;
+        this.taxas = taxas;
+    }
+
+    /**
+     * Cria os acumuladores vazios de um período aberto logo após uma data de pagamento.
+     *
+     * @param ultimaDataPagamento A última data de pagamento, ou {@code null} se o empregado nunca foi pago.
+     * @return Os acumuladores zerados.
+     */
+    public static PeriodoAberto apos(LocalDate ultimaDataPagamento) {
+        int desde = ultimaDataPagamento == null ? Lancamento.SEM_DATA : Math.toIntExact(ultimaDataPagamento.toEpochDay());
+        return new PeriodoAberto(desde, Lancamento.SEM_DATA, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    /**
+     * Retorna os acumuladores com um cartão de ponto somado, se ele pertencer ao período.
+     *
+     * @param cartao O cartão de ponto.
+     * @return Os novos acumuladores, ou estes mesmos se o cartão for anterior ao período.
+     */
+    public PeriodoAberto comCartao(CartaoDePonto cartao) {
+        if (!pertence(cartao)) {
+            return this;
+        }
+        BigDecimal horas = cartao.getHoras();
+        BigDecimal normais = horasNormais;
+        BigDecimal extras = horasExtras;
+        if (horas.compareTo(LIMITE_HORAS_NORMAIS) > 0) {
+            normais = normais.add(LIMITE_HORAS_NORMAIS);
+            extras = extras.add(horas.subtract(LIMITE_HORAS_NORMAIS));
+        } else {
+            normais = normais.add(horas);
+        }
+        return new PeriodoAberto(desde, Math.max(ultimoDia, cartao.getDataEpochDay()), normais, extras, vendas, taxas);
+    }
+
+    /**
+     * Retorna os acumuladores com um resultado de venda somado, se ele pertencer ao período.
+     *
+     * @param venda O resultado de venda.
+     * @return Os novos acumuladores, ou estes mesmos se a venda for anterior ao período.
+     */
+    public PeriodoAberto comVenda(ResultadoVenda venda) {
+        if (!pertence(venda)) {
+            return this;
+        }
+        return new PeriodoAberto(desde, Math.max(ultimoDia, venda.getDataEpochDay()), horasNormais, horasExtras,
+                vendas.add(venda.getValor()), taxas);
+    }
+
+    /**
+     * Retorna os acumuladores com uma taxa de serviço somada, se ela pertencer ao período.
+     *
+     * @param taxa A taxa de serviço.
+     * @return Os novos acumuladores, ou estes mesmos se a taxa for anterior ao período.
+     */
+    public PeriodoAberto comTaxa(TaxaDeServico taxa) {
+        if (!pertence(taxa)) {
+            return this;
+        }
+        return new PeriodoAberto(desde, Math.max(ultimoDia, taxa.getDataEpochDay()), horasNormais, horasExtras,
+                vendas, taxas.add(taxa.getValor()));
+    }
+
+    /**
+     * Verifica se os acumuladores podem ser reaproveitados ao fechar o período em uma data, isto é,
+     * se todos os lançamentos acumulados são desta data ou anteriores e se o período começou
+     * depois de {@code ultimaDataPagamento}.
+     *
+     * @param fim A data de fim do período pago.
+     * @return {@code true} se os totais coincidem com os dos lançamentos entre a última data de pagamento e {@code fim}.
+     */
+    public boolean cobre(LocalDate fim) {
+        return desde != Lancamento.SEM_DATA && ultimoDia <= fim.toEpochDay();
+    }
+
+    /**
+     * Indica se o período começa depois da data informada (isto é, se nada da data ou anterior foi acumulado).
+     *
+     * @param data A data.
+     * @return {@code true} se a data for anterior ou igual ao início do período.
+     */
+    boolean comecaDepoisDe(LocalDate data) {
+        return data == null ? desde == Lancamento.SEM_DATA : desde <= data.toEpochDay();
+    }
+
+    /**
+     * Indica se há algum lançamento acumulado depois da data informada.
+     *
+     * @param data A data.
+     * @return {@code true} se o lançamento mais recente for posterior à data.
+     */
+    boolean temLancamentoApos(LocalDate data) {
+        return ultimoDia != Lancamento.SEM_DATA && (data == null || ultimoDia > data.toEpochDay());
+    }
+
+    public BigDecimal getHorasNormais() { return horasNormais; }
+
+    public BigDecimal getHorasExtras() { return horasExtras; }
+
+    public BigDecimal getVendas() { return vendas; }
+
+    public BigDecimal getTaxas() { return taxas; }
+
+    private boolean pertence(Lancamento lancamento) {
+        int dia = lancamento.getDataEpochDay();
+        return dia != Lancamento.SEM_DATA && dia > desde;
+    }
+}
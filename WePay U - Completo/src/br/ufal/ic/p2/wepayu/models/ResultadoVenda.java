@@ -3,21 +3,18 @@ package br.ufal.ic.p2.wepayu.models;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Modelo que representa o Resultado de uma Venda realizada por um empregado comissionado.
  * A classe armazena a data em que a venda ocorreu e o seu valor.
  * <p>
- * Nota de implementação: A data e o valor são armazenados internamente como Strings
- * para simplificar a serialização. Os métodos getters e setters fazem a conversão
+ * Nota de implementação: A data e o valor são armazenados internamente em forma primitiva
+ * (ver {@link Lancamento}). Os métodos getters e setters fazem a conversão
  * de/para os tipos {@link LocalDate} e {@link BigDecimal}.
  * </p>
  * A classe é {@link Serializable} para permitir a sua persistência.
  */
-public class ResultadoVenda implements Serializable {
-    private String dataStr;
-    private String valorStr;
+public class ResultadoVenda extends Lancamento {
 
     /**
      * Construtor padrão (sem argumentos).
@@ -32,76 +29,25 @@ public class ResultadoVenda implements Serializable {
      * @param valor O valor monetário da venda.
      */
     public ResultadoVenda(LocalDate data, BigDecimal valor) {
-        setData(data);
-        setValor(valor);
-    }
-
-    /**
-     * Retorna a data da venda.
-     * Converte a string interna para um objeto {@link LocalDate}.
-     *
-     * @return A data da venda, ou {@code null} se não estiver definida.
-     */
-    public LocalDate getData() {
-        if (dataStr == null) return null;
-        return LocalDate.parse(dataStr, DateTimeFormatter.ofPattern("d/M/uuuu"));
-    }
-
-    /**
-     * Define a data da venda.
-     * Formata o objeto {@link LocalDate} para uma string antes de armazenar.
-     *
-     * @param data A data a ser definida.
-     */
-    public void setData(LocalDate data) {
-        if (data != null) {
-            this.dataStr = data.format(DateTimeFormatter.ofPattern("d/M/uuuu"));
-        } else {
-            this.dataStr = null;
-        }
+        super(data, valor);
     }
 
     /**
      * Retorna o valor da venda.
-     * Converte a string interna para um objeto {@link BigDecimal}.
      *
      * @return O valor da venda, ou {@code null} se não estiver definido.
      */
     public BigDecimal getValor() {
-        if (valorStr == null) return null;
-        return new BigDecimal(valorStr.replace(",", "."));
+        return getQuantia();
     }
 
     /**
      * Define o valor da venda.
-     * Converte o objeto {@link BigDecimal} para uma string antes de armazenar.
      *
      * @param valor O valor a ser definido.
      */
     public void setValor(BigDecimal valor) {
-        if (valor != null) {
-            this.valorStr = valor.toPlainString();
-        } else {
-            this.valorStr = null;
-        }
-    }
-
-    /**
-     * Retorna a representação em String da data.
-     *
-     * @return A data como String.
-     */
-    public String getDataStr() {
-        return dataStr;
-    }
-
-    /**
-     * Define a data a partir de uma String.
-     *
-     * @param dataStr A data como String a ser definida.
-     */
-    public void setDataStr(String dataStr) {
-        this.dataStr = dataStr;
+        setQuantia(valor);
     }
 
     /**
@@ -110,7 +56,7 @@ public class ResultadoVenda implements Serializable {
      * @return O valor como String.
      */
     public String getValorStr() {
-        return valorStr;
+        return getQuantiaStr();
     }
 
     /**
@@ -119,7 +65,7 @@ public class ResultadoVenda implements Serializable {
      * @param valorStr O valor como String a ser definido.
      */
     public void setValorStr(String valorStr) {
-        this.valorStr = valorStr;
+        setQuantiaStr(valorStr);
     }
 
     /**
@@ -131,4 +77,4 @@ public class ResultadoVenda implements Serializable {
     public ResultadoVenda clone() {
         return new ResultadoVenda(this.getData(), this.getValor());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,637 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import br.ufal.ic.p2.wepayu.models.*;
+import br.ufal.ic.p2.wepayu.utils.SincronizacaoAgrupada;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal (registro de escrita antecipada) das alterações feitas nos empregados.
+ * <p>
+ * Em vez de regravar o arquivo XML inteiro a cada alteração, o {@link EmpregadoRepository}
+ * acrescenta ao final deste arquivo um registro compacto, de uma linha, descrevendo apenas
+ * o que mudou (um cartão lançado, um atributo alterado, um pagamento efetuado...).
+ * Na inicialização, os registros são reaplicados sobre o último snapshot salvo.
+ * </p>
+ * <p>
+ * Cada registro recebe um número de sequência crescente. O snapshot guarda o número do último
+ * registro que ele já contém, de modo que a reaplicação ignora os registros anteriores a ele
+ * (por exemplo, se o sistema parou entre a gravação do snapshot e a limpeza do journal).
+ * </p>
+ * <p>
+ * A escrita pode ser agrupada: os registros são acumulados em memória e descarregados no disco
+ * a cada {@code tamanhoLote} registros, ou quando o registro mais antigo do lote completa
+ * {@code prazoLote} milissegundos sem descarga (ou em {@link #sincronizar()}). Com lotes maiores
+ * que 1, uma alteração retorna antes de o seu registro chegar ao disco: uma queda pode perder os
+ * registros do último lote, isto é, no máximo {@code tamanhoLote - 1} registros, feitos nos últimos
+ * {@code prazoLote} milissegundos. Com o lote padrão (1), cada registro é descarregado (e, com
+ * {@code fsync}, sincronizado) antes de a alteração retornar. Quando {@code fsync} está
+ * ativo, cada descarga também força a gravação física do arquivo, fora do bloqueio do journal e
+ * agrupada entre threads ({@link SincronizacaoAgrupada}): descargas concorrentes esperam por uma
+ * única sincronização, que cobre todas elas.
+ * </p>
+ * <p>
+ * O snapshot de um checkpoint é gravado em segundo plano ({@link EscritorPersistencia}). A partir do
+ * {@link #checkpoint()}, os novos registros vão para um segundo arquivo ({@code <arquivo>.seguinte}),
+ * gravado (e sincronizado) como o principal, de modo que uma alteração feita enquanto o snapshot
+ * está sendo gravado é tão durável quanto as outras. Quando o snapshot do último checkpoint marcado
+ * fica pronto ({@link #concluirCheckpoint(long)}), o segundo arquivo é renomeado sobre o principal,
+ * cujos registros o snapshot já contém. Na reaplicação, o principal é lido antes do segundo: os
+ * números de sequência crescem de um para o outro, e os registros já contidos no snapshot são
+ * ignorados. Um registro do segundo arquivo vale sobre o estado do checkpoint, que o snapshot
+ * anterior mais o arquivo principal reproduzem; por isso, um checkpoint de um estado que os registros
+ * não expressam (como depois de um undo) deve esperar o seu snapshot antes de novas alterações
+ * (ver {@link EmpregadoRepository#salvarDados()}).
+ * O acesso ao estado do journal é sincronizado, pois a conclusão vem da thread de persistência.
+ * </p>
+ */
+public class EmpregadoJournal implements Closeable {
+    private static final String NULO = "\\N";
+
+    private final File arquivo;
+    private final File arquivoSeguinte;
+    private File destino;
+    private final boolean fsync;
+    private final int tamanhoLote;
+    private final long prazoLoteMillis;
+    private ScheduledExecutorService descargaPorPrazo;
+    private boolean descargaAgendada;
+    private IOException falhaDescarga;
+    private FileOutputStream stream;
+    private Writer writer;
+    private long sequencia;
+    private int pendentes;
+    private long checkpointPendente;
+    private long descarregadoAte;
+    private final SincronizacaoAgrupada sincronizacao = new SincronizacaoAgrupada(this::forcar);
+
+    /**
+     * Cria (ou reabre) o journal no arquivo informado.
+     *
+     * @param filename        O caminho do arquivo do journal.
+     * @param fsync           {@code true} para forçar a gravação física a cada descarga.
+     * @param tamanhoLote     A quantidade de registros acumulados antes de cada descarga (mínimo 1).
+     * @param prazoLoteMillis O tempo máximo que um lote incompleto espera pela descarga (mínimo 1).
+     */
+    public EmpregadoJournal(String filename, boolean fsync, int tamanhoLote, long prazoLoteMillis) {
+        this.arquivo = new File(filename);
+        this.arquivoSeguinte = new File(filename + ".seguinte");
+        this.destino = arquivo;
+        this.fsync = fsync;
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+        this.prazoLoteMillis = Math.max(1, prazoLoteMillis);
+    }
+
+    /**
+     * Retorna o número de sequência do último registro gravado (ou do último checkpoint).
+     *
+     * @return O número de sequência atual.
+     */
+    public synchronized long getSequencia() {
+        return sequencia;
+    }
+
+    /**
+     * Registra a criação ou alteração dos atributos de um empregado.
+     *
+     * @param empregado   O empregado, já com os novos valores.
+     * @param novoObjeto  {@code true} se o empregado passou a ser um novo objeto (criação ou troca de tipo),
+     *                    {@code false} se apenas os atributos do objeto existente mudaram.
+     * @throws IOException se o registro não puder ser gravado.
+     */
+    public void registrarEmpregado(Empregado empregado, boolean novoObjeto) throws IOException {
+        String comissao = empregado instanceof EmpregadoComissionado comissionado ? texto(comissionado.getComissao()) : null;
+        String metodo = null, banco = null, agencia = null, conta = null;
+        MetodoPagamento metodoPagamento = empregado.getMetodoPagamento();
+        if (metodoPagamento instanceof EmMaos) {
+            metodo = "emMaos";
+        } else if (metodoPagamento instanceof Correios) {
+            metodo = "correios";
+        } else if (metodoPagamento instanceof Banco b) {
+            metodo = "banco";
+            banco = b.getBanco();
+            agencia = b.getAgencia();
+            conta = b.getContaCorrente();
+        }
+        gravar("EMP", novoObjeto ? "novo" : "altera", empregado.getId(), empregado.getTipo(),
+                empregado.getNome(), empregado.getEndereco(), empregado.getAgendaPagamento(),
+                String.valueOf(empregado.isSindicalizado()), empregado.getIdSindicato(),
+                texto(empregado.getTaxaSindical()), texto(empregado.getSalario()), comissao,
+                metodo, banco, agencia, conta, texto(empregado.getUltimaDataPagamento()));
+    }
+
+    /**
+     * Registra a remoção de um empregado.
+     *
+     * @param id O ID do empregado removido.
+     * @throws IOException se o registro não puder ser gravado.
+     */
+    public void registrarRemocao(String id) throws IOException {
+        gravar("REMOVE", id);
+    }
+
+    /**
+     * Registra o lançamento de um cartão de ponto.
+     *
+     * @param id     O ID do empregado.
+     * @param cartao O cartão lançado.
+     * @throws IOException se o registro não puder ser gravado.
+     */
+    public void registrarCartao(String id, CartaoDePonto cartao) throws IOException {
+        gravar("CARTAO", id, texto(cartao.getData()), texto(cartao.getHoras()));
+    }
+
+    /**
+     * Registra o lançamento de um resultado de venda.
+     *
+     * @param id    O ID do empregado.
+     * @param venda A venda lançada.
+     * @throws IOException se o registro não puder ser gravado.
+     */
+    public void registrarVenda(String id, ResultadoVenda venda) throws IOException {
+        gravar("VENDA", id, texto(venda.getData()), texto(venda.getValor()));
+    }
+
+    /**
+     * Registra o lançamento de uma taxa de serviço.
+     *
+     * @param id   O ID do empregado (não o ID do sindicato).
+     * @param taxa A taxa lançada.
+     * @throws IOException se o registro não puder ser gravado.
+     */
+    public void registrarTaxa(String id, TaxaDeServico taxa) throws IOException {
+        gravar("TAXA", id, texto(taxa.getData()), texto(taxa.getValor()));
+    }
+
+    /**
+     * Registra que um conjunto de empregados foi pago em uma data (atualizando a última data de pagamento).
+     *
+     * @param data       A data do pagamento.
+     * @param empregados Os empregados pagos.
+     * @throws IOException se o registro não puder ser gravado.
+     */
+    public void registrarPagamento(LocalDate data, Collection<Empregado> empregados) throws IOException {
+        StringBuilder ids = new StringBuilder();
+        for (Empregado empregado : empregados) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(empregado.getId());
+        }
+        gravar("PAGO", texto(data), ids.toString());
+    }
+
+    /**
+     * Descarrega no disco os registros pendentes do lote atual e, com {@code fsync}, espera a
+     * sincronização que os cobre.
+     *
+     * @throws IOException se a gravação falhar.
+     */
+    public void sincronizar() throws IOException {
+        long marca = descarregar();
+        if (fsync) {
+            sincronizacao.aguardar(marca);
+        }
+    }
+
+    /**
+     * Retorna quantas sincronizações físicas do journal foram feitas; com descargas concorrentes,
+     * é menor que o número de descargas.
+     *
+     * @return O número de sincronizações.
+     */
+    public long getSincronizacoes() {
+        return sincronizacao.getSincronizacoes();
+    }
+
+    /**
+     * Marca um checkpoint: todo o conteúdo do journal passará a estar contido em um snapshot.
+     * O número de sequência avança, de modo que um estado capturado antes do checkpoint nunca é
+     * confundido com o estado persistido depois dele, e os próximos registros vão para o segundo
+     * arquivo até {@link #concluirCheckpoint(long)}. Se um checkpoint anterior ainda não foi
+     * concluído, o segundo arquivo continua recebendo os registros.
+     *
+     * @return O número de sequência que o snapshot deve registrar.
+     * @throws IOException se os registros pendentes não puderem ser gravados.
+     */
+    public long checkpoint() throws IOException {
+        sincronizar();
+        synchronized (this) {
+            sequencia++;
+            checkpointPendente = sequencia;
+            if (destino != arquivoSeguinte) {
+                close();
+                destino = arquivoSeguinte;
+            }
+            return sequencia;
+        }
+    }
+
+    /**
+     * Descarta os registros já contidos no snapshot com o número retornado por {@link #checkpoint()},
+     * depois que ele foi gravado. Se esse for o último checkpoint marcado, o segundo arquivo é
+     * renomeado sobre o principal, que volta a receber os registros; senão, só o arquivo principal,
+     * anterior ao primeiro checkpoint pendente, é apagado. Uma queda no meio deixa os dois arquivos,
+     * o que a reaplicação trata.
+     *
+     * @param sequenciaSnapshot O número de sequência registrado no snapshot gravado.
+     * @throws IOException se os arquivos não puderem ser gravados, renomeados ou apagados.
+     */
+    public synchronized void concluirCheckpoint(long sequenciaSnapshot) throws IOException {
+        if (sequenciaSnapshot != checkpointPendente) {
+            Files.deleteIfExists(arquivo.toPath());
+            return;
+        }
+        close();
+        if (arquivoSeguinte.exists()) {
+            Files.move(arquivoSeguinte.toPath(), arquivo.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.deleteIfExists(arquivo.toPath());
+        }
+        destino = arquivo;
+        checkpointPendente = 0;
+    }
+
+    /**
+     * Reaplica sobre o mapa de empregados todos os registros do journal posteriores ao snapshot: os
+     * do arquivo principal e, depois, os do segundo arquivo, se houver um (checkpoint interrompido).
+     * Nesse caso, os próximos registros continuam indo para o segundo arquivo, depois dos reaplicados.
+     * Um último registro incompleto (gravação interrompida) de cada arquivo é descartado.
+     *
+     * @param data               O mapa de empregados carregado do snapshot.
+     * @param sequenciaSnapshot  O número de sequência registrado no snapshot.
+     * @return Os IDs dos empregados alterados (ou removidos) pelos registros reaplicados.
+     * @throws IOException se algum arquivo não puder ser lido ou tiver um registro corrompido antes do último.
+     */
+    public synchronized Set<String> reproduzir(Map<String, Empregado> data, long sequenciaSnapshot) throws IOException {
+        close();
+        sequencia = Math.max(sequencia, sequenciaSnapshot);
+        Set<String> alterados = new HashSet<>();
+        reproduzir(arquivo, data, sequenciaSnapshot, alterados);
+        reproduzir(arquivoSeguinte, data, sequenciaSnapshot, alterados);
+        destino = arquivoSeguinte.exists() ? arquivoSeguinte : arquivo;
+        return alterados;
+    }
+
+    /**
+     * Reaplica os registros posteriores ao snapshot de um dos arquivos do journal.
+     */
+    private void reproduzir(File arquivo, Map<String, Empregado> data, long sequenciaSnapshot,
+                            Set<String> alterados) throws IOException {
+        if (!arquivo.exists() || arquivo.length() == 0) return;
+
+        long tamanhoValido = arquivo.length();
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) {
+            raf.seek(tamanhoValido - 1);
+            boolean terminaComQuebra = raf.read() == '\n';
+            List<String> linhas = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(arquivo), StandardCharsets.UTF_8))) {
+                String linha;
+                while ((linha = reader.readLine()) != null) {
+                    linhas.add(linha);
+                }
+            }
+            if (!terminaComQuebra && !linhas.isEmpty()) {
+                linhas.remove(linhas.size() - 1);
+            }
+            for (int i = 0; i < linhas.size(); i++) {
+                String[] campos = linhas.get(i).split("\t", -1);
+                long seq;
+                try {
+                    seq = Long.parseLong(campos[0]);
+                } catch (NumberFormatException e) {
+                    throw new IOException(arquivo + ", linha " + (i + 1) + ": registro do journal corrompido", e);
+                }
+                if (seq > sequenciaSnapshot) {
+                    aplicar(data, campos, alterados);
+                }
+                sequencia = Math.max(sequencia, seq);
+            }
+        }
+    }
+
+    /**
+     * Fecha o arquivo do journal, descarregando os registros pendentes.
+     *
+     * @throws IOException se a gravação falhar.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            descarregar();
+            if (fsync) {
+                stream.getChannel().force(false);
+            }
+            writer.close();
+            writer = null;
+            stream = null;
+        }
+    }
+
+    /**
+     * Aplica um único registro já separado em campos sobre o mapa de empregados,
+     * anotando os IDs dos empregados afetados.
+     */
+    private void aplicar(Map<String, Empregado> data, String[] campos, Set<String> alterados) {
+        String operacao = campos[1];
+        if (operacao.equals("PAGO")) {
+            if (!campos[3].isEmpty()) {
+                alterados.addAll(Arrays.asList(campos[3].split(",")));
+            }
+        } else if (operacao.equals("EMP")) {
+            alterados.add(valor(campos[3]));
+        } else if (campos.length > 2) {
+            alterados.add(valor(campos[2]));
+        }
+        switch (operacao) {
+            case "EMP" -> aplicarEmpregado(data, campos);
+            case "REMOVE" -> data.remove(valor(campos[2]));
+            case "CARTAO" -> {
+                Empregado empregado = data.get(valor(campos[2]));
+                if (empregado != null) {
+                    empregado.adicionarCartaoPonto(new CartaoDePonto(LocalDate.parse(campos[3]), new BigDecimal(campos[4])));
+                }
+            }
+            case "VENDA" -> {
+                if (data.get(valor(campos[2])) instanceof EmpregadoComissionado comissionado) {
+                    comissionado.adicionarResultadoVenda(new ResultadoVenda(LocalDate.parse(campos[3]), new BigDecimal(campos[4])));
+                }
+            }
+            case "TAXA" -> {
+                Empregado empregado = data.get(valor(campos[2]));
+                if (empregado != null) {
+                    empregado.adicionarTaxaDeServico(new TaxaDeServico(LocalDate.parse(campos[3]), new BigDecimal(campos[4])));
+                }
+            }
+            case "PAGO" -> {
+                LocalDate dataPagamento = LocalDate.parse(campos[2]);
+                if (!campos[3].isEmpty()) {
+                    for (String id : campos[3].split(",")) {
+                        Empregado empregado = data.get(id);
+                        if (empregado != null) empregado.setUltimaDataPagamento(dataPagamento);
+                    }
+                }
+            }
+            default -> {
+                // Registros desconhecidos são ignorados para manter compatibilidade com versões futuras.
+            }
+        }
+    }
+
+    /**
+     * Aplica um registro do tipo "EMP" (criação, troca de tipo ou alteração de atributos).
+     */
+    private void aplicarEmpregado(Map<String, Empregado> data, String[] campos) {
+        boolean novoObjeto = campos[2].equals("novo");
+        String id = valor(campos[3]);
+        String tipo = valor(campos[4]);
+        String nome = valor(campos[5]);
+        String endereco = valor(campos[6]);
+        BigDecimal salario = decimal(campos[11]);
+        BigDecimal comissao = decimal(campos[12]);
+
+        Empregado anterior = data.get(id);
+        Empregado empregado;
+        if (novoObjeto || anterior == null) {
+            empregado = switch (tipo) {
+                case "horista" -> new EmpregadoHorista(id, nome, endereco, salario);
+                case "assalariado" -> new EmpregadoAssalariado(id, nome, endereco, salario);
+                default -> new EmpregadoComissionado(id, nome, endereco, salario, comissao);
+            };
+            // A troca de tipo preserva cartões e taxas, mas não as vendas (ver EmpregadoManager.alterarTipo)
+            if (anterior != null) {
+                empregado.setCartoesPonto(anterior.getCartoesPonto());
+                empregado.setTaxasDeServico(anterior.getTaxasDeServico());
+            }
+        } else {
+            empregado = anterior;
+            empregado.setNome(nome);
+            empregado.setEndereco(endereco);
+            if (empregado instanceof EmpregadoHorista horista) {
+                horista.setSalarioHora(salario);
+            } else if (empregado instanceof EmpregadoAssalariado assalariado) {
+                assalariado.setSalarioMensal(salario);
+            } else if (empregado instanceof EmpregadoComissionado comissionado) {
+                comissionado.setSalarioMensal(salario);
+                comissionado.setComissao(comissao);
+            }
+        }
+
+        empregado.setAgendaPagamento(valor(campos[7]));
+        empregado.setSindicalizado(Boolean.parseBoolean(campos[8]));
+        empregado.setIdSindicato(valor(campos[9]));
+        empregado.setTaxaSindical(decimal(campos[10]));
+        String metodo = valor(campos[13]);
+        if ("correios".equals(metodo)) {
+            empregado.setMetodoPagamento(new Correios());
+        } else if ("banco".equals(metodo)) {
+            empregado.setMetodoPagamento(new Banco(valor(campos[14]), valor(campos[15]), valor(campos[16])));
+        } else {
+            empregado.setMetodoPagamento(new EmMaos());
+        }
+        String ultimaData = valor(campos[17]);
+        empregado.setUltimaDataPagamento(ultimaData == null ? null : LocalDate.parse(ultimaData));
+
+        data.put(id, empregado);
+    }
+
+    /**
+     * Grava um registro com o próximo número de sequência, descarregando o lote quando necessário.
+     * A sincronização física, se houver, é feita depois de liberar o journal.
+     */
+    private void gravar(String operacao, String... campos) throws IOException {
+        StringBuilder corpo = new StringBuilder(64);
+        corpo.append('\t').append(operacao);
+        for (String campo : campos) {
+            corpo.append('\t');
+            escapar(corpo, campo);
+        }
+        corpo.append('\n');
+
+        long marca = acrescentar(corpo);
+        if (marca > 0 && fsync) {
+            sincronizacao.aguardar(marca);
+        }
+    }
+
+    /**
+     * Acrescenta um registro ao arquivo atual, com o próximo número de sequência.
+     * O primeiro registro de um lote incompleto agenda a descarga dele pelo prazo.
+     *
+     * @return A marca a sincronizar, se o lote foi descarregado, ou {@code 0}.
+     * @throws IOException se a descarga por prazo de um lote anterior falhou.
+     */
+    private synchronized long acrescentar(CharSequence corpo) throws IOException {
+        if (falhaDescarga != null) {
+            IOException falha = falhaDescarga;
+            falhaDescarga = null;
+            throw new IOException("A descarga de um lote anterior do journal falhou", falha);
+        }
+        String linha = (sequencia + 1) + corpo.toString();
+        sequencia++;
+        abrir();
+        writer.write(linha);
+        if (++pendentes >= tamanhoLote) {
+            return descarregar();
+        }
+        agendarDescarga();
+        return 0;
+    }
+
+    /**
+     * Agenda a descarga do lote atual para daqui a {@code prazoLote} milissegundos, se ainda não
+     * houver uma agendada. A thread (daemon) de descarga só é criada no primeiro lote incompleto.
+     */
+    private void agendarDescarga() {
+        if (descargaAgendada) {
+            return;
+        }
+        if (descargaPorPrazo == null) {
+            descargaPorPrazo = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "wepayu-journal-lote");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        descargaAgendada = true;
+        descargaPorPrazo.schedule(this::descarregarPorPrazo, prazoLoteMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Descarga agendada por {@link #agendarDescarga()}: descarrega e, com {@code fsync}, sincroniza o
+     * lote. Uma falha é guardada e repassada ao próximo registro.
+     */
+    private void descarregarPorPrazo() {
+        synchronized (this) {
+            descargaAgendada = false;
+        }
+        try {
+            sincronizar();
+        } catch (IOException e) {
+            synchronized (this) {
+                falhaDescarga = e;
+            }
+        }
+    }
+
+    /**
+     * Descarrega os registros pendentes para o sistema operacional, sem sincronizar.
+     *
+     * @return A marca (número de sequência) até onde o arquivo foi descarregado.
+     */
+    private synchronized long descarregar() throws IOException {
+        if (writer != null && pendentes > 0) {
+            writer.flush();
+            pendentes = 0;
+            descarregadoAte = sequencia;
+        }
+        return descarregadoAte;
+    }
+
+    /**
+     * Sincronização física usada pela {@link SincronizacaoAgrupada}: força o arquivo atual, sem
+     * bloquear o journal durante a espera.
+     *
+     * @return A marca coberta pela sincronização.
+     */
+    private long forcar() throws IOException {
+        FileChannel canal;
+        long marca;
+        synchronized (this) {
+            marca = descarregadoAte;
+            if (stream == null) {
+                return marca;
+            }
+            canal = stream.getChannel();
+        }
+        try {
+            canal.force(false);
+        } catch (ClosedChannelException e) {
+            // Fechado por um checkpoint, que sincroniza o arquivo antes de fechá-lo
+        }
+        return marca;
+    }
+
+    /**
+     * Abre o arquivo atual do journal (o principal ou o segundo) para acréscimo, se ainda não estiver aberto.
+     */
+    private void abrir() throws IOException {
+        if (writer == null) {
+            stream = new FileOutputStream(destino, true);
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Escreve um campo no registro, escapando os caracteres que separam campos e registros.
+     */
+    private static void escapar(StringBuilder destino, String campo) {
+        if (campo == null) {
+            destino.append(NULO);
+            return;
+        }
+        for (int i = 0; i < campo.length(); i++) {
+            char c = campo.charAt(i);
+            switch (c) {
+                case '\\' -> destino.append("\\\\");
+                case '\t' -> destino.append("\\t");
+                case '\n' -> destino.append("\\n");
+                case '\r' -> destino.append("\\r");
+                default -> destino.append(c);
+            }
+        }
+    }
+
+    /**
+     * Desfaz o escape de um campo lido do journal.
+     */
+    private static String valor(String campo) {
+        if (campo.equals(NULO)) return null;
+        if (campo.indexOf('\\') < 0) return campo;
+        StringBuilder resultado = new StringBuilder(campo.length());
+        for (int i = 0; i < campo.length(); i++) {
+            char c = campo.charAt(i);
+            if (c == '\\' && i + 1 < campo.length()) {
+                char proximo = campo.charAt(++i);
+                resultado.append(switch (proximo) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> proximo;
+                });
+            } else {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+
+    private static BigDecimal decimal(String campo) {
+        String texto = valor(campo);
+        return texto == null ? null : new BigDecimal(texto);
+    }
+
+    private static String texto(BigDecimal valor) {
+        return valor == null ? null : valor.toPlainString();
+    }
+
+    private static String texto(LocalDate data) {
+        return data == null ? null : data.toString();
+    }
+}
@@ -1,12 +1,23 @@
 package br.ufal.ic.p2.wepayu.repository;
 
 import br.ufal.ic.p2.wepayu.ExceptionSistema.SistemaEncerradoException;
-import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.models.*;
+import br.ufal.ic.p2.wepayu.utils.ArquivoHistorico;
+import br.ufal.ic.p2.wepayu.utils.PersistentIntMap;
 import br.ufal.ic.p2.wepayu.utils.XmlUtils;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Repositório para gerenciar a coleção de objetos {@link Empregado}.
@@ -16,16 +27,80 @@ import java.util.stream.Collectors;
  *
  * Também implementa o padrão Memento para salvar e restaurar o estado da coleção de empregados,
  * facilitando funcionalidades como undo/redo.
+ *
+ * O estado é um {@link PersistentIntMap} imutável, indexado pelo ID numérico, cujos nós são
+ * compartilhados entre versões; assim, um Memento é só uma referência ao estado da época, e
+ * restaurá-lo é uma troca de referência. Os empregados de um estado capturado nunca são alterados:
+ * quem for modificar um empregado deve obtê-lo por {@link #getParaAlteracao(String)}, que o copia
+ * (copy-on-write) se ele ainda for compartilhado com algum Memento. A cópia é rasa, pois os
+ * históricos de cartões, taxas e vendas também são persistentes.
+ *
+ * Junto com os empregados, o estado ({@link EstadoEmpregados}) mantém índices secundários por
+ * identificação no sindicato, nome, tipo e agenda de pagamento. Eles são atualizados a cada
+ * {@link #add}, {@link #remove}, {@link #atualizar} e {@link #substituir}, e fazem parte do
+ * snapshot, então undo e redo os restauram junto com os empregados.
+ *
+ * A persistência é dividida em duas partes: um snapshot completo em XML, gravado apenas a partir de
+ * {@link #salvarDados()} (checkpoint) por uma thread em segundo plano ({@link EscritorPersistencia};
+ * {@link #aguardarPersistencia()} espera por ela), e um {@link EmpregadoJournal} ao qual cada alteração
+ * acrescenta um registro compacto. Por isso, toda modificação de empregados deve passar pelos
+ * métodos deste repositório ({@link #add}, {@link #remove}, {@link #atualizar}, {@link #adicionarCartao}...).
+ * O journal pode ser configurado pelas propriedades de sistema {@code wepayu.journal.fsync}
+ * (padrão {@code false}), {@code wepayu.journal.lote} (registros por descarga, padrão {@code 1}) e
+ * {@code wepayu.journal.lote.prazo} (milissegundos que um lote incompleto espera pela descarga,
+ * padrão {@code 5}). Com o lote padrão, uma alteração só retorna depois de registrada no disco; com
+ * lotes maiores, ela retorna antes, e uma queda pode perder as alterações do último lote (as feitas
+ * no último prazo).
+ *
+ * A cada checkpoint, os lançamentos já quitados dos empregados pagos desde o anterior são movidos
+ * para o {@link ArquivoHistorico} ({@link Empregado#arquivarHistorico}), se forem pelo menos
+ * {@code wepayu.arquivamento.minimo} (padrão {@code 64}; zero ou menos desliga o arquivamento).
+ * Isso não é uma alteração: o conteúdo e a versão dos empregados continuam os mesmos, e nada vai para o journal.
+ *
+ * O repositório e cada empregado têm uma versão ({@link #getVersao()}, {@link Empregado#getVersao()}),
+ * tirada de um contador que nunca repete valores: toda alteração do estado dá uma nova versão ao
+ * repositório e aos empregados alterados. Uma versão identifica, portanto, um conteúdo, e pode ser
+ * usada como chave de caches de resultados derivados (como os da folha de pagamento), que deixam de
+ * ser encontrados quando o que os originou muda. Um Memento guarda a versão do seu estado, que volta
+ * a valer quando ele é restaurado.
+ *
+ * Concorrência: há um único escritor por vez (os métodos que alteram o estado são sincronizados, e
+ * uma alteração que começa em {@link #getParaAlteracao} deve terminar sem soltar o monitor do
+ * repositório, que cada comando do {@code CommandHistoryManager} mantém do início ao fim) e qualquer
+ * número de leitores, que nunca esperam por ele. O escritor trabalha sobre um estado próprio e, ao
+ * fim de cada alteração, publica-o por uma referência volátil a um {@link Instantaneo} (estado e
+ * versão). As consultas ({@link #getById}, {@link #getAll}, {@link #getVersao}...) leem sempre o
+ * último instantâneo publicado, sem bloqueio. Os empregados publicados passam a ser compartilhados,
+ * como os de um Memento, e nunca mais são alterados no lugar; por isso um leitor nunca vê um
+ * empregado pela metade. Para várias consultas sobre o mesmo estado (ex: a versão e os empregados),
+ * use um único {@link #getInstantaneo()}.
  */
 public class EmpregadoRepository {
     private static EmpregadoRepository instance;
-    protected Map<String, Empregado> data = new LinkedHashMap<>();
+    private EstadoEmpregados estado = EstadoEmpregados.VAZIO;
+    private volatile Instantaneo publicado = new Instantaneo(EstadoEmpregados.VAZIO, 0);
+    private Set<Empregado> exclusivos = novoConjuntoExclusivos();
     private final String filename = "empregados.xml";
-    private boolean sistemaEncerrado = false;
+    private final SegmentosEmpregados segmentos = new SegmentosEmpregados("empregados.manifest", "empregados.segmentos",
+            Integer.getInteger("wepayu.segmentos.tamanho", 512));
+    private final Set<Integer> segmentosAlterados = new HashSet<>();
+    private boolean compararSegmentos = false;
+    private final EmpregadoJournal journal = new EmpregadoJournal("empregados.journal",
+            Boolean.getBoolean("wepayu.journal.fsync"), Integer.getInteger("wepayu.journal.lote", 1),
+            Long.getLong("wepayu.journal.lote.prazo", 5));
+    private final ArquivoHistorico arquivoHistorico = new ArquivoHistorico("empregados.arquivo");
+    private final int minimoArquivamento = Integer.getInteger("wepayu.arquivamento.minimo", 64);
+    private final Set<String> pagosDesdeCheckpoint = new HashSet<>();
+    private final EscritorPersistencia escritor = new EscritorPersistencia(segmentos, journal, arquivoHistorico,
+            Paths.get(filename));
+    private volatile IOException falhaPersistencia;
+    private volatile boolean sistemaEncerrado = false;
+    private long ultimaVersao = 0;
+    private long versao;
 
     /**
      * Construtor privado para implementar o padrão Singleton.
-     * Carrega os dados dos empregados do arquivo XML na inicialização.
+     * Carrega os dados dos empregados do arquivo XML na inicialização e reaplica o journal.
      */
     private EmpregadoRepository() {
         carregarDados();
@@ -57,14 +132,58 @@ public class EmpregadoRepository {
     }
 
     /**
-     * Salva os dados atuais no arquivo XML e marca o sistema como encerrado.
+     * Salva os dados atuais, espera que eles estejam no disco e marca o sistema como encerrado.
      * Após esta chamada, operações que modificam o estado podem ser bloqueadas.
      */
-    public void encerrarSistema() {
+    public synchronized void encerrarSistema() throws IOException {
         salvarDados();
+        aguardarPersistencia();
         this.sistemaEncerrado = true;
     }
 
+    /**
+     * Barreira de persistência: espera até que todos os checkpoints pedidos até agora tenham sido
+     * gravados pela thread de persistência.
+     *
+     * @throws IOException se o último checkpoint não pôde ser pedido (ver {@link #salvarDados()}) ou gravado.
+     */
+    public void aguardarPersistencia() throws IOException {
+        escritor.aguardar();
+        IOException falha = falhaPersistencia;
+        if (falha != null) {
+            throw new IOException("O último checkpoint não foi pedido", falha);
+        }
+    }
+
+    /**
+     * Retorna o atraso atual da persistência: há quanto tempo foi pedido o checkpoint mais antigo
+     * que ainda não está no disco.
+     *
+     * @return O atraso em nanossegundos, ou 0 se tudo o que foi pedido já foi gravado.
+     */
+    public long getAtrasoPersistenciaNanos() {
+        return escritor.getAtrasoNanos();
+    }
+
+    /**
+     * Retorna o tempo que o último checkpoint gravado levou entre o pedido e o fim da gravação.
+     *
+     * @return O atraso em nanossegundos, ou 0 se nenhum checkpoint foi gravado.
+     */
+    public long getUltimoAtrasoPersistenciaNanos() {
+        return escritor.getUltimoAtrasoNanos();
+    }
+
+    /**
+     * Retorna quantos checkpoints foram gravados no disco; pedidos feitos durante uma gravação são
+     * agrupados no seguinte, então este número pode ser menor que o de chamadas a {@link #salvarDados()}.
+     *
+     * @return O número de checkpoints gravados.
+     */
+    public long getCheckpointsGravados() {
+        return escritor.getCheckpointsGravados();
+    }
+
     /**
      * Define o estado operacional do sistema.
      *
@@ -76,108 +195,390 @@ public class EmpregadoRepository {
 
     /**
      * Classe interna que implementa o padrão Memento.
-     * Armazena um snapshot (cópia profunda) do estado do mapa de empregados em um determinado momento.
+     * Armazena um snapshot do estado do mapa de empregados em um determinado momento. Como o estado
+     * é imutável, o snapshot é apenas uma referência a ele, sem cópia dos empregados nem dos índices.
      */
     public static class Memento {
-        private final Map<String, Empregado> state;
+        private final EstadoEmpregados state;
+        private final long sequenciaJournal;
+        private final long versao;
 
         /**
-         * Construtor do Memento. Cria uma cópia profunda do estado fornecido
-         * para garantir que o estado salvo não seja modificado externamente.
+         * Construtor do Memento.
          *
-         * @param stateToSave O mapa de empregados a ser salvo.
+         * @param stateToSave      O estado (imutável) a ser salvo.
+         * @param sequenciaJournal O número de sequência do journal no momento da captura.
+         * @param versao           A versão do repositório no momento da captura.
          */
-        private Memento(Map<String, Empregado> stateToSave) {
-            this.state = stateToSave.entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().clone(), (e1, e2) -> e1, LinkedHashMap::new));
+        private Memento(EstadoEmpregados stateToSave, long sequenciaJournal, long versao) {
+            this.state = stateToSave;
+            this.sequenciaJournal = sequenciaJournal;
+            this.versao = versao;
         }
 
         /**
          * Retorna o estado que foi salvo neste Memento.
          *
-         * @return O mapa de empregados do estado salvo.
+         * @return Uma visão somente leitura do mapa de empregados do estado salvo.
          */
         public Map<String, Empregado> getSavedState() {
-            return this.state;
+            return this.state.getEmpregados().asMap();
         }
     }
 
+    /**
+     * Um estado publicado do repositório, com a sua versão. É imutável: as consultas feitas sobre um
+     * mesmo instantâneo são sempre coerentes entre si, mesmo que o repositório mude no meio delas.
+     */
+    public static final class Instantaneo {
+        private final EstadoEmpregados estado;
+        private final long versao;
+
+        private Instantaneo(EstadoEmpregados estado, long versao) {
+            this.estado = estado;
+            this.versao = versao;
+        }
+
+        /**
+         * Retorna a versão do repositório neste instantâneo.
+         *
+         * @return A versão.
+         */
+        public long getVersao() {
+            return versao;
+        }
+
+        /**
+         * Retorna todos os empregados deste instantâneo.
+         *
+         * @return Uma visão somente leitura, em ordem crescente de ID.
+         */
+        public Map<String, Empregado> getAll() {
+            return estado.getEmpregados().asMap();
+        }
+
+        /**
+         * Busca um empregado pelo seu ID.
+         *
+         * @param id O ID do empregado.
+         * @return O empregado, ou {@code null} se não estiver neste instantâneo.
+         */
+        public Empregado getById(String id) {
+            return estado.getEmpregados().get(PersistentIntMap.chaveDe(id));
+        }
+
+        /**
+         * Retorna os empregados das agendas que satisfazem o critério (ver {@link EmpregadoRepository#getByAgendas}).
+         *
+         * @param agendaPaga Indica, pela descrição, se a agenda paga na data de interesse.
+         * @return Os empregados dessas agendas, em ordem crescente de ID.
+         */
+        public List<Empregado> getByAgendas(Predicate<String> agendaPaga) {
+            return estado.comAgendas(agendaPaga);
+        }
+    }
+
+    /**
+     * Retorna o último estado publicado, sem bloqueio.
+     *
+     * @return O {@link Instantaneo} atual.
+     */
+    public Instantaneo getInstantaneo() {
+        return publicado;
+    }
+
     /**
      * Cria um Memento contendo um snapshot do estado atual do repositório.
+     * A partir daqui, todos os empregados do estado atual passam a ser compartilhados com o Memento.
      *
      * @return Um objeto {@link Memento} com o estado atual.
      */
-    public Memento createMemento() {
-        return new Memento(this.data);
+    public synchronized Memento createMemento() {
+        publicar();
+        return new Memento(this.estado, journal.getSequencia(), this.versao);
     }
 
     /**
      * Restaura o estado do repositório a partir de um Memento.
-     * O estado do Memento é copiado profundamente para o repositório.
+     * O estado do Memento passa a ser o estado atual, sem cópia; os seus empregados continuam
+     * compartilhados e só serão copiados quando alterados.
+     * <p>
+     * Se algo já foi persistido depois da captura do Memento (como ao desfazer um comando),
+     * o estado restaurado não pode ser expresso como um registro do journal, então é feito um checkpoint.
+     * </p>
      *
      * @param memento O {@link Memento} do qual o estado será restaurado.
      */
-    public void setMemento(Memento memento) {
-        this.data = memento.getSavedState().entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().clone(), (e1, e2) -> e1, LinkedHashMap::new));
+    public synchronized void setMemento(Memento memento) {
+        this.estado = memento.state;
+        this.versao = memento.versao;
+        publicar();
+        this.compararSegmentos = true;
+        if (memento.sequenciaJournal != journal.getSequencia()) {
+            salvarDados();
+        }
     }
 
     /**
-     * Carrega os dados dos empregados do arquivo XML {@code empregados.xml}.
-     * Se o arquivo não existir ou estiver vazio, inicializa um novo mapa.
+     * Carrega os dados dos empregados do snapshot segmentado (ou, se ainda não houver um, do
+     * arquivo XML único {@code empregados.xml}) e reaplica os registros do journal gravados depois dele.
+     * Os segmentos dos empregados alterados pelo journal ficam marcados para o próximo checkpoint.
+     * Se não houver snapshot, inicializa um estado vazio. Antes, espera os checkpoints pendentes.
+     *
+     * @throws IllegalStateException se o snapshot ou o journal não puderem ser lidos (arquivo truncado,
+     *                               corrompido ou malformado); os arquivos são mantidos como estão, em
+     *                               vez de o repositório começar vazio e sobrescrevê-los.
      */
-    public void carregarDados() {
-        this.data = XmlUtils.carregarDados(filename);
-        if (this.data == null) {
-            this.data = new LinkedHashMap<>();
+    public synchronized void carregarDados() {
+        Map<String, Empregado> carregados = new LinkedHashMap<>();
+        boolean segmentado = segmentos.existe();
+        Set<String> alteradosPeloJournal;
+        try {
+            aguardarPersistencia();
+            long sequenciaSnapshot;
+            if (segmentado) {
+                sequenciaSnapshot = segmentos.carregar(empregado -> carregados.put(empregado.getId(), empregado));
+            } else {
+                carregados.putAll(XmlUtils.carregarDados(filename));
+                sequenciaSnapshot = XmlUtils.carregarSequenciaJournal(filename);
+            }
+            alteradosPeloJournal = journal.reproduzir(carregados, sequenciaSnapshot);
+        } catch (Exception e) {
+            throw new IllegalStateException("Não foi possível carregar os dados dos empregados", e);
+        }
+
+        EstadoEmpregados novoEstado = EstadoEmpregados.VAZIO;
+        for (Empregado empregado : carregados.values()) {
+            empregado.setVersao(novaVersao());
+            novoEstado = novoEstado.com(empregado);
+        }
+        this.estado = novoEstado;
+        this.versao = novaVersao();
+        publicar();
+
+        this.segmentosAlterados.clear();
+        this.pagosDesdeCheckpoint.clear();
+        this.pagosDesdeCheckpoint.addAll(alteradosPeloJournal);
+        if (segmentado) {
+            segmentos.registrarCarregados(novoEstado.getEmpregados());
+            for (String id : alteradosPeloJournal) {
+                marcarSegmento(id);
+            }
         }
+        this.compararSegmentos = !segmentado;
     }
 
     /**
-     * Salva o mapa de empregados atual no arquivo XML {@code empregados.xml}.
+     * Pede um checkpoint à thread de persistência, sem esperar a gravação: ela regrava os segmentos
+     * do snapshot com empregados alterados desde o último checkpoint, troca o manifesto e, uma vez
+     * gravado o snapshot, esvazia o journal. O arquivo único {@code empregados.xml} de versões
+     * anteriores, se existir, é apagado depois do primeiro checkpoint segmentado, que já contém
+     * todos os empregados. Para esperar a gravação, use {@link #aguardarPersistencia()}.
+     * <p>
+     * Como o estado é gravado em outra thread, todos os empregados atuais passam a ser compartilhados
+     * com o checkpoint, como acontece com um Memento, e serão copiados antes de qualquer alteração.
+     * </p>
+     * Antes, o histórico quitado dos empregados pagos desde o último checkpoint é arquivado.
+     * <p>
+     * Se o estado foi substituído desde o último checkpoint (undo, {@link #zerarDados()},
+     * {@link #importar}), a gravação é esperada: os registros seguintes do journal valem sobre esse
+     * estado, que os registros anteriores não reproduzem.
+     * </p>
+     * Uma falha (no arquivamento, no journal ou na gravação esperada) não interrompe quem pediu o
+     * checkpoint: ela fica registrada e é repassada por {@link #aguardarPersistencia()} até o
+     * próximo checkpoint.
      */
-    public void salvarDados() {
-        XmlUtils.salvarDados(filename, this.data);
+    public synchronized void salvarDados() {
+        this.falhaPersistencia = null;
+        try {
+            arquivarQuitados();
+            long sequencia = journal.checkpoint();
+            publicar();
+            boolean estadoSubstituido = compararSegmentos;
+            escritor.agendar(this.estado.getEmpregados(), segmentosAlterados, compararSegmentos, sequencia);
+            segmentosAlterados.clear();
+            compararSegmentos = false;
+            if (estadoSubstituido) {
+                escritor.aguardar();
+            }
+        } catch (IOException e) {
+            registrarFalha(e);
+        }
     }
 
     /**
      * Limpa todos os dados de empregados, redefine o estado do sistema para aberto
      * e salva o estado vazio no arquivo XML.
      */
-    public void zerarDados() {
-        this.data.clear();
+    public synchronized void zerarDados() {
+        this.estado = EstadoEmpregados.VAZIO;
+        this.versao = novaVersao();
+        publicar();
+        this.compararSegmentos = true;
         this.sistemaEncerrado = false;
         salvarDados();
     }
 
+    /**
+     * Substitui todo o conteúdo do repositório pelos empregados informados, mantendo os seus IDs,
+     * e faz um checkpoint. Usado em cargas em massa, como as do
+     * {@link br.ufal.ic.p2.wepayu.utils.GeradorEmpresa}, que não passam pelo journal.
+     *
+     * @param empregados Os empregados, com IDs numéricos distintos.
+     */
+    public synchronized void importar(Iterable<Empregado> empregados) {
+        EstadoEmpregados novoEstado = EstadoEmpregados.VAZIO;
+        for (Empregado empregado : empregados) {
+            empregado.setVersao(novaVersao());
+            novoEstado = novoEstado.com(empregado);
+        }
+        this.estado = novoEstado;
+        this.versao = novaVersao();
+        publicar();
+        this.compararSegmentos = true;
+        salvarDados();
+    }
+
+    /**
+     * Retorna a versão do estado atual do repositório, que muda a cada alteração e volta ao valor
+     * da época quando um Memento é restaurado.
+     *
+     * @return A versão atual.
+     */
+    public long getVersao() {
+        return publicado.versao;
+    }
+
     /**
      * Retorna todos os empregados cadastrados.
      *
-     * @return Um {@link Map} contendo todos os empregados.
+     * @return Uma visão somente leitura do estado atual, em ordem crescente de ID.
      */
     public Map<String, Empregado> getAll() {
-        return this.data;
+        return publicado.getAll();
     }
 
     /**
      * Busca um empregado pelo seu ID.
+     * O objeto retornado pode estar compartilhado com snapshots e não deve ser modificado;
+     * para alterações, use {@link #getParaAlteracao(String)}.
      *
      * @param id O ID do empregado a ser buscado.
      * @return O objeto {@link Empregado} correspondente, ou {@code null} se não for encontrado.
      */
     public Empregado getById(String id) {
-        return this.data.get(id);
+        return publicado.getById(id);
+    }
+
+    /**
+     * Busca o empregado com a identificação de sindicato informada, pelo índice secundário.
+     * Se houver mais de um, retorna o de menor ID.
+     *
+     * @param idSindicato A identificação no sindicato.
+     * @return O empregado, ou {@code null} se nenhum tiver essa identificação.
+     */
+    public Empregado getByIdSindicato(String idSindicato) {
+        List<Empregado> encontrados = publicado.estado.comIdSindicato(idSindicato);
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    /**
+     * Verifica se uma identificação de sindicato já está em uso por algum empregado além do informado.
+     *
+     * @param idSindicato A identificação no sindicato.
+     * @param excetoId    O ID do empregado a desconsiderar (o próprio empregado sendo alterado).
+     * @return {@code true} se outro empregado usar essa identificação.
+     */
+    public boolean isIdSindicatoEmUso(String idSindicato, String excetoId) {
+        for (Empregado empregado : publicado.estado.comIdSindicato(idSindicato)) {
+            if (!empregado.getId().equals(excetoId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Busca os empregados com o nome informado, pelo índice secundário.
+     *
+     * @param nome O nome.
+     * @return Os empregados, ordenados pelo ID como texto (ex: "10" antes de "2"), possivelmente vazia.
+     */
+    public List<Empregado> getByNome(String nome) {
+        return publicado.estado.comNome(nome);
+    }
+
+    /**
+     * Busca os empregados de um tipo, pelo índice secundário.
+     *
+     * @param tipo O tipo ("horista", "assalariado" ou "comissionado").
+     * @return Os empregados, em ordem crescente de ID, possivelmente vazia.
+     */
+    public List<Empregado> getByTipo(String tipo) {
+        return publicado.estado.comTipo(tipo);
+    }
+
+    /**
+     * Busca os empregados com uma agenda de pagamento, pelo índice secundário.
+     *
+     * @param agenda A descrição da agenda (ex: "semanal 5").
+     * @return Os empregados, em ordem crescente de ID, possivelmente vazia.
+     */
+    public List<Empregado> getByAgenda(String agenda) {
+        return publicado.estado.comAgenda(agenda);
+    }
+
+    /**
+     * Consulta o calendário de pagamentos: retorna os empregados de todas as agendas que satisfazem
+     * o critério, visitando só os conjuntos dessas agendas no índice secundário. O critério é
+     * avaliado uma vez por agenda em uso, e não uma vez por empregado.
+     *
+     * @param agendaPaga Indica, pela descrição, se a agenda paga na data de interesse.
+     * @return Os empregados dessas agendas, em ordem crescente de ID.
+     */
+    public List<Empregado> getByAgendas(Predicate<String> agendaPaga) {
+        return publicado.getByAgendas(agendaPaga);
+    }
+
+    /**
+     * Busca um empregado pelo seu ID para alterá-lo.
+     * Se a versão atual do empregado estiver compartilhada com algum Memento, ela é copiada e a
+     * cópia passa a fazer parte do estado atual (copy-on-write); as alterações feitas no objeto
+     * retornado devem ser registradas depois com {@link #atualizar(Empregado)}.
+     * Como o empregado será alterado, ele e o repositório recebem uma nova versão. A cópia só é
+     * publicada para os leitores quando a alteração for registrada, desde que quem a alterar mantenha
+     * o monitor do repositório até lá (como fazem os comandos do {@code CommandHistoryManager}): senão,
+     * outro escritor pode publicá-la pela metade.
+     *
+     * @param id O ID do empregado a ser buscado.
+     * @return A versão exclusiva do estado atual, ou {@code null} se o empregado não for encontrado.
+     */
+    public synchronized Empregado getParaAlteracao(String id) {
+        Empregado empregado = buscar(id);
+        if (empregado == null) {
+            return null;
+        }
+        if (exclusivos.contains(empregado)) {
+            marcarAlteracao(empregado);
+            return empregado;
+        }
+        Empregado copia = empregado.clone();
+        instalar(copia);
+        return copia;
     }
 
     /**
      * Adiciona um novo empregado ao repositório, atribuindo-lhe um novo ID sequencial.
      *
      * @param empregado O objeto {@link Empregado} a ser adicionado.
+     * @throws IOException se a alteração não puder ser registrada no journal.
      */
-    public void add(Empregado empregado) {
+    public synchronized void add(Empregado empregado) throws IOException {
         String nextId = String.valueOf(getNextId());
         empregado.setId(nextId);
-        this.data.put(empregado.getId(), empregado);
+        instalar(empregado);
+        journal.registrarEmpregado(empregado, true);
+        publicar();
     }
 
     /**
@@ -185,15 +586,216 @@ public class EmpregadoRepository {
      *
      * @param id O ID do empregado a ser removido.
      * @return {@code true} se o empregado foi removido com sucesso, {@code false} caso contrário.
+     * @throws IOException se a alteração não puder ser registrada no journal.
      */
-    public boolean remove(String id) {
-        if (this.data.containsKey(id)) {
-            this.data.remove(id);
+    public synchronized boolean remove(String id) throws IOException {
+        if (buscar(id) != null) {
+            this.estado = this.estado.sem(PersistentIntMap.chaveDe(id));
+            this.versao = novaVersao();
+            marcarSegmento(id);
+            journal.registrarRemocao(id);
+            publicar();
             return true;
         }
         return false;
     }
 
+    /**
+     * Registra a alteração de atributos (nome, salário, sindicato, método de pagamento...)
+     * de um empregado já existente no repositório, reindexando-o.
+     *
+     * @param empregado O empregado alterado, obtido por {@link #getParaAlteracao(String)}.
+     * @throws IOException se a alteração não puder ser registrada no journal.
+     */
+    public synchronized void atualizar(Empregado empregado) throws IOException {
+        this.estado = this.estado.com(empregado);
+        marcarAlteracao(empregado);
+        journal.registrarEmpregado(empregado, false);
+        publicar();
+    }
+
+    /**
+     * Substitui um empregado por um novo objeto com o mesmo ID (usado na troca de tipo).
+     *
+     * @param empregado O novo objeto do empregado.
+     * @throws IOException se a alteração não puder ser registrada no journal.
+     */
+    public synchronized void substituir(Empregado empregado) throws IOException {
+        instalar(empregado);
+        journal.registrarEmpregado(empregado, true);
+        publicar();
+    }
+
+    /**
+     * Adiciona um cartão de ponto ao histórico de um empregado.
+     *
+     * @param empregado O empregado.
+     * @param cartao    O cartão de ponto lançado.
+     * @throws IOException se a alteração não puder ser registrada no journal.
+     */
+    public synchronized void adicionarCartao(Empregado empregado, CartaoDePonto cartao) throws IOException {
+        getParaAlteracao(empregado.getId()).adicionarCartaoPonto(cartao);
+        journal.registrarCartao(empregado.getId(), cartao);
+        publicar();
+    }
+
+    /**
+     * Adiciona um resultado de venda ao histórico de um empregado comissionado.
+     *
+     * @param empregado O empregado comissionado.
+     * @param venda     O resultado de venda lançado.
+     * @throws IOException se a alteração não puder ser registrada no journal.
+     */
+    public synchronized void adicionarVenda(EmpregadoComissionado empregado, ResultadoVenda venda) throws IOException {
+        ((EmpregadoComissionado) getParaAlteracao(empregado.getId())).adicionarResultadoVenda(venda);
+        journal.registrarVenda(empregado.getId(), venda);
+        publicar();
+    }
+
+    /**
+     * Adiciona uma taxa de serviço ao histórico de um empregado sindicalizado.
+     *
+     * @param empregado O empregado.
+     * @param taxa      A taxa de serviço lançada.
+     * @throws IOException se a alteração não puder ser registrada no journal.
+     */
+    public synchronized void adicionarTaxa(Empregado empregado, TaxaDeServico taxa) throws IOException {
+        getParaAlteracao(empregado.getId()).adicionarTaxaDeServico(taxa);
+        journal.registrarTaxa(empregado.getId(), taxa);
+        publicar();
+    }
+
+    /**
+     * Registra o pagamento de um conjunto de empregados, atualizando a sua última data de pagamento.
+     *
+     * @param data       A data do pagamento.
+     * @param empregados Os empregados pagos.
+     * @throws IOException se a alteração não puder ser registrada no journal.
+     */
+    public synchronized void registrarPagamento(LocalDate data, Collection<Empregado> empregados) throws IOException {
+        for (Empregado empregado : empregados) {
+            getParaAlteracao(empregado.getId()).setUltimaDataPagamento(data);
+            pagosDesdeCheckpoint.add(empregado.getId());
+        }
+        journal.registrarPagamento(data, empregados);
+        publicar();
+    }
+
+    /**
+     * Arquiva o histórico quitado dos empregados pagos desde o último checkpoint. Um empregado
+     * compartilhado com algum Memento é copiado antes, e a cópia toma o seu lugar com a mesma
+     * versão, já que o conteúdo não muda; o segmento é marcado para ser regravado com a referência
+     * ao arquivo. Se um arquivamento falhar, o empregado fica como estava, e a falha é registrada.
+     */
+    private void arquivarQuitados() {
+        if (minimoArquivamento > 0) {
+            for (String id : pagosDesdeCheckpoint) {
+                Empregado atual = buscar(id);
+                if (atual == null) {
+                    continue;
+                }
+                Empregado candidato = exclusivos.contains(atual) ? atual : atual.clone();
+                try {
+                    if (candidato.arquivarHistorico(minimoArquivamento, arquivoHistorico)) {
+                        candidato.setVersao(atual.getVersao());
+                        this.estado = this.estado.com(candidato);
+                        this.exclusivos.add(candidato);
+                        marcarSegmento(id);
+                    }
+                } catch (IOException e) {
+                    registrarFalha(e);
+                }
+            }
+        }
+        pagosDesdeCheckpoint.clear();
+    }
+
+    /**
+     * Registra uma falha de persistência para {@link #aguardarPersistencia()}; falhas seguintes no
+     * mesmo checkpoint são anexadas à primeira.
+     */
+    private void registrarFalha(IOException falha) {
+        if (this.falhaPersistencia == null) {
+            this.falhaPersistencia = falha;
+        } else {
+            this.falhaPersistencia.addSuppressed(falha);
+        }
+    }
+
+    /**
+     * Busca um empregado no estado do escritor, que pode ter alterações ainda não publicadas.
+     *
+     * @param id O ID do empregado.
+     * @return O empregado, ou {@code null} se não for encontrado.
+     */
+    private Empregado buscar(String id) {
+        return this.estado.getEmpregados().get(PersistentIntMap.chaveDe(id));
+    }
+
+    /**
+     * Publica o estado do escritor para os leitores. A partir daqui, os empregados dele passam a
+     * ser compartilhados e serão copiados antes de qualquer alteração.
+     */
+    private void publicar() {
+        this.publicado = new Instantaneo(this.estado, this.versao);
+        if (!this.exclusivos.isEmpty()) {
+            this.exclusivos = novoConjuntoExclusivos();
+        }
+    }
+
+    /**
+     * Coloca um empregado no estado atual e o marca como exclusivo dele,
+     * isto é, ainda não capturado por nenhum Memento.
+     *
+     * @param empregado O empregado a ser instalado, indexado pelo seu ID.
+     */
+    private void instalar(Empregado empregado) {
+        this.estado = this.estado.com(empregado);
+        this.exclusivos.add(empregado);
+        marcarAlteracao(empregado);
+    }
+
+    /**
+     * Dá uma nova versão a um empregado alterado e ao repositório.
+     *
+     * @param empregado O empregado alterado, exclusivo do estado atual.
+     */
+    private void marcarAlteracao(Empregado empregado) {
+        long nova = novaVersao();
+        empregado.setVersao(nova);
+        this.versao = nova;
+        marcarSegmento(empregado.getId());
+    }
+
+    /**
+     * Marca o segmento do snapshot que contém um empregado para ser regravado no próximo checkpoint.
+     *
+     * @param id O ID do empregado alterado.
+     */
+    private void marcarSegmento(String id) {
+        if (id != null) {
+            segmentosAlterados.add(segmentos.segmentoDe(id));
+        }
+    }
+
+    /**
+     * Retorna uma versão ainda não usada por nenhum estado nem empregado.
+     *
+     * @return A nova versão.
+     */
+    private long novaVersao() {
+        return ++ultimaVersao;
+    }
+
+    /**
+     * Cria o conjunto (por identidade) dos empregados que pertencem apenas ao estado atual.
+     *
+     * @return Um conjunto vazio.
+     */
+    private static Set<Empregado> novoConjuntoExclusivos() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
     /**
      * Calcula o próximo ID disponível para um novo empregado.
      * O cálculo é feito encontrando o maior ID existente e incrementando-o.
@@ -201,9 +803,10 @@ public class EmpregadoRepository {
      * @return O próximo ID sequencial como um inteiro.
      */
     private int getNextId() {
-        if (data.isEmpty()) {
+        PersistentIntMap<Empregado> empregados = estado.getEmpregados();
+        if (empregados.isEmpty()) {
             return 1;
         }
-        return data.keySet().stream().mapToInt(Integer::parseInt).max().getAsInt() + 1;
+        return empregados.ultimaChave() + 1;
     }
 }
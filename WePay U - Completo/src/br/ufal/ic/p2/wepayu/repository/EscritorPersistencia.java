@@ -0,0 +1,213 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.utils.ArquivoHistorico;
+import br.ufal.ic.p2.wepayu.utils.PersistentIntMap;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Thread de persistência que grava, em segundo plano, os checkpoints pedidos pelo {@link EmpregadoRepository}.
+ * <p>
+ * O repositório apenas agenda o checkpoint ({@link #agendar}), passando o estado imutável da
+ * época; a gravação dos segmentos, a troca do manifesto e a limpeza do journal acontecem nesta
+ * thread, fora do caminho de quem alterou os dados. Pedidos que chegam enquanto um checkpoint está
+ * sendo gravado são agrupados em um só: vale o estado mais recente, e os segmentos marcados como
+ * alterados em cada pedido se somam.
+ * </p>
+ * <p>
+ * Enquanto um checkpoint não estiver no disco, o {@link EmpregadoJournal} grava os registros
+ * posteriores a ele em um segundo arquivo (ver {@link EmpregadoJournal#checkpoint()}), de modo que
+ * o que está no disco é sempre um estado consistente. {@link #aguardar()} é a barreira que espera todos os
+ * checkpoints pedidos até o momento; ela também é chamada ao encerrar a JVM.
+ * </p>
+ * Se um checkpoint falhar, o erro é repassado por {@link #aguardar()} até que um checkpoint seguinte
+ * seja gravado; o próximo compara todos os segmentos, e os registros continuam no segundo arquivo
+ * do journal até lá.
+ */
+class EscritorPersistencia {
+
+    /**
+     * Um checkpoint pedido e ainda não gravado.
+     *
+     * @param empregados       O estado (imutável) a gravar.
+     * @param alterados        Os segmentos alterados desde o último checkpoint.
+     * @param compararTodos    Se as assinaturas de todos os segmentos devem ser comparadas.
+     * @param sequenciaJournal O número de sequência do journal coberto pelo checkpoint.
+     * @param pedidoEm         O instante ({@link System#nanoTime()}) do pedido mais antigo agrupado nele.
+     */
+    private record Checkpoint(PersistentIntMap<Empregado> empregados, Set<Integer> alterados,
+                              boolean compararTodos, long sequenciaJournal, long pedidoEm) {}
+
+    private final SegmentosEmpregados segmentos;
+    private final EmpregadoJournal journal;
+    private final ArquivoHistorico arquivoHistorico;
+    private final Path legado;
+    private Thread thread;
+    private Checkpoint pendente;
+    private Checkpoint emGravacao;
+    private Exception ultimaFalha;
+    private long pedidos;
+    private long concluidos;
+    private long gravados;
+    private long ultimoAtrasoNanos;
+
+    /**
+     * Cria o escritor. A thread só é iniciada no primeiro pedido.
+     *
+     * @param segmentos        O snapshot segmentado onde os checkpoints são gravados.
+     * @param journal          O journal esvaziado depois de cada checkpoint.
+     * @param arquivoHistorico O arquivo do histórico quitado, sincronizado antes dos segmentos que o referenciam.
+     * @param legado           O arquivo único de versões anteriores, apagado depois de cada checkpoint.
+     */
+    EscritorPersistencia(SegmentosEmpregados segmentos, EmpregadoJournal journal, ArquivoHistorico arquivoHistorico,
+                         Path legado) {
+        this.segmentos = segmentos;
+        this.journal = journal;
+        this.arquivoHistorico = arquivoHistorico;
+        this.legado = legado;
+    }
+
+    /**
+     * Pede um checkpoint e retorna sem esperar a gravação.
+     *
+     * @param empregados       O estado atual; os empregados nele não podem mais ser alterados no lugar.
+     * @param alterados        Os segmentos alterados desde o último pedido (o conjunto é copiado).
+     * @param compararTodos    {@code true} para comparar também as assinaturas de todos os outros segmentos.
+     * @param sequenciaJournal O número retornado por {@link EmpregadoJournal#checkpoint()}.
+     */
+    synchronized void agendar(PersistentIntMap<Empregado> empregados, Collection<Integer> alterados,
+                              boolean compararTodos, long sequenciaJournal) {
+        Set<Integer> segmentosAlterados = new HashSet<>(alterados);
+        long pedidoEm = System.nanoTime();
+        if (pendente != null) {
+            segmentosAlterados.addAll(pendente.alterados());
+            compararTodos |= pendente.compararTodos();
+            pedidoEm = pendente.pedidoEm();
+        }
+        pendente = new Checkpoint(empregados, segmentosAlterados, compararTodos, sequenciaJournal, pedidoEm);
+        pedidos++;
+        if (thread == null) {
+            iniciar();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Espera até que todos os checkpoints pedidos antes desta chamada tenham sido gravados (ou tenham falhado).
+     *
+     * @throws IOException se o último checkpoint concluído falhou, ou se a thread for interrompida.
+     */
+    synchronized void aguardar() throws IOException {
+        long alvo = pedidos;
+        try {
+            while (concluidos < alvo) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido esperando a persistência");
+        }
+        if (ultimaFalha != null) {
+            throw new IOException("O último checkpoint não foi gravado", ultimaFalha);
+        }
+    }
+
+    /**
+     * Retorna há quanto tempo o checkpoint mais antigo ainda não gravado foi pedido.
+     *
+     * @return O atraso em nanossegundos, ou 0 se não houver nada a gravar.
+     */
+    synchronized long getAtrasoNanos() {
+        Checkpoint maisAntigo = emGravacao != null ? emGravacao : pendente;
+        return maisAntigo == null ? 0 : System.nanoTime() - maisAntigo.pedidoEm();
+    }
+
+    /**
+     * Retorna o tempo entre o pedido e o fim da gravação do último checkpoint gravado.
+     *
+     * @return O atraso em nanossegundos, ou 0 se nenhum checkpoint foi gravado.
+     */
+    synchronized long getUltimoAtrasoNanos() {
+        return ultimoAtrasoNanos;
+    }
+
+    /**
+     * Retorna quantos checkpoints foram de fato gravados; a diferença para o número de pedidos é o
+     * que foi agrupado.
+     *
+     * @return O número de checkpoints gravados com sucesso.
+     */
+    synchronized long getCheckpointsGravados() {
+        return gravados;
+    }
+
+    /**
+     * Inicia a thread (daemon) de persistência e registra a barreira no encerramento da JVM.
+     */
+    private void iniciar() {
+        thread = new Thread(this::executar, "wepayu-persistencia");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                aguardar();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "wepayu-persistencia-final"));
+    }
+
+    /**
+     * Laço da thread: grava um checkpoint por vez, sempre o mais recente pedido.
+     */
+    private void executar() {
+        while (true) {
+            Checkpoint checkpoint;
+            long alvo;
+            boolean compararTodos;
+            synchronized (this) {
+                while (pendente == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                checkpoint = pendente;
+                pendente = null;
+                emGravacao = checkpoint;
+                alvo = pedidos;
+                compararTodos = checkpoint.compararTodos() || ultimaFalha != null;
+            }
+
+            Exception falha = null;
+            try {
+                arquivoHistorico.sincronizar();
+                segmentos.salvar(checkpoint.empregados(), checkpoint.alterados(), compararTodos,
+                        checkpoint.sequenciaJournal());
+                Files.deleteIfExists(legado);
+                journal.concluirCheckpoint(checkpoint.sequenciaJournal());
+            } catch (Exception e) {
+                falha = e;
+            }
+
+            synchronized (this) {
+                emGravacao = null;
+                ultimaFalha = falha;
+                if (falha == null) {
+                    gravados++;
+                    ultimoAtrasoNanos = System.nanoTime() - checkpoint.pedidoEm();
+                }
+                concluidos = alvo;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.utils.PersistentHashMap;
+import br.ufal.ic.p2.wepayu.utils.PersistentIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Estado imutável do {@link EmpregadoRepository}: os empregados indexados pelo ID e os índices
+ * secundários mantidos sobre eles.
+ * <p>
+ * Índices mantidos:
+ * <ul>
+ * <li>por {@code idSindicato} e por nome: listas de IDs, em ordem numérica e em ordem textual do ID, respectivamente;</li>
+ * <li>por tipo ({@link Empregado#getTipo()}) e por agenda de pagamento: conjuntos de IDs.</li>
+ * </ul>
+ * Todas as estruturas são persistentes, então {@link #com(Empregado)} e {@link #sem(int)} devolvem um
+ * novo estado que compartilha com o anterior tudo o que não mudou, e um snapshot de undo continua sendo
+ * uma única referência. Para saber de quais entradas retirar um empregado alterado no lugar, o estado
+ * guarda as chaves com que cada empregado foi indexado pela última vez.
+ * </p>
+ */
+final class EstadoEmpregados {
+    static final EstadoEmpregados VAZIO = new EstadoEmpregados(PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentHashMap.empty(), PersistentHashMap.empty(), PersistentHashMap.empty(), PersistentHashMap.empty());
+
+    /**
+     * Valores indexados de um empregado.
+     */
+    private record Chaves(String nome, String idSindicato, String tipo, String agenda) {
+        static Chaves de(Empregado empregado) {
+            return new Chaves(empregado.getNome(), empregado.getIdSindicato(),
+                    empregado.getTipo(), empregado.getAgendaPagamento());
+        }
+    }
+
+    /**
+     * Critério de ordenação das listas de IDs. A ordem textual é a mesma de
+     * {@code Comparator.comparing(Empregado::getId)}, usada na busca por nome.
+     */
+    private interface OrdemIds {
+        int comparar(int a, int b);
+    }
+
+    private static final OrdemIds ORDEM_NUMERICA = Integer::compare;
+    private static final OrdemIds ORDEM_TEXTUAL = (a, b) -> Integer.toString(a).compareTo(Integer.toString(b));
+
+    private final PersistentIntMap<Empregado> empregados;
+    private final PersistentIntMap<Chaves> chaves;
+    private final PersistentHashMap<String, int[]> porNome;
+    private final PersistentHashMap<String, int[]> porIdSindicato;
+    private final PersistentHashMap<String, PersistentIntMap<Integer>> porTipo;
+    private final PersistentHashMap<String, PersistentIntMap<Integer>> porAgenda;
+
+    private EstadoEmpregados(PersistentIntMap<Empregado> empregados, PersistentIntMap<Chaves> chaves,
+                             PersistentHashMap<String, int[]> porNome, PersistentHashMap<String, int[]> porIdSindicato,
+                             PersistentHashMap<String, PersistentIntMap<Integer>> porTipo,
+                             PersistentHashMap<String, PersistentIntMap<Integer>> porAgenda) {
+        this.empregados = empregados;
+        this.chaves = chaves;
+        this.porNome = porNome;
+        this.porIdSindicato = porIdSindicato;
+        this.porTipo = porTipo;
+        this.porAgenda = porAgenda;
+    }
+
+    /**
+     * Retorna um novo estado em que o empregado (novo ou substituto de outro com o mesmo ID)
+     * está presente e indexado pelos seus valores atuais.
+     *
+     * @param empregado O empregado.
+     * @return O novo estado.
+     */
+    EstadoEmpregados com(Empregado empregado) {
+        int id = PersistentIntMap.chaveDe(empregado.getId());
+        PersistentIntMap<Empregado> novosEmpregados = empregados.plus(id, empregado);
+        Chaves antigas = chaves.get(id);
+        Chaves novas = Chaves.de(empregado);
+        if (novas.equals(antigas)) {
+            return new EstadoEmpregados(novosEmpregados, chaves, porNome, porIdSindicato, porTipo, porAgenda);
+        }
+        EstadoEmpregados semIndices = antigas == null ? this : desindexar(id, antigas);
+        return new EstadoEmpregados(novosEmpregados, semIndices.chaves.plus(id, novas),
+                incluir(semIndices.porNome, novas.nome(), id, ORDEM_TEXTUAL),
+                incluir(semIndices.porIdSindicato, novas.idSindicato(), id, ORDEM_NUMERICA),
+                incluir(semIndices.porTipo, novas.tipo(), id),
+                incluir(semIndices.porAgenda, novas.agenda(), id));
+    }
+
+    /**
+     * Retorna um novo estado sem o empregado de ID informado.
+     *
+     * @param id O ID numérico do empregado.
+     * @return O novo estado, ou este mesmo se o empregado não existir.
+     */
+    EstadoEmpregados sem(int id) {
+        Chaves antigas = chaves.get(id);
+        if (antigas == null) {
+            return this;
+        }
+        EstadoEmpregados semIndices = desindexar(id, antigas);
+        return new EstadoEmpregados(empregados.minus(id), semIndices.chaves.minus(id), semIndices.porNome,
+                semIndices.porIdSindicato, semIndices.porTipo, semIndices.porAgenda);
+    }
+
+    /**
+     * Retorna o mapa (imutável) de todos os empregados, indexado pelo ID.
+     *
+     * @return Os empregados.
+     */
+    PersistentIntMap<Empregado> getEmpregados() {
+        return empregados;
+    }
+
+    /**
+     * Retorna os empregados com o nome informado, em ordem textual do ID.
+     *
+     * @param nome O nome.
+     * @return A lista de empregados, possivelmente vazia.
+     */
+    List<Empregado> comNome(String nome) {
+        return resolver(porNome.get(nome));
+    }
+
+    /**
+     * Retorna os empregados com a identificação de sindicato informada, em ordem do ID.
+     *
+     * @param idSindicato A identificação no sindicato.
+     * @return A lista de empregados, possivelmente vazia.
+     */
+    List<Empregado> comIdSindicato(String idSindicato) {
+        return resolver(porIdSindicato.get(idSindicato));
+    }
+
+    /**
+     * Retorna os empregados do tipo informado, em ordem do ID.
+     *
+     * @param tipo O tipo ("horista", "assalariado" ou "comissionado").
+     * @return A lista de empregados, possivelmente vazia.
+     */
+    List<Empregado> comTipo(String tipo) {
+        return resolver(porTipo.get(tipo));
+    }
+
+    /**
+     * Retorna os empregados com a agenda de pagamento informada, em ordem do ID.
+     *
+     * @param agenda A descrição da agenda.
+     * @return A lista de empregados, possivelmente vazia.
+     */
+    List<Empregado> comAgenda(String agenda) {
+        return resolver(porAgenda.get(agenda));
+    }
+
+    /**
+     * Retorna os empregados de todas as agendas selecionadas, em ordem do ID. Apenas os conjuntos
+     * das agendas selecionadas são percorridos.
+     *
+     * @param agendaSelecionada Critério aplicado uma vez a cada descrição de agenda em uso.
+     * @return A lista de empregados, possivelmente vazia.
+     */
+    List<Empregado> comAgendas(Predicate<String> agendaSelecionada) {
+        List<PersistentIntMap<Integer>> selecionados = new ArrayList<>();
+        porAgenda.forEach((agenda, ids) -> {
+            if (agendaSelecionada.test(agenda)) {
+                selecionados.add(ids);
+            }
+        });
+        if (selecionados.size() <= 1) {
+            return resolver(selecionados.isEmpty() ? null : selecionados.get(0));
+        }
+        int total = 0;
+        for (PersistentIntMap<Integer> ids : selecionados) {
+            total += ids.size();
+        }
+        int[] todos = new int[total];
+        int i = 0;
+        for (PersistentIntMap<Integer> ids : selecionados) {
+            for (Integer id : ids) {
+                todos[i++] = id;
+            }
+        }
+        Arrays.sort(todos);
+        return resolver(todos);
+    }
+
+    private EstadoEmpregados desindexar(int id, Chaves antigas) {
+        return new EstadoEmpregados(empregados, chaves,
+                excluir(porNome, antigas.nome(), id),
+                excluir(porIdSindicato, antigas.idSindicato(), id),
+                excluirDoConjunto(porTipo, antigas.tipo(), id),
+                excluirDoConjunto(porAgenda, antigas.agenda(), id));
+    }
+
+    private List<Empregado> resolver(int[] ids) {
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<Empregado> resultado = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            resultado.add(empregados.get(id));
+        }
+        return resultado;
+    }
+
+    private List<Empregado> resolver(PersistentIntMap<Integer> ids) {
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<Empregado> resultado = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            resultado.add(empregados.get(id));
+        }
+        return resultado;
+    }
+
+    private static PersistentHashMap<String, int[]> incluir(PersistentHashMap<String, int[]> indice, String chave,
+                                                            int id, OrdemIds ordem) {
+        if (chave == null) {
+            return indice;
+        }
+        int[] ids = indice.get(chave);
+        if (ids == null) {
+            return indice.plus(chave, new int[]{id});
+        }
+        int posicao = 0;
+        while (posicao < ids.length && ordem.comparar(ids[posicao], id) < 0) {
+            posicao++;
+        }
+        int[] novos = new int[ids.length + 1];
+        System.arraycopy(ids, 0, novos, 0, posicao);
+        novos[posicao] = id;
+        System.arraycopy(ids, posicao, novos, posicao + 1, ids.length - posicao);
+        return indice.plus(chave, novos);
+    }
+
+    private static PersistentHashMap<String, int[]> excluir(PersistentHashMap<String, int[]> indice, String chave, int id) {
+        int[] ids = indice.get(chave);
+        if (ids == null) {
+            return indice;
+        }
+        int[] novos = Arrays.stream(ids).filter(outro -> outro != id).toArray();
+        return novos.length == 0 ? indice.minus(chave) : indice.plus(chave, novos);
+    }
+
+    private static PersistentHashMap<String, PersistentIntMap<Integer>> incluir(
+            PersistentHashMap<String, PersistentIntMap<Integer>> indice, String chave, int id) {
+        if (chave == null) {
+            return indice;
+        }
+        PersistentIntMap<Integer> ids = Objects.requireNonNullElse(indice.get(chave), PersistentIntMap.empty());
+        return indice.plus(chave, ids.plus(id, id));
+    }
+
+    private static PersistentHashMap<String, PersistentIntMap<Integer>> excluirDoConjunto(
+            PersistentHashMap<String, PersistentIntMap<Integer>> indice, String chave, int id) {
+        PersistentIntMap<Integer> ids = indice.get(chave);
+        if (ids == null) {
+            return indice;
+        }
+        PersistentIntMap<Integer> novos = ids.minus(id);
+        return novos.isEmpty() ? indice.minus(chave) : indice.plus(chave, novos);
+    }
+}
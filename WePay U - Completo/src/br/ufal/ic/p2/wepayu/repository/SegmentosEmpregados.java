@@ -0,0 +1,310 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.utils.ArquivoAtomico;
+import br.ufal.ic.p2.wepayu.utils.PersistentIntMap;
+import br.ufal.ic.p2.wepayu.utils.SnapshotBinario;
+
+import br.ufal.ic.p2.wepayu.utils.XmlUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot dos empregados dividido em segmentos por faixa de ID, para que um checkpoint regrave
+ * apenas os segmentos com empregados alterados.
+ * <p>
+ * O segmento {@code k} contém os empregados com ID em {@code [k * tamanhoSegmento, (k + 1) * tamanhoSegmento)},
+ * gravados como {@link SnapshotBinario}, que a inicialização lê mapeando o arquivo em memória em vez
+ * de interpretar XML (segmentos {@code .xml} de versões anteriores continuam sendo lidos, e são
+ * convertidos quando regravados). Um segmento nunca é sobrescrito: cada checkpoint
+ * grava os segmentos alterados em arquivos novos ({@code segmento-<k>-<geração>.bin}) e depois
+ * substitui o manifesto, que lista o arquivo atual de cada segmento e o número de sequência do
+ * journal coberto pelo snapshot. Todos os arquivos são gravados por {@link ArquivoAtomico}
+ * (temporário sincronizado, com trailer de verificação, e renomeação atômica), e o manifesto só é
+ * trocado depois que os segmentos estão no disco, de modo que uma interrupção em qualquer ponto
+ * deixa o snapshot anterior íntegro; os arquivos que ficam sem referência são apagados depois da troca.
+ * </p>
+ * <p>
+ * Para saber se um segmento mudou, guarda-se a assinatura com que ele foi gravado: os IDs e as
+ * versões ({@link Empregado#getVersao()}) dos seus empregados. Como as versões nunca se repetem,
+ * assinaturas iguais significam conteúdos iguais.
+ * </p>
+ */
+public class SegmentosEmpregados {
+    private static final String DECLARACAO = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+
+    /**
+     * Um segmento gravado: o arquivo atual e a assinatura (pares ID, versão) dos seus empregados,
+     * ou {@code null} se ainda não foi calculada.
+     */
+    private record Segmento(String arquivo, long[] assinatura) {}
+
+    private final File manifesto;
+    private final File diretorio;
+    private int tamanhoSegmento;
+    private long geracao;
+    private Map<Integer, Segmento> segmentos = new TreeMap<>();
+
+    /**
+     * Cria o acesso ao snapshot segmentado.
+     *
+     * @param manifesto       O caminho do arquivo do manifesto.
+     * @param diretorio       O diretório dos arquivos dos segmentos.
+     * @param tamanhoSegmento A quantidade de IDs por segmento, usada se ainda não houver manifesto.
+     */
+    public SegmentosEmpregados(String manifesto, String diretorio, int tamanhoSegmento) {
+        this.manifesto = new File(manifesto);
+        this.diretorio = new File(diretorio);
+        this.tamanhoSegmento = Math.max(1, tamanhoSegmento);
+    }
+
+    /**
+     * Indica se já existe um snapshot segmentado (isto é, um manifesto).
+     *
+     * @return {@code true} se o manifesto existir.
+     */
+    public boolean existe() {
+        return manifesto.exists();
+    }
+
+    /**
+     * Retorna o segmento ao qual pertence um empregado.
+     *
+     * @param id O ID do empregado.
+     * @return O índice do segmento.
+     */
+    public int segmentoDe(String id) {
+        return Math.floorDiv(PersistentIntMap.chaveDe(id), tamanhoSegmento);
+    }
+
+    /**
+     * Lê o manifesto e os segmentos listados nele, em ordem de segmento (e, portanto, de ID),
+     * entregando cada empregado ao consumidor.
+     *
+     * @param consumidor Quem recebe cada empregado lido.
+     * @return O número de sequência do journal coberto pelo snapshot.
+     * @throws Exception se o manifesto ou algum segmento estiver ausente, truncado, corrompido ou malformado.
+     */
+    public long carregar(Consumer<Empregado> consumidor) throws Exception {
+        long sequenciaJournal = 0;
+        Map<Integer, Segmento> lidos = new TreeMap<>();
+        ArquivoAtomico.verificar(manifesto);
+        try (InputStream in = new FileInputStream(manifesto)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    if (reader.getLocalName().equals("manifesto")) {
+                        sequenciaJournal = Long.parseLong(reader.getAttributeValue(null, "journalSeq"));
+                        geracao = Long.parseLong(reader.getAttributeValue(null, "geracao"));
+                        tamanhoSegmento = Integer.parseInt(reader.getAttributeValue(null, "tamanhoSegmento"));
+                    } else if (reader.getLocalName().equals("segmento")) {
+                        lidos.put(Integer.parseInt(reader.getAttributeValue(null, "indice")),
+                                new Segmento(reader.getAttributeValue(null, "arquivo"), null));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        for (Segmento segmento : lidos.values()) {
+            File arquivo = new File(diretorio, segmento.arquivo());
+            if (!arquivo.exists()) {
+                throw new FileNotFoundException(arquivo + ": segmento listado no manifesto não encontrado");
+            }
+            if (arquivo.getName().endsWith(".xml")) {
+                XmlUtils.carregarDados(arquivo.getPath(), consumidor);
+            } else {
+                SnapshotBinario.abrir(arquivo.getPath()).paraCada(consumidor);
+            }
+        }
+
+        segmentos = lidos;
+        return sequenciaJournal;
+    }
+
+    /**
+     * Registra as assinaturas dos segmentos lidos por {@link #carregar}, a partir dos empregados
+     * carregados, já com as suas versões.
+     *
+     * @param empregados Os empregados carregados.
+     */
+    public void registrarCarregados(PersistentIntMap<Empregado> empregados) {
+        Map<Integer, List<Empregado>> porSegmento = agrupar(empregados);
+        segmentos.replaceAll((indice, segmento) ->
+                new Segmento(segmento.arquivo(), assinatura(porSegmento.getOrDefault(indice, List.of()))));
+    }
+
+    /**
+     * Faz o checkpoint dos empregados: regrava os segmentos alterados e troca o manifesto.
+     *
+     * @param empregados       O estado atual dos empregados.
+     * @param alterados        Os segmentos sabidamente alterados desde o último checkpoint; são sempre regravados.
+     * @param compararTodos    {@code true} para comparar também as assinaturas de todos os outros segmentos
+     *                         (quando o estado pode ter mudado sem registro, como ao restaurar um Memento).
+     * @param sequenciaJournal O número de sequência do journal coberto pelo snapshot.
+     * @throws Exception se algum arquivo não puder ser gravado; o snapshot anterior continua valendo.
+     */
+    public void salvar(PersistentIntMap<Empregado> empregados, Collection<Integer> alterados, boolean compararTodos,
+                       long sequenciaJournal) throws Exception {
+        Map<Integer, List<Empregado>> regravar = new TreeMap<>();
+        for (int indice : alterados) {
+            regravar.put(indice, empregadosDoSegmento(empregados, indice));
+        }
+        if (compararTodos) {
+            Map<Integer, List<Empregado>> atuais = agrupar(empregados);
+            for (Integer indice : segmentos.keySet()) {
+                atuais.putIfAbsent(indice, List.of());
+            }
+            atuais.forEach((indice, lista) -> {
+                Segmento gravado = segmentos.get(indice);
+                boolean mudou = gravado == null ? !lista.isEmpty() : !Arrays.equals(gravado.assinatura(), assinatura(lista));
+                if (mudou) {
+                    regravar.putIfAbsent(indice, lista);
+                }
+            });
+        }
+
+        Files.createDirectories(diretorio.toPath());
+        long novaGeracao = geracao + 1;
+        Map<Integer, Segmento> novos = new TreeMap<>(segmentos);
+        for (Map.Entry<Integer, List<Empregado>> entrada : regravar.entrySet()) {
+            List<Empregado> lista = entrada.getValue();
+            if (lista.isEmpty()) {
+                novos.remove(entrada.getKey());
+                continue;
+            }
+            String arquivo = "segmento-" + entrada.getKey() + "-" + novaGeracao + ".bin";
+            SnapshotBinario.salvar(new File(diretorio, arquivo).getPath(), lista, 0);
+            novos.put(entrada.getKey(), new Segmento(arquivo, assinatura(lista)));
+        }
+
+        gravarManifesto(novos, novaGeracao, sequenciaJournal);
+        segmentos = novos;
+        geracao = novaGeracao;
+        apagarNaoReferenciados();
+    }
+
+    /**
+     * Grava o manifesto com {@link ArquivoAtomico}: em um arquivo temporário, sincronizado e
+     * colocado no lugar do atual com uma renomeação atômica.
+     */
+    private void gravarManifesto(Map<Integer, Segmento> novos, long novaGeracao, long sequenciaJournal) throws Exception {
+        ArquivoAtomico.gravar(manifesto.getPath(), saida -> {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8))) {
+                out.write(DECLARACAO);
+                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+                try {
+                    writer.writeCharacters(System.lineSeparator());
+                    writer.writeStartElement("manifesto");
+                    writer.writeAttribute("journalSeq", String.valueOf(sequenciaJournal));
+                    writer.writeAttribute("geracao", String.valueOf(novaGeracao));
+                    writer.writeAttribute("tamanhoSegmento", String.valueOf(tamanhoSegmento));
+                    for (Map.Entry<Integer, Segmento> entrada : novos.entrySet()) {
+                        writer.writeCharacters(System.lineSeparator() + "    ");
+                        writer.writeEmptyElement("segmento");
+                        writer.writeAttribute("indice", String.valueOf(entrada.getKey()));
+                        writer.writeAttribute("arquivo", entrada.getValue().arquivo());
+                    }
+                    writer.writeCharacters(System.lineSeparator());
+                    writer.writeEndElement();
+                    writer.writeCharacters(System.lineSeparator());
+                    writer.flush();
+                } finally {
+                    writer.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Apaga os arquivos de segmento que o manifesto não referencia mais (versões substituídas
+     * ou restos de um checkpoint interrompido). Um arquivo que não puder ser apagado fica para o
+     * próximo checkpoint: empregados lidos dele podem ainda não ter carregado o histórico, e alguns
+     * sistemas (ex: Windows) não apagam arquivos mapeados em memória.
+     */
+    private void apagarNaoReferenciados() {
+        File[] arquivos = diretorio.listFiles();
+        if (arquivos == null) {
+            return;
+        }
+        Set<String> referenciados = new HashSet<>();
+        for (Segmento segmento : segmentos.values()) {
+            referenciados.add(segmento.arquivo());
+        }
+        for (File arquivo : arquivos) {
+            if (!referenciados.contains(arquivo.getName())) {
+                try {
+                    Files.deleteIfExists(arquivo.toPath());
+                } catch (IOException e) {
+                    // Tenta de novo no próximo checkpoint
+                }
+            }
+
+        }
+    }
+
+    /**
+     * Busca os empregados de um segmento, em ordem de ID, consultando cada ID da sua faixa.
+     */
+    private List<Empregado> empregadosDoSegmento(PersistentIntMap<Empregado> empregados, int indice) {
+        List<Empregado> lista = new ArrayList<>();
+        long inicio = (long) indice * tamanhoSegmento;
+        for (long chave = Math.max(inicio, 0); chave < inicio + tamanhoSegmento && chave <= Integer.MAX_VALUE; chave++) {
+            Empregado empregado = empregados.get((int) chave);
+            if (empregado != null) {
+                lista.add(empregado);
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Agrupa todos os empregados por segmento, mantendo a ordem de ID.
+     */
+    private Map<Integer, List<Empregado>> agrupar(PersistentIntMap<Empregado> empregados) {
+        Map<Integer, List<Empregado>> porSegmento = new TreeMap<>();
+        for (Empregado empregado : empregados) {
+            porSegmento.computeIfAbsent(segmentoDe(empregado.getId()), indice -> new ArrayList<>()).add(empregado);
+        }
+        return porSegmento;
+    }
+
+    /**
+     * Monta a assinatura de um segmento: os pares (ID, versão) dos seus empregados, em ordem.
+     */
+    private static long[] assinatura(List<Empregado> empregados) {
+        long[] assinatura = new long[empregados.size() * 2];
+        for (int i = 0; i < empregados.size(); i++) {
+            Empregado empregado = empregados.get(i);
+            assinatura[2 * i] = PersistentIntMap.chaveDe(empregado.getId());
+            assinatura[2 * i + 1] = empregado.getVersao();
+        }
+        return assinatura;
+    }
+}
@@ -0,0 +1,222 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Gravação de arquivos de persistência que resiste a interrupções.
+ * <p>
+ * O conteúdo é gravado em um arquivo temporário ao lado do destino, seguido de um trailer com o
+ * CRC-32 e o tamanho do conteúdo (um comentário XML, {@code <!--crc32=... tamanho=...-->}, que os
+ * leitores XML ignoram). O temporário é forçado para o disco e só então renomeado atomicamente
+ * sobre o destino, e o diretório também é sincronizado; assim, depois de uma queda, o destino
+ * contém a versão anterior ou a nova, inteira, nunca uma mistura ou um arquivo truncado.
+ * </p>
+ * {@link #verificar(File)} confere o trailer antes da leitura, e um arquivo sem trailer é tratado
+ * como truncado. Só o arquivo único de empregados de versões anteriores, gravado antes do trailer,
+ * é lido por {@link #verificarLegado(File)}, que o aceita sem trailer.
+ */
+public final class ArquivoAtomico {
+    private static final String SUFIXO_TEMPORARIO = ".tmp";
+    private static final String INICIO_TRAILER = "<!--crc32=";
+    private static final Pattern TRAILER = Pattern.compile("<!--crc32=([0-9a-f]{8}) tamanho=(\\d+)-->\\r?\\n?");
+    private static final int TAMANHO_MAXIMO_TRAILER = 64;
+
+    /**
+     * O que deve ser gravado no arquivo.
+     */
+    @FunctionalInterface
+    public interface Conteudo {
+        /**
+         * Escreve o conteúdo. Fechar o fluxo recebido apenas o descarrega.
+         *
+         * @param saida O fluxo de destino.
+         * @throws Exception se o conteúdo não puder ser escrito.
+         */
+        void escrever(OutputStream saida) throws Exception;
+    }
+
+    private ArquivoAtomico() {}
+
+    /**
+     * Grava um arquivo por meio de um temporário, com trailer de verificação, sincronização e renomeação atômica.
+     * Se a gravação falhar, o arquivo anterior fica intacto e o temporário é apagado.
+     *
+     * @param filename O caminho do arquivo.
+     * @param conteudo O conteúdo a gravar.
+     * @throws IOException se o conteúdo não puder ser escrito (a causa é repassada) ou o arquivo não puder ser gravado.
+     */
+    public static void gravar(String filename, Conteudo conteudo) throws IOException {
+        Path destino = new File(filename).getAbsoluteFile().toPath();
+        Path temporario = destino.resolveSibling(destino.getFileName() + SUFIXO_TEMPORARIO);
+        try (FileOutputStream arquivo = new FileOutputStream(temporario.toFile())) {
+            CRC32 crc = new CRC32();
+            OutputStream saida = new BufferedOutputStream(new CheckedOutputStream(arquivo, crc), 1 << 16);
+            conteudo.escrever(new SaidaSemFechar(saida));
+            saida.flush();
+            long tamanho = arquivo.getChannel().position();
+            String trailer = String.format("%s%08x tamanho=%d-->%s", INICIO_TRAILER, crc.getValue(), tamanho, System.lineSeparator());
+            arquivo.write(trailer.getBytes(StandardCharsets.ISO_8859_1));
+            arquivo.getChannel().force(true);
+        } catch (Exception e) {
+            Files.deleteIfExists(temporario);
+            if (e instanceof IOException falha) {
+                throw falha;
+            }
+            if (e instanceof RuntimeException falha) {
+                throw falha;
+            }
+            throw new IOException(destino + ": o conteúdo não pôde ser escrito", e);
+        }
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizarDiretorio(destino.getParent());
+    }
+
+    /**
+     * Confere o trailer de um arquivo gravado por {@link #gravar}: o tamanho e o CRC-32 do conteúdo
+     * devem ser os registrados.
+     *
+     * @param arquivo O arquivo.
+     * @throws IOException se o arquivo não tiver trailer, estiver truncado ou corrompido, ou não puder ser lido.
+     */
+    public static void verificar(File arquivo) throws IOException {
+        verificar(arquivo, exigirTrailer(arquivo));
+    }
+
+    /**
+     * Como {@link #verificar(File)}, mas aceita sem verificação um arquivo sem trailer, gravado por
+     * uma versão anterior. Serve apenas para o arquivo único de empregados dessas versões.
+     *
+     * @param arquivo O arquivo.
+     * @throws IOException se o arquivo tiver um trailer e estiver truncado ou corrompido, ou não puder ser lido.
+     */
+    public static void verificarLegado(File arquivo) throws IOException {
+        Matcher trailer = lerTrailer(arquivo);
+        if (trailer != null) {
+            verificar(arquivo, trailer);
+        }
+    }
+
+    /**
+     * Confere o CRC-32 do conteúdo com o do trailer.
+     */
+    private static void verificar(File arquivo, Matcher trailer) throws IOException {
+        long tamanho = Long.parseLong(trailer.group(2));
+        CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(new BufferedInputStream(new FileInputStream(arquivo), 1 << 16), crc)) {
+            byte[] buffer = new byte[1 << 16];
+            long restantes = tamanho;
+            while (restantes > 0) {
+                int lidos = in.read(buffer, 0, (int) Math.min(buffer.length, restantes));
+                if (lidos < 0) {
+                    throw new IOException(arquivo + ": fim inesperado do arquivo");
+                }
+                restantes -= lidos;
+            }
+        }
+        if (crc.getValue() != Long.parseLong(trailer.group(1), 16)) {
+            throw new IOException(arquivo + ": o CRC-32 do conteúdo não confere com o trailer");
+        }
+    }
+
+    /**
+     * Confere apenas o trailer e o tamanho de um arquivo gravado por {@link #gravar}, sem ler o
+     * conteúdo (para quem vai mapeá-lo em memória e ler só o que precisar).
+     *
+     * @param arquivo O arquivo.
+     * @return O tamanho do conteúdo, sem o trailer.
+     * @throws IOException se o arquivo não tiver trailer, estiver truncado ou não puder ser lido.
+     */
+    public static long tamanhoConteudo(File arquivo) throws IOException {
+        return Long.parseLong(exigirTrailer(arquivo).group(2));
+    }
+
+    /**
+     * Lê o trailer do arquivo, que deve existir.
+     */
+    private static Matcher exigirTrailer(File arquivo) throws IOException {
+        Matcher trailer = lerTrailer(arquivo);
+        if (trailer == null) {
+            throw new IOException(arquivo + ": arquivo sem trailer de verificação (truncado)");
+        }
+        return trailer;
+    }
+
+    /**
+     * Lê o trailer do fim do arquivo e confere se o tamanho registrado é o do conteúdo antes dele.
+     *
+     * @return O trailer reconhecido, ou {@code null} se o arquivo não tiver trailer.
+     */
+    private static Matcher lerTrailer(File arquivo) throws IOException {
+        long tamanhoArquivo = arquivo.length();
+        byte[] fim = new byte[(int) Math.min(TAMANHO_MAXIMO_TRAILER, tamanhoArquivo)];
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) {
+            raf.seek(tamanhoArquivo - fim.length);
+            raf.readFully(fim);
+        }
+        // ISO-8859-1 mapeia cada byte em um caractere, então as posições no texto são as do arquivo
+        String texto = new String(fim, StandardCharsets.ISO_8859_1);
+        int inicio = texto.lastIndexOf(INICIO_TRAILER);
+        if (inicio < 0) {
+            return null;
+        }
+        Matcher trailer = TRAILER.matcher(texto.substring(inicio));
+        if (!trailer.matches()) {
+            throw new IOException(arquivo + ": trailer de verificação incompleto");
+        }
+        if (Long.parseLong(trailer.group(2)) != tamanhoArquivo - fim.length + inicio) {
+            throw new IOException(arquivo + ": o tamanho do conteúdo não confere com o trailer");
+        }
+        return trailer;
+    }
+
+    /**
+     * Sincroniza um diretório, para que uma renomeação feita nele sobreviva a uma queda.
+     */
+    private static void sincronizarDiretorio(Path diretorio) {
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // Nem todo sistema permite abrir um diretório (ex: Windows); lá a renomeação já é durável
+        }
+    }
+
+    /**
+     * Fluxo que repassa escritas em bloco e ignora o fechamento, para que o trailer possa ser
+     * escrito depois de quem escreve o conteúdo fechar o seu escritor.
+     */
+    private static final class SaidaSemFechar extends FilterOutputStream {
+        SaidaSemFechar(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
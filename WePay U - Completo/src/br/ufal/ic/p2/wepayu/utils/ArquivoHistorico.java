@@ -0,0 +1,302 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import br.ufal.ic.p2.wepayu.models.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Arquivo frio do histórico quitado dos empregados ({@link HistoricoArquivado}).
+ * <p>
+ * Cada empregado tem um arquivo ({@code <id>.frio}) ao qual só se acrescentam blocos: cada
+ * arquivamento grava um bloco com os lançamentos quitados desde o anterior, comprimido com
+ * {@link Deflater} e protegido por CRC-32. O que um empregado tem arquivado é descrito por uma
+ * {@link Referencia}: o arquivo e a lista dos seus blocos. Como os blocos nunca são alterados, uma
+ * referência antiga (de um Memento, por exemplo) continua válida depois de novos acréscimos; blocos
+ * de estados desfeitos apenas deixam de ser referenciados.
+ * </p>
+ * <p>
+ * Formato de um bloco: magia "WPAF" (int), tamanho comprimido (int), CRC-32 do conteúdo comprimido
+ * (int) e o conteúdo, que traz, para cartões, taxas e vendas, a quantidade (int) e, para cada
+ * lançamento, o dia (int), a escala da quantia (int) e os dígitos (long), ou a escala
+ * {@link Integer#MIN_VALUE} seguida da quantia em texto, se ela não couber em um {@code long}.
+ * </p>
+ * Os acréscimos não são sincronizados com o disco na hora; {@link #sincronizar()} força os arquivos
+ * alterados, e deve ser chamado antes de gravar um snapshot que faça referência a eles.
+ */
+public final class ArquivoHistorico implements HistoricoArquivado.Arquivamento {
+    private static final int MAGIA_BLOCO = 0x57504146; // "WPAF"
+    private static final int TAMANHO_CABECALHO_BLOCO = 12;
+    private static final int ESCALA_TEXTO = Integer.MIN_VALUE;
+    private static final String EXTENSAO = ".frio";
+
+    private final File diretorio;
+    private final Set<Path> naoSincronizados = new HashSet<>();
+
+    /**
+     * Cria o acesso ao arquivo frio.
+     *
+     * @param diretorio O diretório dos arquivos dos empregados, criado no primeiro arquivamento.
+     */
+    public ArquivoHistorico(String diretorio) {
+        this.diretorio = new File(diretorio);
+    }
+
+    /**
+     * Acrescenta um bloco com os lançamentos quitados ao arquivo do empregado.
+     *
+     * @param id       O ID do empregado.
+     * @param anterior A referência ao que o empregado já tinha arquivado, ou {@code null}.
+     * @param quitados Os lançamentos a arquivar.
+     * @return A nova referência, com os blocos anteriores seguidos do novo.
+     * @throws IOException se o bloco não puder ser gravado.
+     */
+    @Override
+    public synchronized HistoricoArquivado acrescentar(String id, HistoricoArquivado anterior, FonteHistorico quitados)
+            throws IOException {
+        Referencia referencia = (Referencia) anterior;
+        byte[] bloco = comprimir(quitados);
+        File arquivo = referencia != null ? new File(referencia.getArquivo()) : new File(diretorio, id + EXTENSAO);
+        Files.createDirectories(arquivo.getAbsoluteFile().toPath().getParent());
+
+        long inicio;
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            inicio = canal.size();
+            ByteBuffer buffer = ByteBuffer.wrap(bloco);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer, inicio + buffer.position());
+            }
+        }
+        naoSincronizados.add(arquivo.toPath());
+
+        long[] blocos = referencia == null ? new long[0] : referencia.blocos;
+        blocos = Arrays.copyOf(blocos, blocos.length + 2);
+        blocos[blocos.length - 2] = inicio;
+        blocos[blocos.length - 1] = bloco.length;
+
+        int ultimoDia = referencia == null ? Lancamento.SEM_DATA : referencia.ultimoDia;
+        int primeiroDiaCartao = referencia == null ? Lancamento.SEM_DATA : referencia.primeiroDiaCartao;
+        for (List<? extends Lancamento> lancamentos : List.of(quitados.lerCartoes(), quitados.lerTaxas(), quitados.lerVendas())) {
+            for (Lancamento lancamento : lancamentos) {
+                ultimoDia = Math.max(ultimoDia, lancamento.getDataEpochDay());
+            }
+        }
+        for (CartaoDePonto cartao : quitados.lerCartoes()) {
+            if (primeiroDiaCartao == Lancamento.SEM_DATA || cartao.getDataEpochDay() < primeiroDiaCartao) {
+                primeiroDiaCartao = cartao.getDataEpochDay();
+            }
+        }
+        return new Referencia(arquivo.getPath(), blocos, ultimoDia, primeiroDiaCartao);
+    }
+
+    /**
+     * Força para o disco os arquivos que receberam blocos desde a última sincronização.
+     *
+     * @throws IOException se algum arquivo não puder ser sincronizado; ele continua pendente.
+     */
+    public void sincronizar() throws IOException {
+        List<Path> pendentes;
+        synchronized (this) {
+            pendentes = new ArrayList<>(naoSincronizados);
+        }
+        for (Path arquivo : pendentes) {
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+            synchronized (this) {
+                naoSincronizados.remove(arquivo);
+            }
+        }
+    }
+
+    /**
+     * Codifica e comprime os lançamentos em um bloco, já com o cabeçalho.
+     */
+    private static byte[] comprimir(FonteHistorico quitados) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[TAMANHO_CABECALHO_BLOCO]);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            escrever(out, quitados.lerCartoes());
+            escrever(out, quitados.lerTaxas());
+            escrever(out, quitados.lerVendas());
+        } finally {
+            deflater.end();
+        }
+        byte[] bloco = bytes.toByteArray();
+        int tamanho = bloco.length - TAMANHO_CABECALHO_BLOCO;
+        CRC32 crc = new CRC32();
+        crc.update(bloco, TAMANHO_CABECALHO_BLOCO, tamanho);
+        ByteBuffer.wrap(bloco).putInt(MAGIA_BLOCO).putInt(tamanho).putInt((int) crc.getValue());
+        return bloco;
+    }
+
+    private static void escrever(DataOutputStream out, List<? extends Lancamento> lancamentos) throws IOException {
+        out.writeInt(lancamentos.size());
+        for (Lancamento lancamento : lancamentos) {
+            out.writeInt(lancamento.getDataEpochDay());
+            if (lancamento.isQuantiaCompacta() || lancamento.getQuantiaEscala() < 0) {
+                out.writeInt(lancamento.getQuantiaEscala());
+                out.writeLong(lancamento.getQuantiaUnscaled());
+            } else {
+                out.writeInt(ESCALA_TEXTO);
+                out.writeUTF(SnapshotBinario.quantiaDe(lancamento).toString());
+            }
+        }
+    }
+
+    private static <T extends Lancamento> List<T> ler(DataInputStream in, Supplier<T> novo) throws IOException {
+        int quantidade = in.readInt();
+        List<T> lancamentos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            T lancamento = novo.get();
+            int dia = in.readInt();
+            int escala = in.readInt();
+            if (escala == ESCALA_TEXTO) {
+                lancamento.setCompacto(dia, 0, -1);
+                SnapshotBinario.definirQuantia(lancamento, new java.math.BigDecimal(in.readUTF()));
+            } else {
+                lancamento.setCompacto(dia, in.readLong(), escala);
+            }
+            lancamentos.add(lancamento);
+        }
+        return lancamentos;
+    }
+
+    /**
+     * Referência ao que um empregado tem arquivado: o arquivo e os blocos (posição e tamanho) que
+     * lhe pertencem, em ordem. Os lançamentos são lidos do arquivo a cada consulta, sem ficar em memória.
+     */
+    public static final class Referencia implements HistoricoArquivado, Serializable {
+        private final String arquivo;
+        private final long[] blocos;
+        private final int ultimoDia;
+        private final int primeiroDiaCartao;
+
+        /**
+         * Cria a referência (usado na leitura do snapshot).
+         *
+         * @param arquivo           O caminho do arquivo do empregado.
+         * @param blocos            Pares (posição, tamanho) dos blocos, em ordem.
+         * @param ultimoDia         O maior dia entre os lançamentos arquivados.
+         * @param primeiroDiaCartao O menor dia entre os cartões arquivados, ou {@link Lancamento#SEM_DATA}.
+         */
+        public Referencia(String arquivo, long[] blocos, int ultimoDia, int primeiroDiaCartao) {
+            this.arquivo = arquivo;
+            this.blocos = blocos.clone();
+            this.ultimoDia = ultimoDia;
+            this.primeiroDiaCartao = primeiroDiaCartao;
+        }
+
+        /**
+         * Retorna o caminho do arquivo do empregado.
+         *
+         * @return O caminho.
+         */
+        public String getArquivo() {
+            return arquivo;
+        }
+
+        /**
+         * Retorna os blocos que pertencem ao empregado.
+         *
+         * @return Uma cópia dos pares (posição, tamanho), em ordem.
+         */
+        public long[] getBlocos() {
+            return blocos.clone();
+        }
+
+        @Override
+        public int getUltimoDia() {
+            return ultimoDia;
+        }
+
+        @Override
+        public int getPrimeiroDiaCartao() {
+            return primeiroDiaCartao;
+        }
+
+        @Override
+        public List<CartaoDePonto> lerCartoes() {
+            return lerTodos(0, CartaoDePonto::new);
+        }
+
+        @Override
+        public List<TaxaDeServico> lerTaxas() {
+            return lerTodos(1, TaxaDeServico::new);
+        }
+
+        @Override
+        public List<ResultadoVenda> lerVendas() {
+            return lerTodos(2, ResultadoVenda::new);
+        }
+
+        /**
+         * Lê uma das listas (0: cartões, 1: taxas, 2: vendas) de todos os blocos, em ordem.
+         *
+         * @throws UncheckedIOException se o arquivo não puder ser lido ou algum bloco estiver corrompido.
+         */
+        private <T extends Lancamento> List<T> lerTodos(int lista, Supplier<T> novo) {
+            List<T> lancamentos = new ArrayList<>();
+            try (FileChannel canal = FileChannel.open(new File(arquivo).toPath(), StandardOpenOption.READ)) {
+                for (int i = 0; i < blocos.length; i += 2) {
+                    try (DataInputStream in = abrirBloco(canal, blocos[i], (int) blocos[i + 1])) {
+                        for (int j = 0; j < lista; j++) {
+                            ler(in, CartaoDePonto::new);
+                        }
+                        lancamentos.addAll(ler(in, novo));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível ler o histórico arquivado em " + arquivo, e);
+            }
+            return lancamentos;
+        }
+
+        /**
+         * Lê um bloco do arquivo, confere o cabeçalho e o CRC-32 e o abre para leitura descomprimida.
+         */
+        private DataInputStream abrirBloco(FileChannel canal, long posicao, int tamanho) throws IOException {
+            ByteBuffer bloco = ByteBuffer.allocate(tamanho);
+            while (bloco.hasRemaining()) {
+                if (canal.read(bloco, posicao + bloco.position()) < 0) {
+                    throw new IOException(arquivo + ": bloco truncado na posição " + posicao);
+                }
+            }
+            bloco.flip();
+            int comprimido = tamanho - TAMANHO_CABECALHO_BLOCO;
+            if (bloco.getInt() != MAGIA_BLOCO || bloco.getInt() != comprimido) {
+                throw new IOException(arquivo + ": bloco inválido na posição " + posicao);
+            }
+            int crcEsperado = bloco.getInt();
+            CRC32 crc = new CRC32();
+            crc.update(bloco.array(), TAMANHO_CABECALHO_BLOCO, comprimido);
+            if ((int) crc.getValue() != crcEsperado) {
+                throw new IOException(arquivo + ": o CRC-32 do bloco na posição " + posicao + " não confere");
+            }
+            return new DataInputStream(new InflaterInputStream(
+                    new ByteArrayInputStream(bloco.array(), TAMANHO_CABECALHO_BLOCO, comprimido)));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache de tamanho limitado que, quando cheio, descarta a entrada usada há mais tempo (LRU).
+ * <p>
+ * Pode ser usado por várias threads ao mesmo tempo: os acessos ao mapa são sincronizados, mas o
+ * cálculo de um valor ausente ({@link #obter(Object, Function)}) é feito fora do bloqueio, então
+ * duas threads podem calcular o mesmo valor; o cache deve guardar apenas valores que não dependam
+ * de quem os calculou.
+ * </p>
+ *
+ * @param <K> O tipo das chaves.
+ * @param <V> O tipo dos valores.
+ */
+public final class CacheLRU<K, V> {
+    private final LinkedHashMap<K, V> entradas;
+
+    /**
+     * Cria um cache vazio.
+     *
+     * @param capacidade O número máximo de entradas mantidas.
+     */
+    public CacheLRU(int capacidade) {
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> maisAntiga) {
+                return size() > capacidade;
+            }
+        };
+    }
+
+    /**
+     * Busca um valor, marcando-o como usado.
+     *
+     * @param chave A chave.
+     * @return O valor, ou {@code null} se não estiver no cache.
+     */
+    public synchronized V get(K chave) {
+        return entradas.get(chave);
+    }
+
+    /**
+     * Guarda um valor, descartando a entrada menos recente se o cache passar da capacidade.
+     *
+     * @param chave A chave.
+     * @param valor O valor (não nulo).
+     */
+    public synchronized void put(K chave, V valor) {
+        entradas.put(chave, valor);
+    }
+
+    /**
+     * Busca um valor e, se ele não estiver no cache, calcula-o e o guarda.
+     *
+     * @param chave   A chave.
+     * @param calculo A função que calcula o valor ausente (não deve retornar {@code null}).
+     * @return O valor do cache ou o recém-calculado.
+     */
+    public V obter(K chave, Function<? super K, ? extends V> calculo) {
+        V valor = get(chave);
+        if (valor == null) {
+            valor = calculo.apply(chave);
+            put(chave, valor);
+        }
+        return valor;
+    }
+
+    /**
+     * Retorna o número de entradas no cache.
+     *
+     * @return O número de entradas.
+     */
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+}
@@ -0,0 +1,266 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import br.ufal.ic.p2.wepayu.ExceptionAgenda.AgendaJaExisteException;
+import br.ufal.ic.p2.wepayu.managers.AgendaManager;
+import br.ufal.ic.p2.wepayu.models.*;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador determinístico de empresas sintéticas, para testes de carga e benchmarks.
+ * <p>
+ * A partir de uma semente, gera empregados horistas, assalariados e comissionados com nomes,
+ * endereços, salários, sindicalização, métodos de pagamento (banco, correios e em mãos) e agendas
+ * (padrão ou customizadas) variados, além de um histórico diário de cartões de ponto, vendas e
+ * taxas de serviço a partir de uma data de início. A mesma semente e os mesmos parâmetros
+ * produzem sempre a mesma empresa.
+ * </p>
+ * Os empregados são gerados sob demanda, um a um, durante a iteração: cada um deriva do seu
+ * próprio gerador aleatório (semente e ID), então nenhum estado é mantido entre eles e a empresa
+ * pode ser gravada em {@code empregados.xml} com {@link #salvarXml(String)} sem nunca estar inteira
+ * em memória.
+ */
+public class GeradorEmpresa implements Iterable<Empregado> {
+    private static final String[] NOMES = {"Ana", "Bruno", "Carla", "Daniel", "Elisa", "Fabio", "Gabriela",
+            "Hugo", "Iris", "Joao", "Karina", "Lucas", "Marina", "Nelson", "Olivia", "Paulo", "Rita", "Sergio",
+            "Tania", "Vitor"};
+    private static final String[] SOBRENOMES = {"Silva", "Santos", "Oliveira", "Souza", "Lima", "Pereira",
+            "Costa", "Almeida", "Ferreira", "Rodrigues", "Gomes", "Barbosa", "Ribeiro", "Cavalcante", "Araujo"};
+    private static final String[] RUAS = {"Rua das Flores", "Avenida Fernandes Lima", "Rua do Sol",
+            "Avenida Brasil", "Rua Sete de Setembro", "Travessa da Paz"};
+    private static final String[] CIDADES = {"Maceio", "Arapiraca", "Recife", "Campina Grande", "Joao Pessoa"};
+    private static final String[] BANCOS = {"Banco do Brasil", "Caixa", "Itau", "Bradesco", "Santander"};
+
+    private final long semente;
+    private final int quantidade;
+    private final LocalDate inicio;
+    private final int diasHistorico;
+    private final List<String> agendasCustomizadas;
+
+    /**
+     * Cria um gerador.
+     *
+     * @param semente       A semente que determina toda a empresa gerada.
+     * @param quantidade    O número de empregados (IDs de 1 a {@code quantidade}).
+     * @param inicio        A data de contratação dos assalariados e comissionados e o primeiro dia do histórico.
+     * @param diasHistorico O número de dias de histórico de lançamentos a partir de {@code inicio}.
+     */
+    public GeradorEmpresa(long semente, int quantidade, LocalDate inicio, int diasHistorico) {
+        this.semente = semente;
+        this.quantidade = quantidade;
+        this.inicio = inicio;
+        this.diasHistorico = diasHistorico;
+        this.agendasCustomizadas = gerarAgendas(new SplittableRandom(semente));
+    }
+
+    /**
+     * Retorna as agendas customizadas usadas pela empresa gerada (além das três agendas padrão).
+     *
+     * @return A lista (imutável) das descrições.
+     */
+    public List<String> getAgendasCustomizadas() {
+        return agendasCustomizadas;
+    }
+
+    /**
+     * Percorre os empregados da empresa em ordem de ID, gerando cada um no momento em que é pedido.
+     *
+     * @return Um iterador sobre os empregados gerados.
+     */
+    @Override
+    public Iterator<Empregado> iterator() {
+        return new Iterator<>() {
+            private int proximo = 1;
+
+            @Override
+            public boolean hasNext() {
+                return proximo <= quantidade;
+            }
+
+            @Override
+            public Empregado next() {
+                if (proximo > quantidade) {
+                    throw new NoSuchElementException();
+                }
+                return gerarEmpregado(proximo++);
+            }
+        };
+    }
+
+    /**
+     * Gera o empregado de um determinado ID. O resultado depende apenas da semente, dos
+     * parâmetros do gerador e do ID.
+     *
+     * @param id O ID do empregado (de 1 a {@code quantidade}).
+     * @return O empregado gerado, com o seu histórico.
+     */
+    public Empregado gerarEmpregado(int id) {
+        SplittableRandom rnd = new SplittableRandom(misturar(semente, id));
+        String nome = NOMES[rnd.nextInt(NOMES.length)] + " " + SOBRENOMES[rnd.nextInt(SOBRENOMES.length)];
+        String endereco = RUAS[rnd.nextInt(RUAS.length)] + ", " + (1 + rnd.nextInt(2000)) + " - "
+                + CIDADES[rnd.nextInt(CIDADES.length)];
+
+        Empregado empregado;
+        int tipo = rnd.nextInt(100);
+        if (tipo < 40) {
+            empregado = new EmpregadoHorista(String.valueOf(id), nome, endereco, centavos(rnd, 1000, 6000));
+        } else if (tipo < 75) {
+            empregado = new EmpregadoAssalariado(String.valueOf(id), nome, endereco, centavos(rnd, 150000, 1200000));
+        } else {
+            empregado = new EmpregadoComissionado(String.valueOf(id), nome, endereco, centavos(rnd, 100000, 600000),
+                    BigDecimal.valueOf(1 + rnd.nextInt(15), 2));
+        }
+        if (!(empregado instanceof EmpregadoHorista)) {
+            empregado.setDataContratacao(inicio);
+            empregado.setUltimaDataPagamento(inicio.minusDays(1));
+        }
+
+        int metodo = rnd.nextInt(4);
+        if (metodo < 2) {
+            empregado.setMetodoPagamento(new Banco(BANCOS[rnd.nextInt(BANCOS.length)],
+                    String.valueOf(1000 + rnd.nextInt(9000)), (10000 + rnd.nextInt(90000)) + "-" + rnd.nextInt(10)));
+        } else if (metodo == 2) {
+            empregado.setMetodoPagamento(new Correios());
+        }
+
+        if (!agendasCustomizadas.isEmpty() && rnd.nextInt(100) < 15) {
+            empregado.setAgendaPagamento(agendasCustomizadas.get(rnd.nextInt(agendasCustomizadas.size())));
+        }
+
+        if (rnd.nextInt(100) < 30) {
+            empregado.setSindicalizado(true);
+            empregado.setIdSindicato("s" + id);
+            empregado.setTaxaSindical(centavos(rnd, 50, 500));
+        }
+
+        gerarHistorico(empregado, rnd);
+        return empregado;
+    }
+
+    /**
+     * Grava a empresa gerada em um arquivo de empregados (no formato de {@code empregados.xml}),
+     * gerando e escrevendo um empregado por vez.
+     *
+     * @param filename O caminho do arquivo XML.
+     * @throws Exception se o arquivo não puder ser gravado.
+     */
+    public void salvarXml(String filename) throws Exception {
+        XmlUtils.salvarDados(filename, this, 0);
+    }
+
+    /**
+     * Grava as agendas customizadas da empresa gerada em um arquivo de agendas (no formato de {@code agendas.xml}).
+     *
+     * @param filename O caminho do arquivo XML.
+     * @throws Exception se o arquivo não puder ser gravado.
+     */
+    public void salvarAgendas(String filename) throws Exception {
+        XmlUtils.salvarAgendas(filename, new LinkedHashSet<>(agendasCustomizadas));
+    }
+
+    /**
+     * Substitui o conteúdo do repositório pela empresa gerada e registra as suas agendas
+     * customizadas no gerenciador de agendas.
+     *
+     * @param repositorio O repositório de empregados.
+     * @param agendas     O gerenciador de agendas onde as agendas customizadas serão criadas.
+     * @throws Exception se alguma agenda gerada for inválida.
+     */
+    public void carregarEm(EmpregadoRepository repositorio, AgendaManager agendas) throws Exception {
+        for (String agenda : agendasCustomizadas) {
+            try {
+                agendas.criarAgendaDePagamentos(agenda);
+            } catch (AgendaJaExisteException e) {
+                // A agenda já tinha sido criada antes
+            }
+        }
+        repositorio.importar(this);
+    }
+
+    /**
+     * Gera o histórico diário do empregado: cartões de ponto em quase todos os dias úteis (horistas),
+     * vendas em parte dos dias úteis (comissionados) e taxas de serviço ocasionais (sindicalizados).
+     */
+    private void gerarHistorico(Empregado empregado, SplittableRandom rnd) {
+        boolean horista = empregado instanceof EmpregadoHorista;
+        EmpregadoComissionado comissionado = empregado instanceof EmpregadoComissionado c ? c : null;
+        for (int dia = 0; dia < diasHistorico; dia++) {
+            LocalDate data = inicio.plusDays(dia);
+            boolean diaUtil = data.getDayOfWeek().compareTo(DayOfWeek.FRIDAY) <= 0;
+            if (horista && diaUtil && rnd.nextInt(100) < 95) {
+                // De 4 a 12 horas, em meias horas
+                empregado.adicionarCartaoPonto(new CartaoDePonto(data, BigDecimal.valueOf(40 + 5 * rnd.nextInt(17), 1)));
+            }
+            if (comissionado != null && diaUtil && rnd.nextInt(100) < 40) {
+                comissionado.adicionarResultadoVenda(new ResultadoVenda(data, centavos(rnd, 5000, 500000)));
+            }
+            if (empregado.isSindicalizado() && rnd.nextInt(100) < 5) {
+                empregado.adicionarTaxaDeServico(new TaxaDeServico(data, centavos(rnd, 500, 8000)));
+            }
+        }
+    }
+
+    /**
+     * Sorteia entre duas e seis agendas customizadas válidas, sem repetição e sem as agendas padrão.
+     */
+    private static List<String> gerarAgendas(SplittableRandom rnd) {
+        Set<String> agendas = new LinkedHashSet<>();
+        int total = 2 + rnd.nextInt(5);
+        while (agendas.size() < total) {
+            String agenda = switch (rnd.nextInt(3)) {
+                case 0 -> "mensal " + (1 + rnd.nextInt(28));
+                case 1 -> "semanal " + (1 + rnd.nextInt(7));
+                default -> "semanal " + (2 + rnd.nextInt(3)) + " " + (1 + rnd.nextInt(7));
+            };
+            if (!agenda.equals("semanal 5") && !agenda.equals("semanal 2 5")) {
+                agendas.add(agenda);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(agendas));
+    }
+
+    /**
+     * Sorteia um valor monetário entre dois limites, dados em centavos.
+     */
+    private static BigDecimal centavos(SplittableRandom rnd, int minimo, int maximo) {
+        return BigDecimal.valueOf(rnd.nextInt(minimo, maximo + 1), 2);
+    }
+
+    /**
+     * Combina a semente e o ID em uma nova semente (função de mistura do SplitMix64).
+     */
+    private static long misturar(long semente, int id) {
+        long z = semente + id * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gera uma empresa e a grava em arquivos, para alimentar testes de carga fora da aplicação.
+     * <p>
+     * Uso: {@code GeradorEmpresa <semente> <empregados> <dias de historico> [empregados.xml] [agendas.xml]},
+     * com o histórico começando em 1/1/2005.
+     * </p>
+     *
+     * @param args Os argumentos da linha de comando.
+     * @throws Exception se os arquivos não puderem ser gravados.
+     */
+    public static void main(String[] args) throws Exception {
+        GeradorEmpresa gerador = new GeradorEmpresa(Long.parseLong(args[0]), Integer.parseInt(args[1]),
+                LocalDate.of(2005, 1, 1), Integer.parseInt(args[2]));
+        gerador.salvarXml(args.length > 3 ? args[3] : "empregados.xml");
+        gerador.salvarAgendas(args.length > 4 ? args[4] : "agendas.xml");
+    }
+}
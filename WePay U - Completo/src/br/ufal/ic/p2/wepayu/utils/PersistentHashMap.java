@@ -0,0 +1,157 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Mapa imutável e persistente de chaves arbitrárias, construído sobre um {@link PersistentIntMap}
+ * indexado pelo hash da chave. Chaves com o mesmo hash dividem um pequeno balde (vetor de pares
+ * chave/valor) que é copiado por inteiro a cada alteração.
+ * <p>
+ * Como no {@link PersistentIntMap}, {@link #plus(Object, Object)} e {@link #minus(Object)} devolvem
+ * uma nova versão e preservam a anterior. A ordem de iteração não é especificada.
+ * </p>
+ *
+ * @param <K> O tipo das chaves (não nulas).
+ * @param <V> O tipo dos valores (não nulos).
+ */
+public final class PersistentHashMap<K, V> implements Serializable {
+    private static final PersistentHashMap<?, ?> VAZIO = new PersistentHashMap<>(PersistentIntMap.empty(), 0);
+
+    private final PersistentIntMap<Object[]> baldes;
+    private final int tamanho;
+
+    private PersistentHashMap(PersistentIntMap<Object[]> baldes, int tamanho) {
+        this.baldes = baldes;
+        this.tamanho = tamanho;
+    }
+
+    /**
+     * Retorna o mapa vazio.
+     *
+     * @param <K> O tipo das chaves.
+     * @param <V> O tipo dos valores.
+     * @return O mapa vazio compartilhado.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) VAZIO;
+    }
+
+    /**
+     * Busca o valor associado a uma chave.
+     *
+     * @param chave A chave.
+     * @return O valor, ou {@code null} se a chave for nula ou não estiver no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object chave) {
+        if (chave == null) {
+            return null;
+        }
+        Object[] balde = baldes.get(hash(chave));
+        if (balde != null) {
+            for (int i = 0; i < balde.length; i += 2) {
+                if (balde[i].equals(chave)) {
+                    return (V) balde[i + 1];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retorna um novo mapa em que a chave está associada ao valor informado.
+     *
+     * @param chave A chave (não nula).
+     * @param valor O valor (não nulo).
+     * @return A nova versão do mapa.
+     */
+    public PersistentHashMap<K, V> plus(K chave, V valor) {
+        Objects.requireNonNull(chave);
+        Objects.requireNonNull(valor);
+        int hash = hash(chave);
+        Object[] balde = baldes.get(hash);
+        if (balde == null) {
+            return new PersistentHashMap<>(baldes.plus(hash, new Object[]{chave, valor}), tamanho + 1);
+        }
+        int posicao = posicao(balde, chave);
+        Object[] novo;
+        if (posicao >= 0) {
+            if (balde[posicao + 1] == valor) {
+                return this;
+            }
+            novo = balde.clone();
+            novo[posicao + 1] = valor;
+            return new PersistentHashMap<>(baldes.plus(hash, novo), tamanho);
+        }
+        novo = Arrays.copyOf(balde, balde.length + 2);
+        novo[balde.length] = chave;
+        novo[balde.length + 1] = valor;
+        return new PersistentHashMap<>(baldes.plus(hash, novo), tamanho + 1);
+    }
+
+    /**
+     * Retorna um novo mapa sem a chave informada.
+     *
+     * @param chave A chave a remover.
+     * @return A nova versão do mapa, ou este mesmo mapa se a chave não existir.
+     */
+    public PersistentHashMap<K, V> minus(Object chave) {
+        if (chave == null) {
+            return this;
+        }
+        int hash = hash(chave);
+        Object[] balde = baldes.get(hash);
+        int posicao = balde == null ? -1 : posicao(balde, chave);
+        if (posicao < 0) {
+            return this;
+        }
+        if (balde.length == 2) {
+            return new PersistentHashMap<>(baldes.minus(hash), tamanho - 1);
+        }
+        Object[] novo = new Object[balde.length - 2];
+        System.arraycopy(balde, 0, novo, 0, posicao);
+        System.arraycopy(balde, posicao + 2, novo, posicao, balde.length - posicao - 2);
+        return new PersistentHashMap<>(baldes.plus(hash, novo), tamanho - 1);
+    }
+
+    /**
+     * Retorna o número de entradas.
+     *
+     * @return O tamanho do mapa.
+     */
+    public int size() {
+        return tamanho;
+    }
+
+    /**
+     * Executa uma ação para cada par chave/valor do mapa.
+     *
+     * @param acao A ação a executar.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> acao) {
+        for (Object[] balde : baldes) {
+            for (int i = 0; i < balde.length; i += 2) {
+                acao.accept((K) balde[i], (V) balde[i + 1]);
+            }
+        }
+    }
+
+    private static int posicao(Object[] balde, Object chave) {
+        for (int i = 0; i < balde.length; i += 2) {
+            if (balde[i].equals(chave)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(Object chave) {
+        int h = chave.hashCode();
+        return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,352 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Mapa imutável e persistente de chaves inteiras não negativas, com compartilhamento estrutural.
+ * <p>
+ * As entradas ficam em uma árvore de prefixos de largura 32, indexada pelos bits da chave. Inserir
+ * ou remover com {@link #plus(int, Object)} e {@link #minus(int)} devolve um novo mapa que copia
+ * apenas o caminho da raiz até a folha alterada (no máximo 7 nós) e reaproveita todo o resto.
+ * Por isso uma versão antiga pode ser guardada, e depois restaurada, com uma simples cópia de referência.
+ * </p>
+ * A iteração é sempre em ordem crescente de chave.
+ *
+ * @param <V> O tipo dos valores.
+ */
+public final class PersistentIntMap<V> implements Iterable<V>, Serializable {
+    private static final int BITS = 5;
+    private static final int LARGURA = 1 << BITS;
+    private static final int MASCARA = LARGURA - 1;
+
+    private static final PersistentIntMap<?> VAZIO = new PersistentIntMap<>(0, 0, null);
+
+    private final int tamanho;
+    private final int shift;
+    private final Object[] raiz;
+
+    private PersistentIntMap(int tamanho, int shift, Object[] raiz) {
+        this.tamanho = tamanho;
+        this.shift = shift;
+        this.raiz = raiz;
+    }
+
+    /**
+     * Retorna o mapa vazio.
+     *
+     * @param <V> O tipo dos valores.
+     * @return O mapa vazio compartilhado.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) VAZIO;
+    }
+
+    /**
+     * Busca o valor associado a uma chave.
+     *
+     * @param chave A chave.
+     * @return O valor, ou {@code null} se a chave não estiver no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int chave) {
+        if (chave < 0 || raiz == null || (chave >>> shift) > MASCARA) {
+            return null;
+        }
+        Object[] no = raiz;
+        for (int nivel = shift; nivel > 0; nivel -= BITS) {
+            no = (Object[]) no[(chave >>> nivel) & MASCARA];
+            if (no == null) {
+                return null;
+            }
+        }
+        return (V) no[chave & MASCARA];
+    }
+
+    /**
+     * Retorna um novo mapa em que a chave está associada ao valor informado.
+     * Este mapa não é modificado.
+     *
+     * @param chave A chave (não negativa).
+     * @param valor O valor (não nulo).
+     * @return A nova versão do mapa.
+     */
+    public PersistentIntMap<V> plus(int chave, V valor) {
+        Objects.requireNonNull(valor);
+        if (chave < 0) {
+            throw new IllegalArgumentException("Chave negativa: " + chave);
+        }
+        boolean existia = get(chave) != null;
+        Object[] novaRaiz = raiz;
+        int novoShift = shift;
+        while ((chave >>> novoShift) > MASCARA) {
+            // A chave não cabe na árvore atual: cresce um nível
+            if (novaRaiz != null) {
+                Object[] acima = new Object[LARGURA];
+                acima[0] = novaRaiz;
+                novaRaiz = acima;
+            }
+            novoShift += BITS;
+        }
+        novaRaiz = associar(novaRaiz, novoShift, chave, valor);
+        return new PersistentIntMap<>(existia ? tamanho : tamanho + 1, novoShift, novaRaiz);
+    }
+
+    /**
+     * Retorna um novo mapa sem a chave informada.
+     * Este mapa não é modificado.
+     *
+     * @param chave A chave a remover.
+     * @return A nova versão do mapa, ou este mesmo mapa se a chave não existir.
+     */
+    public PersistentIntMap<V> minus(int chave) {
+        if (get(chave) == null) {
+            return this;
+        }
+        if (tamanho == 1) {
+            return empty();
+        }
+        return new PersistentIntMap<>(tamanho - 1, shift, dissociar(raiz, shift, chave));
+    }
+
+    /**
+     * Retorna o número de entradas.
+     *
+     * @return O tamanho do mapa.
+     */
+    public int size() {
+        return tamanho;
+    }
+
+    /**
+     * Verifica se o mapa está vazio.
+     *
+     * @return {@code true} se não houver entradas.
+     */
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    /**
+     * Retorna a maior chave presente, descendo sempre pelo ramo mais à direita.
+     *
+     * @return A maior chave, ou {@code -1} se o mapa estiver vazio.
+     */
+    public int ultimaChave() {
+        if (tamanho == 0) {
+            return -1;
+        }
+        Object[] no = raiz;
+        int chave = 0;
+        for (int nivel = shift; ; nivel -= BITS) {
+            int i = MASCARA;
+            while (no[i] == null) {
+                i--;
+            }
+            chave |= i << nivel;
+            if (nivel == 0) {
+                return chave;
+            }
+            no = (Object[]) no[i];
+        }
+    }
+
+    /**
+     * Percorre os valores em ordem crescente de chave.
+     *
+     * @return Um iterador sobre os valores.
+     */
+    @Override
+    public Iterator<V> iterator() {
+        Cursor cursor = new Cursor();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return cursor.next();
+            }
+        };
+    }
+
+    /**
+     * Retorna uma visão somente leitura deste mapa como {@link Map}, com as chaves representadas
+     * pelo seu texto decimal (ex: {@code "42"}). Textos que não sejam a forma canônica de um
+     * inteiro não negativo nunca são encontrados.
+     *
+     * @return A visão como mapa, em ordem crescente de chave.
+     */
+    public Map<String, V> asMap() {
+        return new AbstractMap<>() {
+            @Override
+            public V get(Object chave) {
+                return PersistentIntMap.this.get(chaveDe(chave));
+            }
+
+            @Override
+            public boolean containsKey(Object chave) {
+                return get(chave) != null;
+            }
+
+            @Override
+            public int size() {
+                return tamanho;
+            }
+
+            @Override
+            public Set<Entry<String, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, V>> iterator() {
+                        Cursor cursor = new Cursor();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return cursor.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, V> next() {
+                                V valor = cursor.next();
+                                return new SimpleImmutableEntry<>(String.valueOf(cursor.chaveAtual), valor);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return tamanho;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Converte o texto de uma chave para o inteiro correspondente.
+     *
+     * @param chave O texto da chave.
+     * @return O inteiro, ou {@code -1} se o texto não for a forma canônica de um inteiro não negativo.
+     */
+    public static int chaveDe(Object chave) {
+        if (!(chave instanceof String texto) || texto.isEmpty() || texto.length() > 10) {
+            return -1;
+        }
+        if (texto.length() > 1 && texto.charAt(0) == '0') {
+            return -1;
+        }
+        long valor = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor > Integer.MAX_VALUE ? -1 : (int) valor;
+    }
+
+    private static Object[] associar(Object[] no, int nivel, int chave, Object valor) {
+        Object[] copia = no == null ? new Object[LARGURA] : no.clone();
+        int i = (chave >>> nivel) & MASCARA;
+        if (nivel == 0) {
+            copia[i] = valor;
+        } else {
+            copia[i] = associar((Object[]) copia[i], nivel - BITS, chave, valor);
+        }
+        return copia;
+    }
+
+    private static Object[] dissociar(Object[] no, int nivel, int chave) {
+        Object[] copia = no.clone();
+        int i = (chave >>> nivel) & MASCARA;
+        copia[i] = nivel == 0 ? null : dissociar((Object[]) copia[i], nivel - BITS, chave);
+        for (Object filho : copia) {
+            if (filho != null) {
+                return copia;
+            }
+        }
+        // O nó ficou vazio: o pai deixa de referenciá-lo
+        return null;
+    }
+
+    /**
+     * Percurso em profundidade da árvore, guardando a posição em cada nível.
+     */
+    private final class Cursor {
+        private final Object[][] nos;
+        private final int[] posicoes;
+        private int nivel;
+        private Object proximo;
+        private int proximaChave;
+        private int chaveAtual = -1;
+
+        private Cursor() {
+            int profundidade = shift / BITS + 1;
+            nos = new Object[profundidade][];
+            posicoes = new int[profundidade];
+            if (raiz != null) {
+                nos[0] = raiz;
+            } else {
+                nivel = -1;
+            }
+            avancar();
+        }
+
+        private boolean hasNext() {
+            return proximo != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V next() {
+            if (proximo == null) {
+                throw new NoSuchElementException();
+            }
+            V valor = (V) proximo;
+            chaveAtual = proximaChave;
+            avancar();
+            return valor;
+        }
+
+        private void avancar() {
+            int folha = nos.length - 1;
+            while (nivel >= 0) {
+                if (posicoes[nivel] > MASCARA) {
+                    nivel--;
+                    if (nivel >= 0) {
+                        posicoes[nivel]++;
+                    }
+                    continue;
+                }
+                Object item = nos[nivel][posicoes[nivel]];
+                if (item == null) {
+                    posicoes[nivel]++;
+                } else if (nivel == folha) {
+                    int chave = 0;
+                    for (int j = 0; j <= folha; j++) {
+                        chave |= posicoes[j] << (shift - j * BITS);
+                    }
+                    proximo = item;
+                    proximaChave = chave;
+                    posicoes[nivel]++;
+                    return;
+                } else {
+                    nivel++;
+                    nos[nivel] = (Object[]) item;
+                    posicoes[nivel] = 0;
+                }
+            }
+            proximo = null;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Lista imutável e persistente, com compartilhamento estrutural entre versões.
+ * <p>
+ * Os elementos ficam em uma árvore de largura 32 mais um bloco final ("cauda"). Acrescentar um
+ * elemento com {@link #plus(Object)} devolve uma nova lista que reaproveita todos os blocos da
+ * anterior, copiando apenas a cauda ou, a cada 32 elementos, o caminho até a nova folha. Assim,
+ * guardar uma versão antiga (por exemplo, em um snapshot de undo) custa apenas uma referência.
+ * </p>
+ * Os métodos de alteração herdados de {@link java.util.List} lançam {@link UnsupportedOperationException}.
+ *
+ * @param <E> O tipo dos elementos.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess, Serializable {
+    private static final int BITS = 5;
+    private static final int LARGURA = 1 << BITS;
+    private static final int MASCARA = LARGURA - 1;
+
+    private static final PersistentVector<?> VAZIO =
+            new PersistentVector<>(0, BITS, new Object[LARGURA], new Object[0]);
+
+    private final int tamanho;
+    private final int shift;
+    private final Object[] raiz;
+    private final Object[] cauda;
+
+    private PersistentVector(int tamanho, int shift, Object[] raiz, Object[] cauda) {
+        this.tamanho = tamanho;
+        this.shift = shift;
+        this.raiz = raiz;
+        this.cauda = cauda;
+    }
+
+    /**
+     * Retorna a lista vazia.
+     *
+     * @param <E> O tipo dos elementos.
+     * @return A lista vazia compartilhada.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) VAZIO;
+    }
+
+    /**
+     * Cria uma lista persistente com os elementos de uma coleção, na ordem de iteração.
+     * Se a coleção já for um {@link PersistentVector}, ela própria é devolvida.
+     *
+     * @param elementos Os elementos da nova lista.
+     * @param <E>       O tipo dos elementos.
+     * @return Uma lista persistente com os mesmos elementos.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> of(Collection<? extends E> elementos) {
+        if (elementos instanceof PersistentVector) {
+            return (PersistentVector<E>) elementos;
+        }
+        PersistentVector<E> vetor = empty();
+        for (E elemento : elementos) {
+            vetor = vetor.plus(elemento);
+        }
+        return vetor;
+    }
+
+    /**
+     * Retorna uma nova lista com o elemento acrescentado ao final.
+     * Esta lista não é modificada.
+     *
+     * @param elemento O elemento a acrescentar.
+     * @return A nova versão da lista.
+     */
+    public PersistentVector<E> plus(E elemento) {
+        int naCauda = tamanho - inicioCauda();
+        if (naCauda < LARGURA) {
+            Object[] novaCauda = Arrays.copyOf(cauda, naCauda + 1);
+            novaCauda[naCauda] = elemento;
+            return new PersistentVector<>(tamanho + 1, shift, raiz, novaCauda);
+        }
+
+        Object[] novaRaiz;
+        int novoShift = shift;
+        if ((tamanho >>> BITS) > (1 << shift)) {
+            // A árvore está cheia: cresce um nível
+            novaRaiz = new Object[LARGURA];
+            novaRaiz[0] = raiz;
+            novaRaiz[1] = novoCaminho(shift, cauda);
+            novoShift += BITS;
+        } else {
+            novaRaiz = empurrarCauda(shift, raiz, cauda);
+        }
+        return new PersistentVector<>(tamanho + 1, novoShift, novaRaiz, new Object[]{elemento});
+    }
+
+    /**
+     * Retorna o elemento na posição informada.
+     *
+     * @param indice A posição (base 0).
+     * @return O elemento.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int indice) {
+        Objects.checkIndex(indice, tamanho);
+        return (E) blocoDe(indice)[indice & MASCARA];
+    }
+
+    /**
+     * Retorna o número de elementos.
+     *
+     * @return O tamanho da lista.
+     */
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    /**
+     * Percorre a lista bloco a bloco, sem descer a árvore a cada elemento.
+     *
+     * @return Um iterador sobre os elementos, na ordem.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int indice = 0;
+            private Object[] bloco = tamanho > 0 ? blocoDe(0) : null;
+
+            @Override
+            public boolean hasNext() {
+                return indice < tamanho;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (indice >= tamanho) {
+                    throw new NoSuchElementException();
+                }
+                if ((indice & MASCARA) == 0 && indice > 0) {
+                    bloco = blocoDe(indice);
+                }
+                return (E) bloco[indice++ & MASCARA];
+            }
+        };
+    }
+
+    private int inicioCauda() {
+        if (tamanho < LARGURA) {
+            return 0;
+        }
+        return ((tamanho - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] blocoDe(int indice) {
+        if (indice >= inicioCauda()) {
+            return cauda;
+        }
+        Object[] no = raiz;
+        for (int nivel = shift; nivel > 0; nivel -= BITS) {
+            no = (Object[]) no[(indice >>> nivel) & MASCARA];
+        }
+        return no;
+    }
+
+    private Object[] empurrarCauda(int nivel, Object[] pai, Object[] folha) {
+        int subindice = ((tamanho - 1) >>> nivel) & MASCARA;
+        Object[] copia = pai.clone();
+        Object inserir;
+        if (nivel == BITS) {
+            inserir = folha;
+        } else {
+            Object[] filho = (Object[]) pai[subindice];
+            inserir = filho != null
+                    ? empurrarCauda(nivel - BITS, filho, folha)
+                    : novoCaminho(nivel - BITS, folha);
+        }
+        copia[subindice] = inserir;
+        return copia;
+    }
+
+    private static Object[] novoCaminho(int nivel, Object[] folha) {
+        if (nivel == 0) {
+            return folha;
+        }
+        Object[] no = new Object[LARGURA];
+        no[0] = novoCaminho(nivel - BITS, folha);
+        return no;
+    }
+}
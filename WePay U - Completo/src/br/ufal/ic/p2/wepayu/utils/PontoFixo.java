@@ -0,0 +1,93 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import br.ufal.ic.p2.wepayu.models.Lancamento;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversões entre {@link BigDecimal} e valores em ponto fixo ({@code long} com uma escala decimal
+ * implícita, ex: centavos com escala 2), usadas pelo cálculo da folha em aritmética inteira.
+ * <p>
+ * As conversões são exatas: se um valor tiver mais casas decimais do que a escala pedida, ou não
+ * couber em um {@code long}, é lançada uma {@link ArithmeticException}, para que o chamador recorra
+ * ao cálculo com {@link BigDecimal}.
+ * </p>
+ */
+public final class PontoFixo {
+    private static final long[] POTENCIAS_DE_10 = new long[19];
+
+    static {
+        POTENCIAS_DE_10[0] = 1;
+        for (int i = 1; i < POTENCIAS_DE_10.length; i++) {
+            POTENCIAS_DE_10[i] = POTENCIAS_DE_10[i - 1] * 10;
+        }
+    }
+
+    private PontoFixo() {}
+
+    /**
+     * Converte um valor para ponto fixo, sem arredondamento.
+     *
+     * @param valor  O valor.
+     * @param escala O número de casas decimais do resultado.
+     * @return O valor multiplicado por 10^{@code escala}.
+     * @throws ArithmeticException se o valor não for representável exatamente.
+     */
+    public static long escalar(BigDecimal valor, int escala) {
+        return valor.setScale(escala, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converte a quantia de um lançamento para ponto fixo, sem arredondamento e sem alocar objetos.
+     *
+     * @param lancamento O lançamento.
+     * @param escala     O número de casas decimais do resultado.
+     * @return A quantia multiplicada por 10^{@code escala}.
+     * @throws ArithmeticException se a quantia não for representável exatamente.
+     */
+    public static long escalar(Lancamento lancamento, int escala) {
+        if (!lancamento.isQuantiaCompacta()) {
+            throw new ArithmeticException("Quantia sem representação compacta");
+        }
+        return escalar(lancamento.getQuantiaUnscaled(), lancamento.getQuantiaEscala(), escala);
+    }
+
+    /**
+     * Muda a escala de um valor em ponto fixo, sem arredondamento.
+     *
+     * @param valor    Os dígitos do valor.
+     * @param origem   A escala de {@code valor}.
+     * @param destino  A escala do resultado.
+     * @return O mesmo valor na escala {@code destino}.
+     * @throws ArithmeticException se o valor não for representável exatamente.
+     */
+    public static long escalar(long valor, int origem, int destino) {
+        if (origem <= destino) {
+            return Math.multiplyExact(valor, potencia(destino - origem));
+        }
+        long divisor = potencia(origem - destino);
+        if (valor % divisor != 0) {
+            throw new ArithmeticException("Casas decimais além da escala " + destino);
+        }
+        return valor / divisor;
+    }
+
+    /**
+     * Converte um valor em ponto fixo para {@link BigDecimal}.
+     *
+     * @param valor  Os dígitos do valor.
+     * @param escala A escala de {@code valor}.
+     * @return O {@link BigDecimal} correspondente.
+     */
+    public static BigDecimal paraBigDecimal(long valor, int escala) {
+        return BigDecimal.valueOf(valor, escala);
+    }
+
+    private static long potencia(int expoente) {
+        if (expoente >= POTENCIAS_DE_10.length) {
+            throw new ArithmeticException("Escala fora do limite");
+        }
+        return POTENCIAS_DE_10[expoente];
+    }
+}
@@ -0,0 +1,271 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritor de relatórios em colunas de largura fixa, usado na geração das folhas de pagamento.
+ * <p>
+ * Os campos são escritos diretamente em um buffer de caracteres reaproveitado, sem
+ * {@link java.util.Formatter} nem Strings intermediárias, e o buffer é codificado (no charset
+ * padrão, como {@link java.io.FileWriter}) e gravado em blocos grandes em um {@link FileChannel}.
+ * </p>
+ * Os números seguem o que {@code String.format(Locale.FRANCE, "%N.Cf", valor)} produz para um
+ * {@link BigDecimal}: arredondamento {@link RoundingMode#HALF_UP} para {@code C} casas, vírgula
+ * decimal, sem separador de milhares, sinal de menos conforme o valor antes do arredondamento e
+ * alinhamento à direita em {@code N} colunas.
+ */
+public final class RelatorioWriter implements Closeable {
+    private static final int TAMANHO_BUFFER = 1 << 16;
+    private static final String SEPARADOR_DE_LINHA = System.lineSeparator();
+    /** Maior escala com a qual os dígitos de um valor sempre cabem em um {@code long}. */
+    private static final int PRECISAO_LONG = 18;
+    private static final long[] POTENCIAS_DE_10 = new long[PRECISAO_LONG + 1];
+
+    static {
+        POTENCIAS_DE_10[0] = 1;
+        for (int i = 1; i < POTENCIAS_DE_10.length; i++) {
+            POTENCIAS_DE_10[i] = POTENCIAS_DE_10[i - 1] * 10;
+        }
+    }
+
+    private final FileChannel canal;
+    private final CharsetEncoder encoder;
+    private final char[] caracteres = new char[TAMANHO_BUFFER];
+    private final CharBuffer entrada = CharBuffer.wrap(caracteres);
+    private final ByteBuffer saida = ByteBuffer.allocate(TAMANHO_BUFFER * 2);
+    private final char[] digitos = new char[PRECISAO_LONG + 2];
+    private int posicao;
+
+    /**
+     * Cria (ou trunca) o arquivo do relatório.
+     *
+     * @param caminho O caminho do arquivo.
+     * @throws IOException se o arquivo não puder ser aberto.
+     */
+    public RelatorioWriter(String caminho) throws IOException {
+        this.canal = FileChannel.open(Paths.get(caminho),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Escreve um texto.
+     *
+     * @param texto O texto.
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter texto(String texto) throws IOException {
+        int inicio = 0;
+        int tamanho = texto.length();
+        while (inicio < tamanho) {
+            int n = Math.min(tamanho - inicio, caracteres.length - posicao);
+            texto.getChars(inicio, inicio + n, caracteres, posicao);
+            posicao += n;
+            inicio += n;
+            if (posicao == caracteres.length) {
+                esvaziar(false);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Escreve um texto alinhado à esquerda em uma coluna, completando com espaços
+     * (como {@code %-Ns}). Textos mais longos que a coluna são escritos inteiros.
+     *
+     * @param texto   O texto.
+     * @param largura A largura da coluna.
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter textoEsquerda(String texto, int largura) throws IOException {
+        texto(texto);
+        return espacos(largura - texto.length());
+    }
+
+    /**
+     * Escreve um caractere.
+     *
+     * @param c O caractere.
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter caractere(char c) throws IOException {
+        if (posicao == caracteres.length) {
+            esvaziar(false);
+        }
+        caracteres[posicao++] = c;
+        return this;
+    }
+
+    /**
+     * Termina a linha com {@code '\n'}, como nas linhas formatadas do relatório.
+     *
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter novaLinha() throws IOException {
+        return caractere('\n');
+    }
+
+    /**
+     * Escreve um texto seguido do separador de linha do sistema (como {@link java.io.PrintWriter#println(String)}).
+     *
+     * @param texto O texto.
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter linha(String texto) throws IOException {
+        return texto(texto).texto(SEPARADOR_DE_LINHA);
+    }
+
+    /**
+     * Escreve um número decimal alinhado à direita em uma coluna (como {@code %N.Cf} com {@code Locale.FRANCE}).
+     *
+     * @param valor   O valor.
+     * @param largura A largura mínima da coluna.
+     * @param casas   O número de casas decimais.
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter decimal(BigDecimal valor, int largura, int casas) throws IOException {
+        int escala = valor.scale();
+        if (escala >= 0 && escala <= PRECISAO_LONG && valor.precision() <= PRECISAO_LONG) {
+            return decimal(valor.unscaledValue().longValue(), escala, largura, casas);
+        }
+        return decimalGrande(valor, largura, casas);
+    }
+
+    /**
+     * Escreve um número decimal em ponto fixo alinhado à direita em uma coluna, sem alocar objetos.
+     *
+     * @param digitosDoValor Os dígitos do valor, sem a vírgula.
+     * @param escala         O número de casas decimais de {@code digitosDoValor} (de 0 a 18).
+     * @param largura        A largura mínima da coluna.
+     * @param casas          O número de casas decimais escritas (de 0 a 18).
+     * @return Este escritor.
+     * @throws IOException se a gravação falhar.
+     */
+    public RelatorioWriter decimal(long digitosDoValor, int escala, int largura, int casas) throws IOException {
+        boolean negativo = digitosDoValor < 0;
+        long absoluto = Math.abs(digitosDoValor);
+        if (escala > casas) {
+            long divisor = POTENCIAS_DE_10[escala - casas];
+            long resto = absoluto % divisor;
+            absoluto /= divisor;
+            if (resto >= divisor - resto) {
+                absoluto++; // HALF_UP
+            }
+        } else if (escala < casas) {
+            long fator = POTENCIAS_DE_10[casas - escala];
+            if (absoluto > Long.MAX_VALUE / fator) {
+                return decimalGrande(BigDecimal.valueOf(digitosDoValor, escala), largura, casas);
+            }
+            absoluto *= fator;
+        }
+
+        // Dígitos de trás para frente, com a vírgula depois das casas decimais
+        int fim = digitos.length;
+        int i = fim;
+        for (int casa = 0; casa < casas; casa++) {
+            digitos[--i] = (char) ('0' + absoluto % 10);
+            absoluto /= 10;
+        }
+        if (casas > 0) {
+            digitos[--i] = ',';
+        }
+        do {
+            digitos[--i] = (char) ('0' + absoluto % 10);
+            absoluto /= 10;
+        } while (absoluto > 0);
+
+        int tamanho = fim - i + (negativo ? 1 : 0);
+        espacos(largura - tamanho);
+        if (negativo) {
+            caractere('-');
+        }
+        for (; i < fim; i++) {
+            caractere(digitos[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Grava o que restar no buffer e fecha o arquivo.
+     *
+     * @throws IOException se a gravação falhar.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            esvaziar(true);
+            encoder.flush(saida);
+            gravar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    /**
+     * Escreve um valor fora do alcance de um {@code long} (caso raro), formatado pelo próprio {@link BigDecimal}.
+     */
+    private RelatorioWriter decimalGrande(BigDecimal valor, int largura, int casas) throws IOException {
+        String absoluto = valor.abs().setScale(casas, RoundingMode.HALF_UP).toPlainString().replace('.', ',');
+        boolean negativo = valor.signum() < 0;
+        espacos(largura - absoluto.length() - (negativo ? 1 : 0));
+        if (negativo) {
+            caractere('-');
+        }
+        return texto(absoluto);
+    }
+
+    private RelatorioWriter espacos(int quantidade) throws IOException {
+        for (int i = 0; i < quantidade; i++) {
+            caractere(' ');
+        }
+        return this;
+    }
+
+    /**
+     * Codifica os caracteres do buffer e grava os bytes no canal. Um par substituto incompleto no
+     * fim do buffer fica para a próxima vez.
+     */
+    private void esvaziar(boolean fimDaEntrada) throws IOException {
+        entrada.limit(posicao).position(0);
+        while (true) {
+            CoderResult resultado = encoder.encode(entrada, saida, fimDaEntrada);
+            if (resultado.isOverflow()) {
+                gravar();
+            } else {
+                break;
+            }
+        }
+        int restantes = entrada.remaining();
+        System.arraycopy(caracteres, entrada.position(), caracteres, 0, restantes);
+        posicao = restantes;
+        entrada.clear();
+    }
+
+    private void gravar() throws IOException {
+        saida.flip();
+        while (saida.hasRemaining()) {
+            canal.write(saida);
+        }
+        saida.clear();
+    }
+}
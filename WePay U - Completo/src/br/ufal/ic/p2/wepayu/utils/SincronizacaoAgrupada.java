@@ -0,0 +1,93 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Sincronização com o disco agrupada entre threads (group commit).
+ * <p>
+ * Cada gravação é identificada por uma marca crescente (ex: o número de sequência de um registro).
+ * Quem precisa que a sua gravação esteja no disco chama {@link #aguardar(long)}: se uma
+ * sincronização já estiver em andamento, espera por ela; senão, faz uma, que cobre tudo o que foi
+ * descarregado até o momento, inclusive as gravações de outras threads que chegaram enquanto isso.
+ * Assim, várias gravações concorrentes custam uma única sincronização física.
+ * </p>
+ */
+public final class SincronizacaoAgrupada {
+
+    /**
+     * A sincronização física.
+     */
+    @FunctionalInterface
+    public interface Forcador {
+        /**
+         * Força para o disco tudo o que já foi descarregado.
+         *
+         * @return A maior marca coberta pela sincronização.
+         * @throws IOException se a sincronização falhar.
+         */
+        long forcar() throws IOException;
+    }
+
+    private final Forcador forcador;
+    private long duravelAte;
+    private boolean forcando;
+    private long sincronizacoes;
+
+    /**
+     * Cria o agrupador.
+     *
+     * @param forcador A sincronização física.
+     */
+    public SincronizacaoAgrupada(Forcador forcador) {
+        this.forcador = forcador;
+    }
+
+    /**
+     * Espera até que a gravação com a marca informada esteja no disco, fazendo a sincronização se
+     * nenhuma outra thread estiver fazendo.
+     *
+     * @param marca A marca da gravação, já descarregada.
+     * @throws IOException se a sincronização falhar ou a thread for interrompida.
+     */
+    public void aguardar(long marca) throws IOException {
+        while (true) {
+            synchronized (this) {
+                while (duravelAte < marca && forcando) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrompido esperando a sincronização com o disco");
+                    }
+                }
+                if (duravelAte >= marca) {
+                    return;
+                }
+                forcando = true;
+            }
+            long alcancada = -1;
+            try {
+                alcancada = forcador.forcar();
+            } finally {
+                synchronized (this) {
+                    forcando = false;
+                    if (alcancada >= 0) {
+                        duravelAte = Math.max(duravelAte, alcancada);
+                        sincronizacoes++;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna quantas sincronizações físicas foram feitas.
+     *
+     * @return O número de sincronizações.
+     */
+    public synchronized long getSincronizacoes() {
+        return sincronizacoes;
+    }
+}
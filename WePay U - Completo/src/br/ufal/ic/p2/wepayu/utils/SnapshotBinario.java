@@ -0,0 +1,693 @@
+package br.ufal.ic.p2.wepayu.utils;
+
+import br.ufal.ic.p2.wepayu.models.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot binário dos empregados, lido por mapeamento em memória ({@link FileChannel#map}).
+ * <p>
+ * Ao contrário do XML, que precisa ser lido do começo ao fim, o arquivo é aberto apenas mapeando-o:
+ * a tabela de cabeçalhos de tamanho fixo permite achar qualquer empregado pelo índice ou pelo ID
+ * (busca binária) e decodificá-lo só quando for pedido ({@link #getEmpregado(int)}), lendo
+ * diretamente do arquivo mapeado. O histórico de cada empregado fica no arquivo até ser consultado,
+ * de modo que só os empregados de fato usados ocupam memória com cartões, taxas e vendas.
+ * </p>
+ * <p>
+ * Formato (versão {@value #VERSAO}; inteiros big-endian; deslocamentos relativos ao início da área de dados):
+ * </p>
+ * <pre>
+ * cabeçalho (24 bytes): magia "WPUB", versão (short), tamanho do cabeçalho de empregado (short),
+ *                       quantidade de empregados (int), sequência do journal (long), reservado (int)
+ * tabela de cabeçalhos, um por empregado, em ordem crescente de ID ({@value #TAMANHO_CABECALHO} bytes cada):
+ *     ID (int), tipo (byte), marcas (byte: sindicalizado, tem última data de pagamento), método de
+ *     pagamento (byte), reservado (byte), última data de pagamento (int, dias desde 1970-01-01),
+ *     deslocamento dos atributos (int) e, para cartões, taxas e vendas, deslocamento e quantidade (int, int)
+ * área de dados, com os dados de cada empregado em sequência:
+ *     atributos: textos (tamanho em bytes e UTF-8, ou -1 para nulo) e decimais (0 para nulo; 1, escala e
+ *                dígitos; ou 2 e o texto) na ordem nome, endereço, agenda, ID do sindicato, taxa sindical,
+ *                salário, comissão, banco, agência e conta; a partir da versão 2, a referência ao histórico
+ *                arquivado (byte: 0 se não houver; ou 1, caminho do arquivo, último dia, primeiro dia de
+ *                cartão, quantidade de longs e os pares posição/tamanho dos blocos, ver {@link ArquivoHistorico})
+ *     cartões, taxas e vendas: arrays de registros de {@value #TAMANHO_REGISTRO} bytes (dia, escala, dígitos),
+ *                seguidos do texto das quantias que não cabem em um {@code long}; só os lançamentos não arquivados
+ * </pre>
+ * O arquivo é gravado com {@link ArquivoAtomico}; ao abri-lo, só o trailer é conferido, para não ler o
+ * arquivo inteiro. Arquivos da versão 1 continuam legíveis.
+ */
+public final class SnapshotBinario implements Iterable<Empregado> {
+    /** Versão atual do formato. */
+    public static final int VERSAO = 2;
+    private static final int MAGIA = 0x57505542; // "WPUB"
+    private static final int TAMANHO_CABECALHO_ARQUIVO = 24;
+    private static final int TAMANHO_CABECALHO = 40;
+    private static final int TAMANHO_REGISTRO = 16;
+
+    private static final byte HORISTA = 1;
+    private static final byte ASSALARIADO = 2;
+    private static final byte COMISSIONADO = 3;
+    private static final byte SINDICALIZADO = 1;
+    private static final byte TEM_ULTIMA_DATA = 2;
+    private static final byte METODO_NENHUM = 0;
+    private static final byte METODO_EM_MAOS = 1;
+    private static final byte METODO_CORREIOS = 2;
+    private static final byte METODO_BANCO = 3;
+    private static final byte DECIMAL_NULO = 0;
+    private static final byte DECIMAL_COMPACTO = 1;
+    private static final byte DECIMAL_TEXTO = 2;
+    /** Escala de um registro cuja quantia está em texto; os dígitos são então o deslocamento do texto. */
+    private static final int ESCALA_TEXTO = Integer.MIN_VALUE;
+    private static final int SEM_QUANTIA = -1;
+
+    private final ByteBuffer dados;
+    private final int versao;
+    private final int quantidade;
+    private final long sequenciaJournal;
+    private final int inicioDados;
+
+    private SnapshotBinario(ByteBuffer dados, int versao, int quantidade, long sequenciaJournal) {
+        this.dados = dados;
+        this.versao = versao;
+        this.quantidade = quantidade;
+        this.sequenciaJournal = sequenciaJournal;
+        this.inicioDados = TAMANHO_CABECALHO_ARQUIVO + quantidade * TAMANHO_CABECALHO;
+    }
+
+    /**
+     * Abre um snapshot binário, mapeando-o em memória. Nenhum empregado é decodificado aqui.
+     *
+     * @param filename O caminho do arquivo.
+     * @return O snapshot aberto.
+     * @throws IOException se o arquivo não existir, estiver truncado ou não for um snapshot de uma versão conhecida.
+     */
+    public static SnapshotBinario abrir(String filename) throws IOException {
+        File arquivo = new File(filename);
+        long tamanho = ArquivoAtomico.tamanhoConteudo(arquivo);
+        if (tamanho < TAMANHO_CABECALHO_ARQUIVO || tamanho > Integer.MAX_VALUE) {
+            throw new IOException(arquivo + ": tamanho inválido para um snapshot binário");
+        }
+        ByteBuffer dados;
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.READ)) {
+            dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+        }
+        if (dados.getInt(0) != MAGIA) {
+            throw new IOException(arquivo + ": não é um snapshot binário");
+        }
+        int versao = dados.getShort(4);
+        if (versao < 1 || versao > VERSAO || dados.getShort(6) != TAMANHO_CABECALHO) {
+            throw new IOException(arquivo + ": versão " + versao + " do snapshot binário não suportada");
+        }
+        int quantidade = dados.getInt(8);
+        if (quantidade < 0 || TAMANHO_CABECALHO_ARQUIVO + (long) quantidade * TAMANHO_CABECALHO > tamanho) {
+            throw new IOException(arquivo + ": tabela de cabeçalhos inválida");
+        }
+        return new SnapshotBinario(dados, versao, quantidade, dados.getLong(12));
+    }
+
+    /**
+     * Retorna quantos empregados o snapshot contém.
+     *
+     * @return A quantidade de empregados.
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Retorna o número de sequência do journal coberto pelo snapshot.
+     *
+     * @return O número de sequência, ou {@code 0} se não houver.
+     */
+    public long getSequenciaJournal() {
+        return sequenciaJournal;
+    }
+
+    /**
+     * Retorna o ID do empregado em uma posição, sem decodificá-lo.
+     *
+     * @param indice A posição, de 0 a {@link #getQuantidade()} - 1, em ordem crescente de ID.
+     * @return O ID do empregado.
+     */
+    public String getId(int indice) {
+        return String.valueOf(dados.getInt(cabecalho(indice)));
+    }
+
+    /**
+     * Busca a posição de um empregado pelo ID (busca binária na tabela de cabeçalhos).
+     *
+     * @param id O ID do empregado.
+     * @return A posição, ou {@code -1} se o empregado não estiver no snapshot.
+     */
+    public int indiceDe(String id) {
+        int chave = PersistentIntMap.chaveDe(id);
+        int inicio = 0;
+        int fim = quantidade - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            int atual = dados.getInt(cabecalho(meio));
+            if (atual < chave) {
+                inicio = meio + 1;
+            } else if (atual > chave) {
+                fim = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodifica o empregado de uma posição. Cada chamada cria um novo objeto. O histórico não é
+     * decodificado aqui: o empregado o lê do arquivo mapeado na primeira vez que for consultado
+     * (ver {@link Empregado#setFonteHistorico}).
+     *
+     * @param indice A posição, de 0 a {@link #getQuantidade()} - 1.
+     * @return O empregado.
+     */
+    public Empregado getEmpregado(int indice) {
+        int cabecalho = cabecalho(indice);
+        String id = String.valueOf(dados.getInt(cabecalho));
+        byte tipo = dados.get(cabecalho + 4);
+        byte marcas = dados.get(cabecalho + 5);
+        byte metodo = dados.get(cabecalho + 6);
+
+        Leitor atributos = new Leitor(inicioDados + dados.getInt(cabecalho + 12));
+        String nome = atributos.texto();
+        String endereco = atributos.texto();
+        String agenda = atributos.texto();
+        String idSindicato = atributos.texto();
+        BigDecimal taxaSindical = atributos.decimal();
+        BigDecimal salario = atributos.decimal();
+        BigDecimal comissao = atributos.decimal();
+        String banco = atributos.texto();
+        String agencia = atributos.texto();
+        String conta = atributos.texto();
+        ArquivoHistorico.Referencia arquivado = versao >= 2 ? atributos.arquivado() : null;
+
+        // Mesma sequência de construção da leitura do XML (XmlUtils.parseEmpregado)
+        Empregado empregado = switch (tipo) {
+            case HORISTA -> new EmpregadoHorista(id, nome, endereco, salario);
+            case ASSALARIADO -> new EmpregadoAssalariado(id, nome, endereco, salario);
+            case COMISSIONADO -> new EmpregadoComissionado(id, nome, endereco, salario, comissao);
+            default -> throw new IllegalStateException("Tipo de empregado desconhecido no snapshot: " + tipo);
+        };
+        empregado.setSindicalizado((marcas & SINDICALIZADO) != 0);
+        empregado.setIdSindicato(idSindicato);
+        if (taxaSindical != null) {
+            empregado.setTaxaSindical(taxaSindical);
+        }
+        if (agenda != null && !agenda.isEmpty()) {
+            empregado.setAgendaPagamento(agenda);
+        }
+        switch (metodo) {
+            case METODO_EM_MAOS -> empregado.setMetodoPagamento(new EmMaos());
+            case METODO_CORREIOS -> empregado.setMetodoPagamento(new Correios());
+            case METODO_BANCO -> empregado.setMetodoPagamento(new Banco(banco, agencia, conta));
+            default -> {
+                // Sem método gravado: fica o padrão do construtor
+            }
+        }
+
+        empregado.setFonteHistorico(new HistoricoMapeado(cabecalho));
+        empregado.setHistoricoArquivado(arquivado);
+        if ((marcas & TEM_ULTIMA_DATA) != 0) {
+            empregado.setUltimaDataPagamento(LocalDate.ofEpochDay(dados.getInt(cabecalho + 8)));
+        }
+        return empregado;
+    }
+
+    /**
+     * Decodifica um empregado pelo ID.
+     *
+     * @param id O ID do empregado.
+     * @return O empregado, ou {@code null} se ele não estiver no snapshot.
+     */
+    public Empregado buscar(String id) {
+        int indice = indiceDe(id);
+        return indice < 0 ? null : getEmpregado(indice);
+    }
+
+    /**
+     * Decodifica todos os empregados, em ordem crescente de ID, entregando cada um ao consumidor.
+     *
+     * @param consumidor Quem recebe cada empregado.
+     */
+    public void paraCada(Consumer<Empregado> consumidor) {
+        for (int i = 0; i < quantidade; i++) {
+            consumidor.accept(getEmpregado(i));
+        }
+    }
+
+    /**
+     * Percorre os empregados em ordem crescente de ID, decodificando cada um ao ser visitado.
+     *
+     * @return O iterador.
+     */
+    @Override
+    public Iterator<Empregado> iterator() {
+        return new Iterator<>() {
+            private int proximo;
+
+            @Override
+            public boolean hasNext() {
+                return proximo < quantidade;
+            }
+
+            @Override
+            public Empregado next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getEmpregado(proximo++);
+            }
+        };
+    }
+
+    /**
+     * Grava um snapshot binário. O arquivo é montado em duas passadas pelos empregados: a primeira
+     * calcula a tabela de cabeçalhos e os deslocamentos, e a segunda grava os dados; os empregados
+     * não precisam caber todos em memória ao mesmo tempo.
+     *
+     * @param filename         O caminho do arquivo.
+     * @param empregados       Os empregados, em ordem crescente de ID (com IDs numéricos); são percorridos duas vezes.
+     * @param sequenciaJournal O número de sequência do journal coberto pelo snapshot, ou {@code 0} se não houver.
+     * @throws IllegalArgumentException se os empregados não estiverem em ordem crescente de ID.
+     * @throws Exception                se o arquivo não puder ser gravado; o arquivo anterior continua intacto.
+     */
+    public static void salvar(String filename, Iterable<Empregado> empregados, long sequenciaJournal) throws Exception {
+        // Primeira passada: a tabela de cabeçalhos, com os deslocamentos calculados a partir do tamanho dos dados
+        DataOutputStream medidor = new DataOutputStream(OutputStream.nullOutputStream());
+        ByteBuffer tabela = ByteBuffer.allocate(TAMANHO_CABECALHO * 64);
+        int quantidade = 0;
+        int chaveAnterior = -1;
+        for (Empregado empregado : empregados) {
+            int chave = PersistentIntMap.chaveDe(empregado.getId());
+            if (chave <= chaveAnterior) {
+                throw new IllegalArgumentException("Empregados fora de ordem crescente de ID: " + empregado.getId());
+            }
+            chaveAnterior = chave;
+            if (tabela.remaining() < TAMANHO_CABECALHO) {
+                tabela = ByteBuffer.allocate(tabela.capacity() * 2).put(tabela.flip());
+            }
+            int deslocamento = medidor.size();
+            escreverDados(medidor, empregado, deslocamento);
+            if (medidor.size() == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot binário maior que 2 GB");
+            }
+            escreverCabecalho(tabela, chave, empregado, deslocamento);
+            quantidade++;
+        }
+        int totalEmpregados = quantidade;
+        ByteBuffer cabecalhos = tabela;
+
+        ArquivoAtomico.gravar(filename, saida -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(saida, 1 << 16));
+            out.writeInt(MAGIA);
+            out.writeShort(VERSAO);
+            out.writeShort(TAMANHO_CABECALHO);
+            out.writeInt(totalEmpregados);
+            out.writeLong(sequenciaJournal);
+            out.writeInt(0);
+            out.write(cabecalhos.array(), 0, cabecalhos.position());
+            // Segunda passada: os dados, nos mesmos deslocamentos calculados na primeira
+            int inicioDados = out.size();
+            for (Empregado empregado : empregados) {
+                escreverDados(out, empregado, out.size() - inicioDados);
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Converte um arquivo de empregados XML (no formato de {@code empregados.xml}) em um snapshot binário.
+     *
+     * @param xml      O caminho do arquivo XML.
+     * @param binario  O caminho do snapshot binário a gravar.
+     * @throws Exception se o XML não puder ser lido ou o snapshot não puder ser gravado.
+     */
+    public static void importarXml(String xml, String binario) throws Exception {
+        Map<String, Empregado> empregados = XmlUtils.carregarDados(xml);
+        List<Empregado> ordenados = new ArrayList<>(empregados.values());
+        ordenados.sort(Comparator.comparingInt(empregado -> PersistentIntMap.chaveDe(empregado.getId())));
+        salvar(binario, ordenados, XmlUtils.carregarSequenciaJournal(xml));
+    }
+
+    /**
+     * Converte um snapshot binário em um arquivo de empregados XML (no formato de {@code empregados.xml}),
+     * decodificando um empregado por vez.
+     *
+     * @param binario O caminho do snapshot binário.
+     * @param xml     O caminho do arquivo XML a gravar.
+     * @throws Exception se o snapshot não puder ser lido ou o XML não puder ser gravado.
+     */
+    public static void exportarXml(String binario, String xml) throws Exception {
+        SnapshotBinario snapshot = abrir(binario);
+        XmlUtils.salvarDados(xml, snapshot, snapshot.getSequenciaJournal());
+    }
+
+    /**
+     * Converte snapshots entre os formatos XML e binário.
+     * <p>
+     * Uso: {@code SnapshotBinario importar <empregados.xml> <snapshot.bin>} ou
+     * {@code SnapshotBinario exportar <snapshot.bin> <empregados.xml>}.
+     * </p>
+     *
+     * @param args Os argumentos da linha de comando.
+     * @throws Exception se a conversão falhar.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("importar")) {
+            importarXml(args[1], args[2]);
+        } else if (args.length == 3 && args[0].equals("exportar")) {
+            exportarXml(args[1], args[2]);
+        } else {
+            System.err.println("Uso: SnapshotBinario (importar <xml> <bin> | exportar <bin> <xml>)");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Retorna a posição no arquivo do cabeçalho de um empregado.
+     */
+    private int cabecalho(int indice) {
+        if (indice < 0 || indice >= quantidade) {
+            throw new IndexOutOfBoundsException(indice);
+        }
+        return TAMANHO_CABECALHO_ARQUIVO + indice * TAMANHO_CABECALHO;
+    }
+
+    /**
+     * Lê um array de registros, a partir do par (deslocamento, quantidade) no cabeçalho.
+     */
+    private <T extends Lancamento> List<T> lerRegistros(int posicaoNoCabecalho, Supplier<T> novo) {
+        int inicio = inicioDados + dados.getInt(posicaoNoCabecalho);
+        int total = dados.getInt(posicaoNoCabecalho + 4);
+        List<T> registros = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            int posicao = inicio + i * TAMANHO_REGISTRO;
+            int dia = dados.getInt(posicao);
+            int escala = dados.getInt(posicao + 4);
+            long digitos = dados.getLong(posicao + 8);
+            T registro = novo.get();
+            if (escala == ESCALA_TEXTO) {
+                registro.setCompacto(dia, 0, SEM_QUANTIA);
+                definirQuantia(registro, new BigDecimal(new Leitor(inicioDados + (int) digitos).texto()));
+            } else {
+                registro.setCompacto(dia, digitos, escala);
+            }
+            registros.add(registro);
+        }
+        return registros;
+    }
+
+    /**
+     * Grava os dados de um empregado (atributos, registros e textos das quantias grandes).
+     *
+     * @param deslocamento A posição destes dados na área de dados.
+     */
+    private static void escreverDados(DataOutputStream out, Empregado empregado, int deslocamento) throws IOException {
+        int inicio = out.size();
+        escreverTexto(out, empregado.getNome());
+        escreverTexto(out, empregado.getEndereco());
+        escreverTexto(out, empregado.getAgendaPagamento());
+        escreverTexto(out, empregado.getIdSindicato());
+        escreverDecimal(out, empregado.getTaxaSindical());
+        escreverDecimal(out, empregado.getSalario());
+        escreverDecimal(out, empregado instanceof EmpregadoComissionado comissionado ? comissionado.getComissao() : null);
+        Banco banco = empregado.getMetodoPagamento() instanceof Banco b ? b : null;
+        escreverTexto(out, banco == null ? null : banco.getBanco());
+        escreverTexto(out, banco == null ? null : banco.getAgencia());
+        escreverTexto(out, banco == null ? null : banco.getContaCorrente());
+        escreverArquivado(out, empregado.getHistoricoArquivado());
+
+        List<? extends Lancamento> cartoes = empregado.getCartoesPontoNaoArquivados();
+        List<? extends Lancamento> taxas = empregado.getTaxasDeServicoNaoArquivadas();
+        List<? extends Lancamento> vendas = vendasDe(empregado);
+        int tamanhoAtributos = out.size() - inicio;
+        int textos = deslocamento + tamanhoAtributos + (cartoes.size() + taxas.size() + vendas.size()) * TAMANHO_REGISTRO;
+        List<String> excedentes = new ArrayList<>();
+        for (List<? extends Lancamento> registros : List.of(cartoes, taxas, vendas)) {
+            for (Lancamento registro : registros) {
+                out.writeInt(registro.getDataEpochDay());
+                if (registro.isQuantiaCompacta() || registro.getQuantiaEscala() == SEM_QUANTIA) {
+                    out.writeInt(registro.getQuantiaEscala());
+                    out.writeLong(registro.getQuantiaUnscaled());
+                } else {
+                    String texto = quantiaDe(registro).toString();
+                    out.writeInt(ESCALA_TEXTO);
+                    out.writeLong(textos);
+                    textos += tamanhoTexto(texto);
+                    excedentes.add(texto);
+                }
+            }
+        }
+        for (String texto : excedentes) {
+            escreverTexto(out, texto);
+        }
+    }
+
+    /**
+     * Acrescenta à tabela o cabeçalho de um empregado, com os deslocamentos dos dados gravados por
+     * {@link #escreverDados} a partir de {@code deslocamento}.
+     */
+    private static void escreverCabecalho(ByteBuffer tabela, int chave, Empregado empregado, int deslocamento) {
+        List<? extends Lancamento> cartoes = empregado.getCartoesPontoNaoArquivados();
+        List<? extends Lancamento> taxas = empregado.getTaxasDeServicoNaoArquivadas();
+        List<? extends Lancamento> vendas = vendasDe(empregado);
+        byte marcas = 0;
+        if (empregado.isSindicalizado()) {
+            marcas |= SINDICALIZADO;
+        }
+        LocalDate ultimaData = empregado.getUltimaDataPagamento();
+        if (ultimaData != null) {
+            marcas |= TEM_ULTIMA_DATA;
+        }
+        MetodoPagamento metodo = empregado.getMetodoPagamento();
+        byte codigoMetodo = metodo instanceof EmMaos ? METODO_EM_MAOS
+                : metodo instanceof Correios ? METODO_CORREIOS
+                : metodo instanceof Banco ? METODO_BANCO
+                : METODO_NENHUM;
+
+        int atributos = tamanhoAtributos(empregado);
+        int inicioCartoes = deslocamento + atributos;
+        int inicioTaxas = inicioCartoes + cartoes.size() * TAMANHO_REGISTRO;
+        int inicioVendas = inicioTaxas + taxas.size() * TAMANHO_REGISTRO;
+        tabela.putInt(chave)
+                .put(tipoDe(empregado))
+                .put(marcas)
+                .put(codigoMetodo)
+                .put((byte) 0)
+                .putInt(ultimaData == null ? Lancamento.SEM_DATA : Math.toIntExact(ultimaData.toEpochDay()))
+                .putInt(deslocamento)
+                .putInt(inicioCartoes).putInt(cartoes.size())
+                .putInt(inicioTaxas).putInt(taxas.size())
+                .putInt(inicioVendas).putInt(vendas.size());
+    }
+
+    private static int tamanhoAtributos(Empregado empregado) {
+        Banco banco = empregado.getMetodoPagamento() instanceof Banco b ? b : null;
+        return tamanhoTexto(empregado.getNome()) + tamanhoTexto(empregado.getEndereco())
+                + tamanhoTexto(empregado.getAgendaPagamento()) + tamanhoTexto(empregado.getIdSindicato())
+                + tamanhoDecimal(empregado.getTaxaSindical()) + tamanhoDecimal(empregado.getSalario())
+                + tamanhoDecimal(empregado instanceof EmpregadoComissionado comissionado ? comissionado.getComissao() : null)
+                + tamanhoTexto(banco == null ? null : banco.getBanco())
+                + tamanhoTexto(banco == null ? null : banco.getAgencia())
+                + tamanhoTexto(banco == null ? null : banco.getContaCorrente())
+                + tamanhoArquivado(empregado.getHistoricoArquivado());
+    }
+
+    /**
+     * Grava a referência ao histórico arquivado, que vem depois dos demais atributos.
+     */
+    private static void escreverArquivado(DataOutputStream out, HistoricoArquivado arquivado) throws IOException {
+        if (arquivado == null) {
+            out.writeByte(0);
+            return;
+        }
+        ArquivoHistorico.Referencia referencia = (ArquivoHistorico.Referencia) arquivado;
+        long[] blocos = referencia.getBlocos();
+        out.writeByte(1);
+        escreverTexto(out, referencia.getArquivo());
+        out.writeInt(referencia.getUltimoDia());
+        out.writeInt(referencia.getPrimeiroDiaCartao());
+        out.writeInt(blocos.length);
+        for (long valor : blocos) {
+            out.writeLong(valor);
+        }
+    }
+
+    private static int tamanhoArquivado(HistoricoArquivado arquivado) {
+        if (arquivado == null) {
+            return 1;
+        }
+        ArquivoHistorico.Referencia referencia = (ArquivoHistorico.Referencia) arquivado;
+        return 1 + tamanhoTexto(referencia.getArquivo()) + 3 * Integer.BYTES + referencia.getBlocos().length * Long.BYTES;
+    }
+
+    private static byte tipoDe(Empregado empregado) {
+        if (empregado instanceof EmpregadoHorista) {
+            return HORISTA;
+        }
+        return empregado instanceof EmpregadoComissionado ? COMISSIONADO : ASSALARIADO;
+    }
+
+    private static List<? extends Lancamento> vendasDe(Empregado empregado) {
+        return empregado instanceof EmpregadoComissionado comissionado ? comissionado.getResultadosVendasNaoArquivados() : List.of();
+    }
+
+    static BigDecimal quantiaDe(Lancamento registro) {
+        if (registro instanceof CartaoDePonto cartao) {
+            return cartao.getHoras();
+        }
+        return registro instanceof TaxaDeServico taxa ? taxa.getValor() : ((ResultadoVenda) registro).getValor();
+    }
+
+    static void definirQuantia(Lancamento registro, BigDecimal quantia) {
+        if (registro instanceof CartaoDePonto cartao) {
+            cartao.setHoras(quantia);
+        } else if (registro instanceof TaxaDeServico taxa) {
+            taxa.setValor(quantia);
+        } else {
+            ((ResultadoVenda) registro).setValor(quantia);
+        }
+    }
+
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int tamanhoTexto(String texto) {
+        return Integer.BYTES + (texto == null ? 0 : texto.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void escreverDecimal(DataOutputStream out, BigDecimal valor) throws IOException {
+        if (valor == null) {
+            out.writeByte(DECIMAL_NULO);
+        } else if (cabeEmLong(valor)) {
+            out.writeByte(DECIMAL_COMPACTO);
+            out.writeInt(valor.scale());
+            out.writeLong(valor.unscaledValue().longValue());
+        } else {
+            out.writeByte(DECIMAL_TEXTO);
+            escreverTexto(out, valor.toString());
+        }
+    }
+
+    private static int tamanhoDecimal(BigDecimal valor) {
+        if (valor == null) {
+            return 1;
+        }
+        return cabeEmLong(valor) ? 1 + Integer.BYTES + Long.BYTES : 1 + tamanhoTexto(valor.toString());
+    }
+
+    private static boolean cabeEmLong(BigDecimal valor) {
+        BigInteger digitos = valor.unscaledValue();
+        return digitos.bitLength() < Long.SIZE;
+    }
+
+    /**
+     * Histórico de um empregado lido sob demanda do arquivo mapeado, a partir do seu cabeçalho.
+     */
+    private final class HistoricoMapeado implements FonteHistorico {
+        private final int cabecalho;
+
+        HistoricoMapeado(int cabecalho) {
+            this.cabecalho = cabecalho;
+        }
+
+        @Override
+        public List<CartaoDePonto> lerCartoes() {
+            return lerRegistros(cabecalho + 16, CartaoDePonto::new);
+        }
+
+        @Override
+        public List<TaxaDeServico> lerTaxas() {
+            return lerRegistros(cabecalho + 24, TaxaDeServico::new);
+        }
+
+        @Override
+        public List<ResultadoVenda> lerVendas() {
+            return lerRegistros(cabecalho + 32, ResultadoVenda::new);
+        }
+    }
+
+    /**
+     * Leitor sequencial de atributos a partir de uma posição do arquivo mapeado (só com leituras
+     * absolutas, então vários leitores podem usar o mesmo buffer ao mesmo tempo).
+     */
+    private final class Leitor {
+        private int posicao;
+
+        Leitor(int posicao) {
+            this.posicao = posicao;
+        }
+
+        String texto() {
+            int tamanho = dados.getInt(posicao);
+            posicao += Integer.BYTES;
+            if (tamanho < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[tamanho];
+            dados.get(posicao, bytes);
+            posicao += tamanho;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        BigDecimal decimal() {
+            byte tipo = dados.get(posicao++);
+            if (tipo == DECIMAL_NULO) {
+                return null;
+            }
+            if (tipo == DECIMAL_COMPACTO) {
+                int escala = dados.getInt(posicao);
+                long digitos = dados.getLong(posicao + Integer.BYTES);
+                posicao += Integer.BYTES + Long.BYTES;
+                return BigDecimal.valueOf(digitos, escala);
+            }
+            return new BigDecimal(texto());
+        }
+
+        ArquivoHistorico.Referencia arquivado() {
+            if (dados.get(posicao++) == 0) {
+                return null;
+            }
+            String arquivo = texto();
+            int ultimoDia = dados.getInt(posicao);
+            int primeiroDiaCartao = dados.getInt(posicao + Integer.BYTES);
+            long[] blocos = new long[dados.getInt(posicao + 2 * Integer.BYTES)];
+            posicao += 3 * Integer.BYTES;
+            for (int i = 0; i < blocos.length; i++) {
+                blocos[i] = dados.getLong(posicao);
+                posicao += Long.BYTES;
+            }
+            return new ArquivoHistorico.Referencia(arquivo, blocos, ultimoDia, primeiroDiaCartao);
+        }
+
+    }
+}
@@ -1,97 +1,160 @@
 package br.ufal.ic.p2.wepayu.utils;
 
 import br.ufal.ic.p2.wepayu.models.*;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Classe utilitária para manipulação de arquivos XML.
  * Fornece métodos para salvar e carregar os dados da aplicação, como
  * informações de empregados e agendas de pagamento, persistindo-os em formato XML.
+ * <p>
+ * A leitura e a escrita são feitas em fluxo (StAX): os empregados são lidos e gravados
+ * um de cada vez, sem montar o documento inteiro em memória. O formato gerado é o mesmo
+ * das versões anteriores, baseadas em DOM.
+ * </p>
+ * <p>
+ * Os arquivos são gravados por {@link ArquivoAtomico}: em um temporário, com um trailer de
+ * verificação, sincronizado e renomeado atomicamente. Antes de cada leitura o trailer é conferido,
+ * e erros de gravação ou de leitura são repassados a quem chamou, em vez de resultarem em dados vazios.
+ * </p>
  */
 public class XmlUtils {
 
+    private static final String DECLARACAO = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+    private static final String INDENTACAO = "    ";
+
     /**
      * Carrega os dados dos empregados a partir de um arquivo XML.
-     * Lê o arquivo especificado, faz o parsing do XML e reconstrói o mapa de empregados.
+     * Lê o arquivo especificado em fluxo e reconstrói o mapa de empregados.
      *
      * @param filename O caminho do arquivo XML a ser lido.
      * @return Um {@link Map} com os empregados carregados, onde a chave é o ID do empregado.
-     * Retorna um mapa vazio se o arquivo não existir ou se ocorrer um erro na leitura.
+     * Retorna um mapa vazio se o arquivo não existir.
+     * @throws Exception se o arquivo estiver truncado, corrompido ou malformado.
      */
-    public static Map<String, Empregado> carregarDados(String filename) {
+    public static Map<String, Empregado> carregarDados(String filename) throws Exception {
         Map<String, Empregado> empregados = new LinkedHashMap<>();
-        try {
-            File file = new File(filename);
-            if (!file.exists()) return empregados;
-
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(file);
-            doc.getDocumentElement().normalize();
-
-            NodeList nodeList = doc.getElementsByTagName("empregado");
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Element element = (Element) nodeList.item(i);
-                Empregado empregado = parseEmpregado(element);
-                if (empregado != null) {
-                    empregados.put(empregado.getId(), empregado);
+        carregarDados(filename, empregado -> empregados.put(empregado.getId(), empregado));
+        return empregados;
+    }
+
+    /**
+     * Lê um arquivo de empregados em fluxo, entregando cada empregado ao consumidor assim que
+     * o seu elemento termina de ser lido. Apenas um empregado fica em memória por vez.
+     * Um arquivo sem trailer de verificação, gravado por versões anteriores, é lido sem verificação.
+     *
+     * @param filename   O caminho do arquivo XML a ser lido.
+     * @param consumidor Quem recebe cada empregado lido, na ordem do arquivo.
+     * @throws Exception se o arquivo estiver truncado, corrompido, malformado ou contiver valores inválidos.
+     */
+    public static void carregarDados(String filename, Consumer<Empregado> consumidor) throws Exception {
+        File file = new File(filename);
+        if (!file.exists()) return;
+        ArquivoAtomico.verificarLegado(file);
+
+        try (InputStream in = new FileInputStream(file)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && reader.getLocalName().equals("empregado")) {
+                        Empregado empregado = parseEmpregado(reader);
+                        if (empregado != null) {
+                            consumidor.accept(empregado);
+                        }
+                    }
                 }
+            } finally {
+                reader.close();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return empregados;
     }
 
     /**
-     * Converte um elemento XML {@link Element} em um objeto {@link Empregado}.
-     * Este método auxiliar lê os atributos e sub-elementos para construir o objeto
+     * Converte o elemento {@code empregado} em que o leitor está posicionado em um objeto {@link Empregado}.
+     * Este método auxiliar lê os atributos e sub-elementos até o fim do elemento para construir o objeto
      * empregado com todos os seus dados, incluindo tipo, salário, informações sindicais,
      * método de pagamento e registros (cartões, vendas, taxas).
      *
-     * @param element O elemento XML que representa um empregado.
+     * @param reader O leitor posicionado no início de um elemento {@code empregado}.
      * @return Uma instância de {@link Empregado} (ou suas subclasses) preenchida com os dados do XML.
      * Retorna {@code null} se o tipo de empregado for desconhecido.
+     * @throws XMLStreamException se o elemento estiver malformado.
      */
-    private static Empregado parseEmpregado(Element element) {
-
-        String id = element.getAttribute("id");
-        String tipo = element.getAttribute("tipo");
-        String nome = getElementText(element, "nome");
-        String endereco = getElementText(element, "endereco");
-        String sindicalizado = getElementText(element, "sindicalizado");
-        String idSindicato = getElementText(element, "idSindicato");
-        String taxaSindical = getElementText(element, "taxaSindical");
-        String agendaPagamento = getElementText(element, "agendaPagamento");
+    private static Empregado parseEmpregado(XMLStreamReader reader) throws XMLStreamException {
+        String id = reader.getAttributeValue(null, "id");
+        String tipo = reader.getAttributeValue(null, "tipo");
+
+        Map<String, String> campos = new HashMap<>();
+        List<CartaoDePonto> cartoes = new ArrayList<>();
+        List<TaxaDeServico> taxas = new ArrayList<>();
+        List<ResultadoVenda> vendas = new ArrayList<>();
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String tag = reader.getLocalName();
+            switch (tag) {
+                case "cartao": {
+                    Map<String, String> registro = lerRegistro(reader);
+                    cartoes.add(new CartaoDePonto(LocalDate.parse(registro.get("data")),
+                            new BigDecimal(registro.get("horas"))));
+                    break;
+                }
+                case "taxa": {
+                    Map<String, String> registro = lerRegistro(reader);
+                    taxas.add(new TaxaDeServico(LocalDate.parse(registro.get("data")),
+                            new BigDecimal(registro.get("valor"))));
+                    break;
+                }
+                case "venda": {
+                    Map<String, String> registro = lerRegistro(reader);
+                    vendas.add(new ResultadoVenda(LocalDate.parse(registro.get("data")),
+                            new BigDecimal(registro.get("valor"))));
+                    break;
+                }
+                default:
+                    campos.putIfAbsent(tag, reader.getElementText());
+            }
+        }
 
+        String nome = campos.get("nome");
+        String endereco = campos.get("endereco");
+        String sindicalizado = campos.get("sindicalizado");
+        String idSindicato = campos.get("idSindicato");
+        String taxaSindical = campos.get("taxaSindical");
+        String agendaPagamento = campos.get("agendaPagamento");
 
         Empregado empregado;
         switch (tipo) {
             case "horista":
-                String salarioHora = getElementText(element, "salarioHora");
+                String salarioHora = campos.get("salarioHora");
                 empregado = new EmpregadoHorista(id, nome, endereco, new BigDecimal(salarioHora));
                 break;
             case "assalariado":
-                String salarioMensal = getElementText(element, "salarioMensal");
+                String salarioMensal = campos.get("salarioMensal");
                 empregado = new EmpregadoAssalariado(id, nome, endereco, new BigDecimal(salarioMensal));
                 break;
             case "comissionado":
-                String salarioBase = getElementText(element, "salarioMensal");
-                String comissao = getElementText(element, "comissao");
+                String salarioBase = campos.get("salarioMensal");
+                String comissao = campos.get("comissao");
                 empregado = new EmpregadoComissionado(id, nome, endereco,
                         new BigDecimal(salarioBase), new BigDecimal(comissao));
                 break;
@@ -109,7 +172,7 @@ public class XmlUtils {
             empregado.setAgendaPagamento(agendaPagamento);
         }
 
-        String metodoPagamento = getElementText(element, "metodoPagamento");
+        String metodoPagamento = campos.get("metodoPagamento");
         if (metodoPagamento != null) {
             switch (metodoPagamento) {
                 case "emMaos":
@@ -119,47 +182,22 @@ public class XmlUtils {
                     empregado.setMetodoPagamento(new Correios());
                     break;
                 case "banco":
-                    String banco = getElementText(element, "banco");
-                    String agencia = getElementText(element, "agencia");
-                    String conta = getElementText(element, "contaCorrente");
+                    String banco = campos.get("banco");
+                    String agencia = campos.get("agencia");
+                    String conta = campos.get("contaCorrente");
                     empregado.setMetodoPagamento(new Banco(banco, agencia, conta));
                     break;
             }
         }
 
-        NodeList cartoes = element.getElementsByTagName("cartao");
-        for (int i = 0; i < cartoes.getLength(); i++) {
-            Element cartaoElement = (Element) cartoes.item(i);
-            String dataStr = getElementText(cartaoElement, "data");
-            String horasStr = getElementText(cartaoElement, "horas");
-            LocalDate data = LocalDate.parse(dataStr);
-            BigDecimal horas = new BigDecimal(horasStr);
-            empregado.getCartoesPonto().add(new CartaoDePonto(data, horas));
-        }
-
-        NodeList taxas = element.getElementsByTagName("taxa");
-        for (int i = 0; i < taxas.getLength(); i++) {
-            Element taxaElement = (Element) taxas.item(i);
-            String dataStr = getElementText(taxaElement, "data");
-            String valorStr = getElementText(taxaElement, "valor");
-            LocalDate data = LocalDate.parse(dataStr);
-            BigDecimal valor = new BigDecimal(valorStr);
-            empregado.getTaxasDeServico().add(new TaxaDeServico(data, valor));
-        }
+        empregado.setCartoesPonto(cartoes);
+        empregado.setTaxasDeServico(taxas);
 
         if (empregado instanceof EmpregadoComissionado) {
-            NodeList vendas = element.getElementsByTagName("venda");
-            for (int i = 0; i < vendas.getLength(); i++) {
-                Element vendaElement = (Element) vendas.item(i);
-                String dataStr = getElementText(vendaElement, "data");
-                String valorStr = getElementText(vendaElement, "valor");
-                LocalDate data = LocalDate.parse(dataStr);
-                BigDecimal valor = new BigDecimal(valorStr);
-                ((EmpregadoComissionado) empregado).getResultadosVendas().add(new ResultadoVenda(data, valor));
-            }
+            ((EmpregadoComissionado) empregado).setResultadosVendas(vendas);
         }
 
-        String ultimaDataPagamentoStr = getElementText(element, "ultimaDataPagamento");
+        String ultimaDataPagamentoStr = campos.get("ultimaDataPagamento");
         if (ultimaDataPagamentoStr != null) {
             empregado.setUltimaDataPagamento(LocalDate.parse(ultimaDataPagamentoStr));
         }
@@ -167,6 +205,22 @@ public class XmlUtils {
         return empregado;
     }
 
+    /**
+     * Lê os sub-elementos de texto de um registro ({@code cartao}, {@code taxa} ou {@code venda}),
+     * deixando o leitor posicionado no fim do elemento.
+     *
+     * @param reader O leitor posicionado no início do registro.
+     * @return Um {@link Map} com o texto de cada sub-elemento; vale a primeira ocorrência de cada nome.
+     * @throws XMLStreamException se o registro estiver malformado.
+     */
+    private static Map<String, String> lerRegistro(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> registro = new HashMap<>(4);
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            registro.putIfAbsent(reader.getLocalName(), reader.getElementText());
+        }
+        return registro;
+    }
+
     /**
      * Salva os dados de um mapa de empregados em um arquivo XML.
      * Serializa cada objeto {@link Empregado} do mapa em um elemento XML,
@@ -174,95 +228,126 @@ public class XmlUtils {
      *
      * @param filename O caminho do arquivo XML onde os dados serão salvos.
      * @param data     O {@link Map} de empregados a ser persistido.
+     * @throws Exception se o arquivo não puder ser gravado; o arquivo anterior continua intacto.
      */
-    public static void salvarDados(String filename, Map<String, Empregado> data) {
-
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.newDocument();
-
-            Element root = doc.createElement("empregados");
-            doc.appendChild(root);
-
-            for (Empregado empregado : data.values()) {
-                Element empElement = doc.createElement("empregado");
-                empElement.setAttribute("id", empregado.getId());
-                empElement.setAttribute("tipo", empregado.getTipo());
-
-                addElement(doc, empElement, "nome", empregado.getNome());
-                addElement(doc, empElement, "endereco", empregado.getEndereco());
-                addElement(doc, empElement, "agendaPagamento", empregado.getAgendaPagamento());
-                addElement(doc, empElement, "sindicalizado", String.valueOf(empregado.isSindicalizado()));
-                addElement(doc, empElement, "idSindicato", empregado.getIdSindicato());
-                if (empregado.getTaxaSindical() != null) {
-                    addElement(doc, empElement, "taxaSindical", empregado.getTaxaSindical().toString());
-                }
+    public static void salvarDados(String filename, Map<String, Empregado> data) throws Exception {
+        salvarDados(filename, data, 0);
+    }
 
-                if (empregado instanceof EmpregadoHorista) {
-                    addElement(doc, empElement, "salarioHora", empregado.getSalario().toString());
-                } else {
-                    addElement(doc, empElement, "salarioMensal", empregado.getSalario().toString());
-                }
+    /**
+     * Salva os dados de um mapa de empregados em um arquivo XML, registrando no elemento raiz
+     * o número de sequência do último registro do journal já contido neste snapshot.
+     *
+     * @param filename          O caminho do arquivo XML onde os dados serão salvos.
+     * @param data              O {@link Map} de empregados a ser persistido.
+     * @param sequenciaJournal  O número de sequência do journal coberto pelo snapshot.
+     * @throws Exception se o arquivo não puder ser gravado.
+     */
+    public static void salvarDados(String filename, Map<String, Empregado> data, long sequenciaJournal) throws Exception {
+        salvarDados(filename, data.values(), sequenciaJournal);
+    }
 
-                if (empregado instanceof EmpregadoComissionado) {
-                    addElement(doc, empElement, "comissao",
-                            ((EmpregadoComissionado) empregado).getComissao().toString());
+    /**
+     * Grava em fluxo uma sequência de empregados em um arquivo XML, um elemento por vez.
+     *
+     * @param filename          O caminho do arquivo XML onde os dados serão salvos.
+     * @param empregados        Os empregados a serem persistidos, na ordem em que devem aparecer no arquivo.
+     * @param sequenciaJournal  O número de sequência do journal coberto pelo snapshot, ou {@code 0} se não houver.
+     * @throws Exception se o arquivo não puder ser gravado; o arquivo anterior continua intacto.
+     */
+    public static void salvarDados(String filename, Iterable<Empregado> empregados, long sequenciaJournal) throws Exception {
+        ArquivoAtomico.gravar(filename, saida -> {
+            try (Writer out = abrirEscrita(saida)) {
+                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+                try {
+                    Iterator<Empregado> it = empregados.iterator();
+                    quebrarLinha(writer, 0);
+                    abrirElemento(writer, "empregados", it.hasNext());
+                    if (sequenciaJournal > 0) {
+                        writer.writeAttribute("journalSeq", String.valueOf(sequenciaJournal));
+                    }
+                    if (it.hasNext()) {
+                        while (it.hasNext()) {
+                            escreverEmpregado(writer, it.next());
+                        }
+                        quebrarLinha(writer, 0);
+                        writer.writeEndElement();
+                    }
+                    quebrarLinha(writer, 0);
+                    writer.flush();
+                } finally {
+                    writer.close();
                 }
+            }
+        });
+    }
 
-                MetodoPagamento metodo = empregado.getMetodoPagamento();
-                if (metodo instanceof EmMaos) {
-                    addElement(doc, empElement, "metodoPagamento", "emMaos");
-                } else if (metodo instanceof Correios) {
-                    addElement(doc, empElement, "metodoPagamento", "correios");
-                } else if (metodo instanceof Banco) {
-                    addElement(doc, empElement, "metodoPagamento", "banco");
-                    Banco banco = (Banco) metodo;
-                    addElement(doc, empElement, "banco", banco.getBanco());
-                    addElement(doc, empElement, "agencia", banco.getAgencia());
-                    addElement(doc, empElement, "contaCorrente", banco.getContaCorrente());
-                }
+    /**
+     * Serializa um único empregado como um elemento {@code empregado}.
+     *
+     * @param writer    O escritor XML de destino.
+     * @param empregado O empregado a ser serializado.
+     * @throws XMLStreamException se ocorrer um erro de escrita.
+     */
+    private static void escreverEmpregado(XMLStreamWriter writer, Empregado empregado) throws XMLStreamException {
+        quebrarLinha(writer, 1);
+        writer.writeStartElement("empregado");
+        writer.writeAttribute("id", empregado.getId());
+        writer.writeAttribute("tipo", empregado.getTipo());
+
+        addElement(writer, 2, "nome", empregado.getNome());
+        addElement(writer, 2, "endereco", empregado.getEndereco());
+        addElement(writer, 2, "agendaPagamento", empregado.getAgendaPagamento());
+        addElement(writer, 2, "sindicalizado", String.valueOf(empregado.isSindicalizado()));
+        addElement(writer, 2, "idSindicato", empregado.getIdSindicato());
+        if (empregado.getTaxaSindical() != null) {
+            addElement(writer, 2, "taxaSindical", empregado.getTaxaSindical().toString());
+        }
 
-                for (CartaoDePonto cartao : empregado.getCartoesPonto()) {
-                    Element cartaoElement = doc.createElement("cartao");
-                    addElement(doc, cartaoElement, "data", cartao.getData().toString());
-                    addElement(doc, cartaoElement, "horas", cartao.getHoras().toString());
-                    empElement.appendChild(cartaoElement);
-                }
+        if (empregado instanceof EmpregadoHorista) {
+            addElement(writer, 2, "salarioHora", empregado.getSalario().toString());
+        } else {
+            addElement(writer, 2, "salarioMensal", empregado.getSalario().toString());
+        }
 
-                for (TaxaDeServico taxa : empregado.getTaxasDeServico()) {
-                    Element taxaElement = doc.createElement("taxa");
-                    addElement(doc, taxaElement, "data", taxa.getData().toString());
-                    addElement(doc, taxaElement, "valor", taxa.getValor().toString());
-                    empElement.appendChild(taxaElement);
-                }
+        if (empregado instanceof EmpregadoComissionado) {
+            addElement(writer, 2, "comissao",
+                    ((EmpregadoComissionado) empregado).getComissao().toString());
+        }
 
-                if (empregado instanceof EmpregadoComissionado) {
-                    for (ResultadoVenda venda : ((EmpregadoComissionado) empregado).getResultadosVendas()) {
-                        Element vendaElement = doc.createElement("venda");
-                        addElement(doc, vendaElement, "data", venda.getData().toString());
-                        addElement(doc, vendaElement, "valor", venda.getValor().toString());
-                        empElement.appendChild(vendaElement);
-                    }
-                }
+        MetodoPagamento metodo = empregado.getMetodoPagamento();
+        if (metodo instanceof EmMaos) {
+            addElement(writer, 2, "metodoPagamento", "emMaos");
+        } else if (metodo instanceof Correios) {
+            addElement(writer, 2, "metodoPagamento", "correios");
+        } else if (metodo instanceof Banco) {
+            addElement(writer, 2, "metodoPagamento", "banco");
+            Banco banco = (Banco) metodo;
+            addElement(writer, 2, "banco", banco.getBanco());
+            addElement(writer, 2, "agencia", banco.getAgencia());
+            addElement(writer, 2, "contaCorrente", banco.getContaCorrente());
+        }
 
-                if (empregado.getUltimaDataPagamento() != null) {
-                    addElement(doc, empElement, "ultimaDataPagamento", empregado.getUltimaDataPagamento().toString());
-                }
+        for (CartaoDePonto cartao : empregado.getCartoesPonto()) {
+            addRegistro(writer, "cartao", cartao.getData(), "horas", cartao.getHoras());
+        }
 
-                root.appendChild(empElement);
-            }
+        for (TaxaDeServico taxa : empregado.getTaxasDeServico()) {
+            addRegistro(writer, "taxa", taxa.getData(), "valor", taxa.getValor());
+        }
 
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(new File(filename));
-            transformer.transform(source, result);
+        if (empregado instanceof EmpregadoComissionado) {
+            for (ResultadoVenda venda : ((EmpregadoComissionado) empregado).getResultadosVendas()) {
+                addRegistro(writer, "venda", venda.getData(), "valor", venda.getValor());
+            }
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (empregado.getUltimaDataPagamento() != null) {
+            addElement(writer, 2, "ultimaDataPagamento", empregado.getUltimaDataPagamento().toString());
         }
+
+        quebrarLinha(writer, 1);
+        writer.writeEndElement();
     }
 
     /**
@@ -270,30 +355,29 @@ public class XmlUtils {
      *
      * @param filename O caminho do arquivo XML onde as agendas serão salvas.
      * @param data     Um {@link Set} contendo as descrições das agendas.
+     * @throws IOException se o arquivo não puder ser gravado; o arquivo anterior continua intacto.
      */
-    public static void salvarAgendas(String filename, Set<String> data) {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.newDocument();
-
-            Element root = doc.createElement("agendas");
-            doc.appendChild(root);
-
-            for (String descricao : data) {
-                addElement(doc, root, "agenda", descricao);
+    public static void salvarAgendas(String filename, Set<String> data) throws IOException {
+        ArquivoAtomico.gravar(filename, saida -> {
+            try (Writer out = abrirEscrita(saida)) {
+                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+                try {
+                    quebrarLinha(writer, 0);
+                    abrirElemento(writer, "agendas", !data.isEmpty());
+                    if (!data.isEmpty()) {
+                        for (String descricao : data) {
+                            addElement(writer, 1, "agenda", descricao);
+                        }
+                        quebrarLinha(writer, 0);
+                        writer.writeEndElement();
+                    }
+                    quebrarLinha(writer, 0);
+                    writer.flush();
+                } finally {
+                    writer.close();
+                }
             }
-
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(new File(filename));
-            transformer.transform(source, result);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     /**
@@ -301,59 +385,149 @@ public class XmlUtils {
      *
      * @param filename O caminho do arquivo XML a ser lido.
      * @return Um {@link Set} com as descrições das agendas carregadas.
-     * Retorna um conjunto vazio se o arquivo não existir ou se ocorrer um erro.
+     * Retorna um conjunto vazio se o arquivo não existir.
+     * @throws Exception se o arquivo estiver truncado, corrompido ou malformado.
      */
-    public static Set<String> carregarAgendas(String filename) {
+    public static Set<String> carregarAgendas(String filename) throws Exception {
         Set<String> agendas = new HashSet<>();
-        try {
-            File file = new File(filename);
-            if (!file.exists()) return agendas;
-
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(file);
-            doc.getDocumentElement().normalize();
-
-            NodeList nodeList = doc.getElementsByTagName("agenda");
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                agendas.add(nodeList.item(i).getTextContent());
+        File file = new File(filename);
+        if (!file.exists()) return agendas;
+
+        ArquivoAtomico.verificar(file);
+        try (InputStream in = new FileInputStream(file)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && reader.getLocalName().equals("agenda")) {
+                        agendas.add(reader.getElementText());
+                    }
+                }
+            } finally {
+                reader.close();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
         return agendas;
     }
 
 
     /**
-     * Obtém o conteúdo de texto de um sub-elemento de um elemento pai.
+     * Lê, sem carregar o documento inteiro, o número de sequência do journal registrado
+     * no elemento raiz de um arquivo de empregados.
+     *
+     * @param filename O caminho do arquivo XML a ser lido.
+     * @return O número de sequência registrado, ou {@code 0} se o arquivo não existir ou não o contiver.
+     * @throws Exception se o arquivo estiver malformado.
+     */
+    public static long carregarSequenciaJournal(String filename) throws Exception {
+        File file = new File(filename);
+        if (!file.exists()) return 0;
+        try (InputStream in = new FileInputStream(file)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        String seq = reader.getAttributeValue(null, "journalSeq");
+                        return seq == null ? 0 : Long.parseLong(seq);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Prepara a escrita em UTF-8 e grava a declaração XML no mesmo formato
+     * produzido pelas versões anteriores.
+     *
+     * @param saida O fluxo do arquivo sendo gravado.
+     * @return O {@link Writer} posicionado logo após a declaração.
+     * @throws java.io.IOException se a declaração não puder ser escrita.
+     */
+    private static Writer abrirEscrita(OutputStream saida) throws java.io.IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        out.write(DECLARACAO);
+        return out;
+    }
+
+    /**
+     * Abre o elemento raiz do arquivo; sem conteúdo, ele é gravado na forma vazia ({@code <raiz/>}).
      *
-     * @param parent  O elemento XML pai.
-     * @param tagName O nome da tag do sub-elemento desejado.
-     * @return O conteúdo de texto do primeiro sub-elemento encontrado com o nome da tag,
-     * ou {@code null} se nenhum elemento for encontrado.
+     * @param writer      O escritor XML de destino.
+     * @param tagName     O nome da tag raiz.
+     * @param temConteudo Se o elemento terá filhos.
+     * @throws XMLStreamException se ocorrer um erro de escrita.
      */
-    private static String getElementText(Element parent, String tagName) {
-        NodeList nodes = parent.getElementsByTagName(tagName);
-        if (nodes.getLength() > 0) {
-            return nodes.item(0).getTextContent();
+    private static void abrirElemento(XMLStreamWriter writer, String tagName, boolean temConteudo) throws XMLStreamException {
+        if (temConteudo) {
+            writer.writeStartElement(tagName);
+        } else {
+            writer.writeEmptyElement(tagName);
         }
-        return null;
     }
 
     /**
-     * Cria e adiciona um novo elemento com conteúdo de texto a um elemento pai.
+     * Escreve uma quebra de linha seguida da indentação do nível informado.
      *
-     * @param doc     O documento XML ao qual o elemento pertence.
-     * @param parent  O elemento XML pai onde o novo elemento será adicionado.
+     * @param writer O escritor XML de destino.
+     * @param nivel  O nível de aninhamento da próxima tag.
+     * @throws XMLStreamException se ocorrer um erro de escrita.
+     */
+    private static void quebrarLinha(XMLStreamWriter writer, int nivel) throws XMLStreamException {
+        writer.writeCharacters(System.lineSeparator() + INDENTACAO.repeat(nivel));
+    }
+
+    /**
+     * Escreve um registro datado ({@code cartao}, {@code taxa} ou {@code venda}) com seus dois sub-elementos.
+     *
+     * @param writer    O escritor XML de destino.
+     * @param tagName   O nome da tag do registro.
+     * @param data      A data do registro.
+     * @param tagValor  O nome da tag do valor ({@code horas} ou {@code valor}).
+     * @param valor     O valor do registro.
+     * @throws XMLStreamException se ocorrer um erro de escrita.
+     */
+    private static void addRegistro(XMLStreamWriter writer, String tagName, LocalDate data,
+                                    String tagValor, BigDecimal valor) throws XMLStreamException {
+        quebrarLinha(writer, 2);
+        writer.writeStartElement(tagName);
+        addElement(writer, 3, "data", data.toString());
+        addElement(writer, 3, tagValor, valor.toString());
+        quebrarLinha(writer, 2);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Escreve um novo elemento com conteúdo de texto, em uma linha própria.
+     * <p>
+     * Retornos de carro são gravados como referência de caractere ({@code &#13;}),
+     * para que não sejam normalizados na leitura.
+     * </p>
+     *
+     * @param writer  O escritor XML de destino.
+     * @param nivel   O nível de indentação do elemento.
      * @param tagName O nome da tag do novo elemento.
      * @param value   O conteúdo de texto do novo elemento. Se for {@code null}, o método não faz nada.
+     * @throws XMLStreamException se ocorrer um erro de escrita.
      */
-    private static void addElement(Document doc, Element parent, String tagName, String value) {
+    private static void addElement(XMLStreamWriter writer, int nivel, String tagName, String value) throws XMLStreamException {
         if (value != null) {
-            Element element = doc.createElement(tagName);
-            element.setTextContent(value);
-            parent.appendChild(element);
+            quebrarLinha(writer, nivel);
+            if (value.isEmpty()) {
+                writer.writeEmptyElement(tagName);
+                return;
+            }
+            writer.writeStartElement(tagName);
+            int inicio = 0;
+            for (int i = value.indexOf('\r'); i >= 0; i = value.indexOf('\r', inicio)) {
+                writer.writeCharacters(value.substring(inicio, i));
+                writer.writeEntityRef("#13");
+                inicio = i + 1;
+            }
+            writer.writeCharacters(value.substring(inicio));
+            writer.writeEndElement();
         }
     }
-}
\ No newline at end of file
+}